@@ -3,12 +3,14 @@ package com.example.shardingjdbc;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Sharding-JDBC Demo 主启动类
  */
 @SpringBootApplication
 @MapperScan("com.example.shardingjdbc.mapper")
+@EnableScheduling
 public class ShardingJdbcDemoApplication {
     
     public static void main(String[] args) {
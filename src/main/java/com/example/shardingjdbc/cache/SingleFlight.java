@@ -0,0 +1,71 @@
+package com.example.shardingjdbc.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 合并并发的相同查询
+ * 同一个键同时只有一个调用方执行查询，其余调用方等待并共享其结果或异常；
+ * 查询结束后立即移除，不缓存结果，共享的结果对象不应被调用方修改
+ * @param <K> 查询键
+ * @param <V> 查询结果
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder sharedCount = new LongAdder();
+
+    /**
+     * 执行查询，已有相同键的查询在进行时等待其结果
+     * @param key 查询键
+     * @param loader 查询
+     * @return 查询结果
+     */
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            sharedCount.increment();
+            return await(existing);
+        }
+        try {
+            V result = loader.get();
+            created.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    /**
+     * @return 等待其他调用方结果而未自行查询的次数
+     */
+    public long getSharedCount() {
+        return sharedCount.sum();
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待查询结果被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException("查询失败", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.shardingjdbc.cache;
+
+import com.example.shardingjdbc.entity.User;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 用户本地缓存
+ * 按用户ID缓存用户、按用户名缓存用户ID，超过TTL或容量上限时淘汰；
+ * 不存在的用户同样缓存为空值，避免反复查询不存在的ID；
+ * 写入时立即失效，并在事务结束后再失效一次，防止并发读取把事务提交前的旧数据放回缓存
+ */
+@Component
+public class UserCache {
+
+    private final boolean enabled;
+
+    private final Cache<Long, Optional<User>> usersById;
+
+    private final Cache<String, Optional<Long>> userIdsByUsername;
+
+    public UserCache(@Value("${user-cache.enabled:true}") boolean enabled,
+                     @Value("${user-cache.max-size:10000}") long maxSize,
+                     @Value("${user-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.usersById = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        this.userIdsByUsername = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 按用户ID读取用户，未命中时调用loader加载
+     * @param userId 用户ID
+     * @param loader 加载用户，不存在时返回null
+     * @return 用户，不存在时返回null
+     */
+    public User getUser(Long userId, Supplier<User> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return get(usersById, userId, loader).orElse(null);
+    }
+
+    /**
+     * 按用户名读取用户ID，未命中时调用loader加载
+     * @param username 用户名
+     * @param loader 加载用户ID，不存在时返回null
+     * @return 用户ID，不存在时返回null
+     */
+    public Long getUserId(String username, Supplier<Long> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return get(userIdsByUsername, username, loader).orElse(null);
+    }
+
+    /**
+     * 失效用户缓存
+     * @param userId 用户ID
+     */
+    public void evictUser(Long userId) {
+        evict(usersById, userId);
+    }
+
+    /**
+     * 失效用户名缓存
+     * @param username 用户名
+     */
+    public void evictUsername(String username) {
+        evict(userIdsByUsername, username);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("usersById", stats(usersById));
+        result.put("userIdsByUsername", stats(userIdsByUsername));
+        return result;
+    }
+
+    private <K, V> Optional<V> get(Cache<K, Optional<V>> cache, K key, Supplier<V> loader) {
+        try {
+            return cache.get(key, () -> Optional.ofNullable(loader.get()));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("加载用户缓存失败", e.getCause());
+        }
+    }
+
+    private <K> void evict(Cache<K, ?> cache, K key) {
+        if (!enabled) {
+            return;
+        }
+        cache.invalidate(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(key);
+                }
+            });
+        }
+    }
+
+    private Map<String, Object> stats(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.size());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        return result;
+    }
+}
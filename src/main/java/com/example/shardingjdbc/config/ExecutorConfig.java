@@ -0,0 +1,42 @@
+package com.example.shardingjdbc.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 线程池配置
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * 按分片并行执行批量写入的线程池
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService shardExecutor(@Value("${shard-executor.pool-size:8}") int poolSize) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "shard-executor-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 对冲读取的线程池，每次对冲读取占用两个线程，与分片线程池分开，避免批量写入排队拖慢读取
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService hedgeExecutor(@Value("${hedged-read.pool-size:16}") int poolSize) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "hedge-executor-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
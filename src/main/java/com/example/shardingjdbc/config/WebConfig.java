@@ -0,0 +1,32 @@
+package com.example.shardingjdbc.config;
+
+import com.example.shardingjdbc.guard.DeadlineHandlerInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * Web MVC配置
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final DeadlineHandlerInterceptor deadlineHandlerInterceptor;
+
+    public WebConfig(@Value("${request-deadline.max-millis:30000}") long maxMillis) {
+        this.deadlineHandlerInterceptor = new DeadlineHandlerInterceptor(maxMillis);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(deadlineHandlerInterceptor).addPathPatterns("/api/**");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deadlineHandlerInterceptor.shutdown();
+    }
+}
@@ -1,15 +1,26 @@
 package com.example.shardingjdbc.controller;
 
+import com.example.shardingjdbc.dto.BatchItemResult;
+import com.example.shardingjdbc.dto.CursorPage;
+import com.example.shardingjdbc.dto.OrderStatusChange;
+import com.example.shardingjdbc.dto.PartialResult;
 import com.example.shardingjdbc.entity.Order;
+import com.example.shardingjdbc.guard.RequestDeadline;
 import com.example.shardingjdbc.service.OrderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,7 +37,11 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
     
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     @PostMapping
+    @RequestDeadline(3000)
     @Operation(summary = "创建订单", description = "创建新的订单")
     public ResponseEntity<Map<String, Object>> createOrder(
             @Parameter(description = "订单信息") @RequestBody Order order) {
@@ -46,7 +61,62 @@ public class OrderController {
         }
     }
     
+    @PostMapping("/batch")
+    @RequestDeadline(10000)
+    @Operation(summary = "批量创建订单", description = "按数据节点分组后各分片并行写入，逐条返回处理结果")
+    public ResponseEntity<Map<String, Object>> createOrders(
+            @Parameter(description = "订单列表") @RequestBody List<Order> orders) {
+        try {
+            List<BatchItemResult<Order>> items = orderService.createOrders(orders);
+            long successCount = items.stream().filter(BatchItemResult::isSuccess).count();
+            long unknownCount = items.stream().filter(BatchItemResult::isUnknown).count();
+            long failureCount = items.size() - successCount - unknownCount;
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", successCount == items.size());
+            result.put("message", "批量创建完成，成功" + successCount + "个，失败" + failureCount + "个，结果未知" + unknownCount + "个");
+            result.put("data", items);
+            result.put("successCount", successCount);
+            result.put("failureCount", failureCount);
+            result.put("unknownCount", unknownCount);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            log.error("批量创建订单失败", e);
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", false);
+            result.put("message", "批量创建失败：" + e.getMessage());
+            return ResponseEntity.badRequest().body(result);
+        }
+    }
+    
+    @PutMapping("/batch/status")
+    @RequestDeadline(10000)
+    @Operation(summary = "批量更新订单状态", description = "按数据节点分组后各分片并行执行，逐条返回处理结果")
+    public ResponseEntity<Map<String, Object>> updateOrderStatuses(
+            @Parameter(description = "状态变更列表") @RequestBody List<OrderStatusChange> changes) {
+        try {
+            List<BatchItemResult<OrderStatusChange>> items = orderService.updateOrderStatuses(changes);
+            long successCount = items.stream().filter(BatchItemResult::isSuccess).count();
+            long unknownCount = items.stream().filter(BatchItemResult::isUnknown).count();
+            long failureCount = items.size() - successCount - unknownCount;
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", successCount == items.size());
+            result.put("message", "批量更新完成，成功" + successCount + "个，失败" + failureCount + "个，结果未知" + unknownCount + "个");
+            result.put("data", items);
+            result.put("successCount", successCount);
+            result.put("failureCount", failureCount);
+            result.put("unknownCount", unknownCount);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            log.error("批量更新订单状态失败", e);
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", false);
+            result.put("message", "批量更新失败：" + e.getMessage());
+            return ResponseEntity.badRequest().body(result);
+        }
+    }
+    
     @GetMapping("/{orderId}")
+    @RequestDeadline(3000)
     @Operation(summary = "根据订单ID查询订单", description = "通过订单ID获取订单详细信息")
     public ResponseEntity<Map<String, Object>> getOrderById(
             @Parameter(description = "订单ID") @PathVariable Long orderId) {
@@ -72,6 +142,7 @@ public class OrderController {
     }
     
     @GetMapping("/user/{userId}")
+    @RequestDeadline(3000)
     @Operation(summary = "根据用户ID查询订单列表", description = "获取指定用户的所有订单")
     public ResponseEntity<Map<String, Object>> getOrdersByUserId(
             @Parameter(description = "用户ID") @PathVariable Long userId) {
@@ -93,6 +164,7 @@ public class OrderController {
     }
     
     @GetMapping("/orderNo/{orderNo}")
+    @RequestDeadline(3000)
     @Operation(summary = "根据订单号查询订单", description = "通过订单号获取订单详细信息")
     public ResponseEntity<Map<String, Object>> getOrderByOrderNo(
             @Parameter(description = "订单号") @PathVariable String orderNo) {
@@ -117,10 +189,47 @@ public class OrderController {
         }
     }
     
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "流式导出所有订单", description = "以NDJSON格式按创建时间倒序逐行输出，内存占用与订单数量无关")
+    public ResponseEntity<StreamingResponseBody> exportAllOrders() {
+        StreamingResponseBody body = outputStream -> orderService.exportAllOrders(order -> writeLine(outputStream, order));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+    
+    @GetMapping(params = "ids")
+    @RequestDeadline(10000)
+    @Operation(summary = "根据订单ID列表批量查询订单", description = "按数据节点分组，每个分片一次IN查询，结果与请求顺序一致，不存在的订单为null")
+    public ResponseEntity<Map<String, Object>> getOrdersByIds(
+            @Parameter(description = "订单ID列表，逗号分隔") @RequestParam List<Long> ids) {
+        try {
+            List<Order> orders = orderService.getOrdersByIds(ids);
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", true);
+            result.put("message", "查询成功");
+            result.put("data", orders);
+            result.put("total", orders.size());
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            log.error("批量查询订单失败", e);
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", false);
+            result.put("message", "查询失败：" + e.getMessage());
+            return ResponseEntity.badRequest().body(result);
+        }
+    }
+    
     @GetMapping
+    @RequestDeadline(15000)
     @Operation(summary = "查询所有订单", description = "获取所有订单列表")
-    public ResponseEntity<Map<String, Object>> getAllOrders() {
+    public ResponseEntity<Map<String, Object>> getAllOrders(
+            @Parameter(description = "部分结果模式，只返回在单分片时限内响应的数据节点上的数据") @RequestParam(defaultValue = "false") boolean partial) {
         try {
+            if (partial) {
+                PartialResult<Order> partialResult = orderService.getAllOrdersPartial();
+                Map<String, Object> result = partialResult(partialResult);
+                result.put("total", partialResult.getData().size());
+                return ResponseEntity.ok(result);
+            }
             List<Order> orders = orderService.getAllOrders();
             Map<String, Object> result = new HashMap<>();
             result.put("success", true);
@@ -138,6 +247,7 @@ public class OrderController {
     }
     
     @PutMapping("/{orderId}")
+    @RequestDeadline(3000)
     @Operation(summary = "更新订单信息", description = "修改订单的详细信息")
     public ResponseEntity<Map<String, Object>> updateOrder(
             @Parameter(description = "订单ID") @PathVariable Long orderId,
@@ -160,6 +270,7 @@ public class OrderController {
     }
     
     @DeleteMapping("/{orderId}")
+    @RequestDeadline(3000)
     @Operation(summary = "删除订单", description = "根据订单ID删除订单")
     public ResponseEntity<Map<String, Object>> deleteOrder(
             @Parameter(description = "订单ID") @PathVariable Long orderId) {
@@ -184,11 +295,22 @@ public class OrderController {
     }
     
     @GetMapping("/page")
+    @RequestDeadline(15000)
     @Operation(summary = "分页查询订单", description = "分页获取订单列表")
     public ResponseEntity<Map<String, Object>> getOrdersByPage(
             @Parameter(description = "页码") @RequestParam(defaultValue = "1") int pageNum,
-            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") int pageSize) {
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") int pageSize,
+            @Parameter(description = "部分结果模式，只返回在单分片时限内响应的数据节点上的数据") @RequestParam(defaultValue = "false") boolean partial) {
         try {
+            if (partial) {
+                PartialResult<Order> partialResult = orderService.getOrdersByPagePartial(pageNum, pageSize);
+                Map<String, Object> result = partialResult(partialResult);
+                result.put("pageNum", pageNum);
+                result.put("pageSize", pageSize);
+                result.put("total", partialResult.getTotal());
+                result.put("totalPages", (partialResult.getTotal() + pageSize - 1) / pageSize);
+                return ResponseEntity.ok(result);
+            }
             List<Order> orders = orderService.getOrdersByPage(pageNum, pageSize);
             int total = orderService.getOrderCount();
             Map<String, Object> result = new HashMap<>();
@@ -209,7 +331,33 @@ public class OrderController {
         }
     }
     
+    @GetMapping("/cursor")
+    @RequestDeadline(15000)
+    @Operation(summary = "游标分页查询订单", description = "按创建时间倒序翻页，翻页深度不影响查询开销")
+    public ResponseEntity<Map<String, Object>> getOrdersByCursor(
+            @Parameter(description = "上一页返回的游标，第一页不传") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") int pageSize) {
+        try {
+            CursorPage<Order> page = orderService.getOrdersByCursor(cursor, pageSize);
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", true);
+            result.put("message", "查询成功");
+            result.put("data", page.getData());
+            result.put("pageSize", pageSize);
+            result.put("nextCursor", page.getNextCursor());
+            result.put("hasMore", page.isHasMore());
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            log.error("游标分页查询订单失败", e);
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", false);
+            result.put("message", "查询失败：" + e.getMessage());
+            return ResponseEntity.badRequest().body(result);
+        }
+    }
+    
     @GetMapping("/user/{userId}/page")
+    @RequestDeadline(3000)
     @Operation(summary = "根据用户ID分页查询订单", description = "分页获取指定用户的订单列表")
     public ResponseEntity<Map<String, Object>> getOrdersByUserIdAndPage(
             @Parameter(description = "用户ID") @PathVariable Long userId,
@@ -238,6 +386,7 @@ public class OrderController {
     }
     
     @PutMapping("/{orderId}/status")
+    @RequestDeadline(3000)
     @Operation(summary = "更新订单状态", description = "修改订单的状态")
     public ResponseEntity<Map<String, Object>> updateOrderStatus(
             @Parameter(description = "订单ID") @PathVariable Long orderId,
@@ -261,4 +410,30 @@ public class OrderController {
             return ResponseEntity.badRequest().body(result);
         }
     }
+    
+    /**
+     * 部分结果模式的响应，未在时限内返回的数据节点列在missingNodes中，计数未返回的数据源列在missingCounters中
+     */
+    private Map<String, Object> partialResult(PartialResult<?> partialResult) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("message", partialResult.isComplete() ? "查询成功" : "部分数据节点未在时限内返回，结果不完整");
+        result.put("data", partialResult.getData());
+        result.put("complete", partialResult.isComplete());
+        result.put("missingNodes", partialResult.getMissingNodes());
+        result.put("missingCounters", partialResult.getMissingCounters());
+        return result;
+    }
+    
+    /**
+     * 写出一行NDJSON
+     */
+    private void writeLine(OutputStream outputStream, Object value) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(value));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -0,0 +1,80 @@
+package com.example.shardingjdbc.controller;
+
+import com.example.shardingjdbc.resharding.ReshardingCoordinator;
+import com.example.shardingjdbc.resharding.ReshardingPhase;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 在线扩容控制器
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/resharding")
+@Tag(name = "在线扩容", description = "双写、回填、校验与读切换")
+public class ReshardingController {
+    
+    @Autowired
+    private ReshardingCoordinator reshardingCoordinator;
+    
+    @GetMapping("/status")
+    @Operation(summary = "查询扩容状态", description = "获取当前阶段以及双写、回填、校验的进度和吞吐")
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("message", "查询成功");
+        result.put("data", reshardingCoordinator.status());
+        return ResponseEntity.ok(result);
+    }
+    
+    @PutMapping("/phase")
+    @Operation(summary = "切换扩容阶段", description = "NONE-未扩容，DUAL_WRITE-双写，READ_SWITCH-读切换")
+    public ResponseEntity<Map<String, Object>> switchPhase(
+            @Parameter(description = "扩容阶段") @RequestParam ReshardingPhase phase) {
+        return execute("扩容阶段切换", () -> reshardingCoordinator.switchPhase(phase));
+    }
+    
+    @PostMapping("/backfill")
+    @Operation(summary = "启动数据回填", description = "按原物理表并行、限速地复制历史数据到新布局")
+    public ResponseEntity<Map<String, Object>> startBackfill() {
+        return execute("数据回填启动", reshardingCoordinator::startBackfill);
+    }
+    
+    @PostMapping("/verify")
+    @Operation(summary = "启动分块校验", description = "按数据块比较原布局与新布局的校验和，repair=true时按原布局修复不一致的数据块")
+    public ResponseEntity<Map<String, Object>> startVerify(
+            @Parameter(description = "是否修复不一致的数据块") @RequestParam(defaultValue = "false") boolean repair) {
+        return execute("分块校验启动", () -> reshardingCoordinator.startVerify(repair));
+    }
+    
+    @PostMapping("/cancel")
+    @Operation(summary = "取消回填和校验", description = "正在处理的批次完成后停止")
+    public ResponseEntity<Map<String, Object>> cancelJobs() {
+        return execute("任务取消", reshardingCoordinator::cancelJobs);
+    }
+    
+    private ResponseEntity<Map<String, Object>> execute(String action, Runnable runnable) {
+        try {
+            runnable.run();
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", true);
+            result.put("message", action + "成功");
+            result.put("data", reshardingCoordinator.status());
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            log.error(action + "失败", e);
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", false);
+            result.put("message", action + "失败：" + e.getMessage());
+            return ResponseEntity.badRequest().body(result);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.shardingjdbc.controller;
+
+import com.example.shardingjdbc.guard.ShardGuards;
+import com.example.shardingjdbc.routing.HedgedReader;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 分片数据源控制器
+ */
+@RestController
+@RequestMapping("/api/shards")
+@Tag(name = "分片数据源", description = "各物理数据源的运行状态")
+public class ShardController {
+    
+    @Autowired
+    private ShardGuards shardGuards;
+    
+    @Autowired
+    private HedgedReader hedgedReader;
+    
+    @GetMapping("/guards")
+    @Operation(summary = "查询隔离舱和熔断器状态", description = "获取各物理数据源的熔断状态、执行中语句数以及拒绝和熔断次数")
+    public ResponseEntity<Map<String, Object>> getGuards() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("message", "查询成功");
+        result.put("data", shardGuards.stats());
+        return ResponseEntity.ok(result);
+    }
+    
+    @GetMapping("/hedging")
+    @Operation(summary = "查询对冲读取统计", description = "获取各类对冲读取的读取次数、对冲率、对冲胜出率和当前对冲延迟")
+    public ResponseEntity<Map<String, Object>> getHedging() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("message", "查询成功");
+        result.put("data", hedgedReader.stats());
+        return ResponseEntity.ok(result);
+    }
+}
@@ -1,15 +1,23 @@
 package com.example.shardingjdbc.controller;
 
+import com.example.shardingjdbc.dto.PartialResult;
 import com.example.shardingjdbc.entity.User;
+import com.example.shardingjdbc.guard.RequestDeadline;
 import com.example.shardingjdbc.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,7 +34,11 @@ public class UserController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     @PostMapping
+    @RequestDeadline(3000)
     @Operation(summary = "创建用户", description = "创建新的用户")
     public ResponseEntity<Map<String, Object>> createUser(
             @Parameter(description = "用户信息") @RequestBody User user) {
@@ -46,7 +58,18 @@ public class UserController {
         }
     }
     
+    @GetMapping("/cache/stats")
+    @Operation(summary = "查询用户缓存统计", description = "获取用户缓存的容量以及命中、未命中和淘汰次数")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("message", "查询成功");
+        result.put("data", userService.getCacheStats());
+        return ResponseEntity.ok(result);
+    }
+    
     @GetMapping("/{userId}")
+    @RequestDeadline(3000)
     @Operation(summary = "根据用户ID查询用户", description = "通过用户ID获取用户详细信息")
     public ResponseEntity<Map<String, Object>> getUserById(
             @Parameter(description = "用户ID") @PathVariable Long userId) {
@@ -72,6 +95,7 @@ public class UserController {
     }
     
     @GetMapping("/username/{username}")
+    @RequestDeadline(3000)
     @Operation(summary = "根据用户名查询用户", description = "通过用户名获取用户详细信息")
     public ResponseEntity<Map<String, Object>> getUserByUsername(
             @Parameter(description = "用户名") @PathVariable String username) {
@@ -96,7 +120,37 @@ public class UserController {
         }
     }
     
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "流式导出所有用户", description = "以NDJSON格式按创建时间倒序逐行输出，内存占用与用户数量无关")
+    public ResponseEntity<StreamingResponseBody> exportAllUsers() {
+        StreamingResponseBody body = outputStream -> userService.exportAllUsers(user -> writeLine(outputStream, user));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+    
+    @GetMapping(params = "ids")
+    @RequestDeadline(10000)
+    @Operation(summary = "根据用户ID列表批量查询用户", description = "按数据节点分组，每个分片一次IN查询，结果与请求顺序一致，不存在的用户为null")
+    public ResponseEntity<Map<String, Object>> getUsersByIds(
+            @Parameter(description = "用户ID列表，逗号分隔") @RequestParam List<Long> ids) {
+        try {
+            List<User> users = userService.getUsersByIds(ids);
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", true);
+            result.put("message", "查询成功");
+            result.put("data", users);
+            result.put("total", users.size());
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            log.error("批量查询用户失败", e);
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", false);
+            result.put("message", "查询失败：" + e.getMessage());
+            return ResponseEntity.badRequest().body(result);
+        }
+    }
+    
     @GetMapping
+    @RequestDeadline(15000)
     @Operation(summary = "查询所有用户", description = "获取所有用户列表")
     public ResponseEntity<Map<String, Object>> getAllUsers() {
         try {
@@ -117,6 +171,7 @@ public class UserController {
     }
     
     @PutMapping("/{userId}")
+    @RequestDeadline(3000)
     @Operation(summary = "更新用户信息", description = "修改用户的详细信息")
     public ResponseEntity<Map<String, Object>> updateUser(
             @Parameter(description = "用户ID") @PathVariable Long userId,
@@ -139,6 +194,7 @@ public class UserController {
     }
     
     @DeleteMapping("/{userId}")
+    @RequestDeadline(3000)
     @Operation(summary = "删除用户", description = "根据用户ID删除用户")
     public ResponseEntity<Map<String, Object>> deleteUser(
             @Parameter(description = "用户ID") @PathVariable Long userId) {
@@ -163,11 +219,22 @@ public class UserController {
     }
     
     @GetMapping("/page")
+    @RequestDeadline(15000)
     @Operation(summary = "分页查询用户", description = "分页获取用户列表")
     public ResponseEntity<Map<String, Object>> getUsersByPage(
             @Parameter(description = "页码") @RequestParam(defaultValue = "1") int pageNum,
-            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") int pageSize) {
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") int pageSize,
+            @Parameter(description = "部分结果模式，只返回在单分片时限内响应的数据节点上的数据") @RequestParam(defaultValue = "false") boolean partial) {
         try {
+            if (partial) {
+                PartialResult<User> partialResult = userService.getUsersByPagePartial(pageNum, pageSize);
+                Map<String, Object> result = partialResult(partialResult);
+                result.put("pageNum", pageNum);
+                result.put("pageSize", pageSize);
+                result.put("total", partialResult.getTotal());
+                result.put("totalPages", (partialResult.getTotal() + pageSize - 1) / pageSize);
+                return ResponseEntity.ok(result);
+            }
             List<User> users = userService.getUsersByPage(pageNum, pageSize);
             int total = userService.getUserCount();
             Map<String, Object> result = new HashMap<>();
@@ -187,4 +254,30 @@ public class UserController {
             return ResponseEntity.badRequest().body(result);
         }
     }
+    
+    /**
+     * 部分结果模式的响应，未在时限内返回的数据节点列在missingNodes中，计数未返回的数据源列在missingCounters中
+     */
+    private Map<String, Object> partialResult(PartialResult<?> partialResult) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("message", partialResult.isComplete() ? "查询成功" : "部分数据节点未在时限内返回，结果不完整");
+        result.put("data", partialResult.getData());
+        result.put("complete", partialResult.isComplete());
+        result.put("missingNodes", partialResult.getMissingNodes());
+        result.put("missingCounters", partialResult.getMissingCounters());
+        return result;
+    }
+    
+    /**
+     * 写出一行NDJSON
+     */
+    private void writeLine(OutputStream outputStream, Object value) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(value));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -0,0 +1,213 @@
+package com.example.shardingjdbc.counter;
+
+import com.example.shardingjdbc.dto.UserOrderCount;
+import com.example.shardingjdbc.mapper.OrderMapper;
+import com.example.shardingjdbc.mapper.RowCounterMapper;
+import com.example.shardingjdbc.sharding.ShardingGene;
+import com.example.shardingjdbc.sharding.SlotMapping;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+/**
+ * 行数计数对账任务
+ * 先用不加锁的扫描找出可疑的计数，再逐个在事务中锁定计数行、重新统计并覆盖，
+ * 并发写入会阻塞在计数行锁上，修正结果不会吞掉对账期间的增减
+ */
+@Slf4j
+@Component
+public class RowCounterReconciler {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final RowCounterMapper rowCounterMapper;
+
+    private final OrderMapper orderMapper;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public RowCounterReconciler(RowCounterMapper rowCounterMapper, OrderMapper orderMapper, DataSource dataSource,
+                                PlatformTransactionManager transactionManager) {
+        this.rowCounterMapper = rowCounterMapper;
+        this.orderMapper = orderMapper;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // 流式读取全表扫描结果，避免一次性加载到内存
+        this.jdbcTemplate.setFetchSize(BATCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 定时对账
+     */
+    @Scheduled(initialDelayString = "${row-counter.reconcile-interval:3600000}",
+            fixedDelayString = "${row-counter.reconcile-interval:3600000}")
+    public void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.error("行数计数对账失败", e);
+        }
+    }
+
+    /**
+     * 对账全部计数，用户订单计数必须先于订单槽位计数修正，后者由前者汇总得到
+     * @return 各类计数的修正数量
+     */
+    public synchronized Map<String, Object> reconcile() {
+        log.info("开始行数计数对账");
+        long start = System.currentTimeMillis();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("userOrderCounters", reconcileUserOrders());
+        result.put("orderSlotCounters", reconcileOrderSlots());
+        result.put("userSlotCounters", reconcileUserSlots());
+        result.put("elapsedMillis", System.currentTimeMillis() - start);
+        log.info("行数计数对账完成：{}", result);
+        return result;
+    }
+
+    /**
+     * 两个方向各扫描一次：有订单但计数不符的用户，以及计数非零但订单不符的用户
+     */
+    private long reconcileUserOrders() {
+        long fixed = scanUserOrders("SELECT user_id, COUNT(*) FROM t_order GROUP BY user_id",
+                rowCounterMapper::selectUserOrderCounts);
+        fixed += scanUserOrders("SELECT user_id, order_count FROM t_user_order_counter WHERE order_count <> 0",
+                rowCounterMapper::countOrdersByUserIds);
+        return fixed;
+    }
+
+    private long reconcileOrderSlots() {
+        long[] expected = new long[SlotMapping.SLOT_COUNT];
+        jdbcTemplate.query("SELECT slot, SUM(order_count) FROM t_user_order_counter GROUP BY slot",
+                (RowCallbackHandler) rs -> expected[rs.getInt(1)] = rs.getLong(2));
+        return reconcileSlots(RowCounterService.ORDER_TABLE, expected, this::fixOrderSlot);
+    }
+
+    private long reconcileUserSlots() {
+        long[] expected = new long[SlotMapping.SLOT_COUNT];
+        jdbcTemplate.query("SELECT user_id FROM t_user",
+                (RowCallbackHandler) rs -> expected[ShardingGene.ofUserId(rs.getLong(1))]++);
+        return reconcileSlots(RowCounterService.USER_TABLE, expected, this::fixUserSlot);
+    }
+
+    private long reconcileSlots(String tableName, long[] expected, IntPredicate fixer) {
+        long[] stored = new long[SlotMapping.SLOT_COUNT];
+        jdbcTemplate.query("SELECT slot, row_count FROM t_shard_counter WHERE table_name = ?",
+                (RowCallbackHandler) rs -> stored[rs.getInt(1)] = rs.getLong(2), tableName);
+        long fixed = 0;
+        for (int i = 0; i < SlotMapping.SLOT_COUNT; i++) {
+            int slot = i;
+            if (stored[slot] != expected[slot] && fix(() -> fixer.test(slot), tableName + "槽位" + slot)) {
+                fixed++;
+            }
+        }
+        return fixed;
+    }
+
+    /**
+     * 流式扫描(user_id, 计数)，按批与另一侧的计数比较，不一致的逐个修正
+     */
+    private long scanUserOrders(String sql, Function<List<Long>, List<UserOrderCount>> lookup) {
+        List<UserOrderCount> batch = new ArrayList<>(BATCH_SIZE);
+        long[] fixed = new long[1];
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            batch.add(new UserOrderCount(rs.getLong(1), rs.getLong(2)));
+            if (batch.size() >= BATCH_SIZE) {
+                fixed[0] += fixMismatchedUsers(batch, lookup);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            fixed[0] += fixMismatchedUsers(batch, lookup);
+        }
+        return fixed[0];
+    }
+
+    private long fixMismatchedUsers(List<UserOrderCount> batch, Function<List<Long>, List<UserOrderCount>> lookup) {
+        List<Long> userIds = new ArrayList<>(batch.size());
+        for (UserOrderCount each : batch) {
+            userIds.add(each.getUserId());
+        }
+        Map<Long, Long> other = new HashMap<>();
+        for (UserOrderCount each : lookup.apply(userIds)) {
+            other.put(each.getUserId(), each.getOrderCount());
+        }
+        long fixed = 0;
+        for (UserOrderCount each : batch) {
+            if (!each.getOrderCount().equals(other.getOrDefault(each.getUserId(), 0L))
+                    && fix(() -> fixUserOrders(each.getUserId()), "用户" + each.getUserId() + "订单数")) {
+                fixed++;
+            }
+        }
+        return fixed;
+    }
+
+    /**
+     * 锁定计数行后重新统计，扫描时看到的差异可能只是并发写入造成的，以锁内结果为准
+     */
+    private boolean fixUserOrders(Long userId) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            Long stored = rowCounterMapper.lockUserOrders(userId);
+            long actual = orderMapper.countByUserId(userId);
+            if (stored == null ? actual == 0L : stored == actual) {
+                return false;
+            }
+            rowCounterMapper.saveUserOrders(userId, ShardingGene.ofUserId(userId), actual);
+            log.warn("修正用户订单数，用户ID：{}，计数：{}，实际：{}", userId, stored, actual);
+            return true;
+        }));
+    }
+
+    private boolean fixOrderSlot(int slot) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            Long stored = rowCounterMapper.lockSlot(RowCounterService.ORDER_TABLE, slot);
+            Long actual = rowCounterMapper.sumUserOrdersBySlot(slot);
+            return saveSlotIfChanged(RowCounterService.ORDER_TABLE, slot, stored, actual == null ? 0L : actual);
+        }));
+    }
+
+    private boolean fixUserSlot(int slot) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            Long stored = rowCounterMapper.lockSlot(RowCounterService.USER_TABLE, slot);
+            long actual = rowCounterMapper.countUsersBySlot(slot);
+            return saveSlotIfChanged(RowCounterService.USER_TABLE, slot, stored, actual);
+        }));
+    }
+
+    private boolean saveSlotIfChanged(String tableName, int slot, Long stored, long actual) {
+        if (stored == null ? actual == 0L : stored == actual) {
+            return false;
+        }
+        rowCounterMapper.saveSlot(tableName, slot, actual);
+        log.warn("修正槽位计数，表：{}，槽位：{}，计数：{}，实际：{}", tableName, slot, stored, actual);
+        return true;
+    }
+
+    /**
+     * 单个计数修正失败（如锁等待超时）不影响其余计数，留待下次对账
+     */
+    private boolean fix(BooleanSupplier fixer, String target) {
+        try {
+            return fixer.getAsBoolean();
+        } catch (RuntimeException e) {
+            log.warn("修正计数失败，对象：{}", target, e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.shardingjdbc.counter;
+
+import com.example.shardingjdbc.mapper.RowCounterMapper;
+import com.example.shardingjdbc.sharding.ShardingGene;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 行数计数服务
+ * 按槽位维护各逻辑表的行数，按用户维护订单数；计数行和数据行落在同一分库，
+ * 写入方必须在业务事务内调用，使计数与数据一起提交或回滚，查询总数只需汇总计数行
+ */
+@Service
+public class RowCounterService {
+
+    public static final String ORDER_TABLE = "t_order";
+
+    public static final String USER_TABLE = "t_user";
+
+    @Autowired
+    private RowCounterMapper rowCounterMapper;
+
+    /**
+     * 订单插入后调用
+     * @param userId 订单所属用户ID
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onOrderInserted(Long userId) {
+        changeOrderCount(userId, 1L);
+    }
+
+    /**
+     * 批量插入订单后调用，按用户ID、槽位的顺序更新计数，避免并发批量写入以不同顺序加锁产生死锁
+     * @param countsByUser 各用户新增的订单数
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onOrdersInserted(Map<Long, Integer> countsByUser) {
+        Map<Integer, Long> countsBySlot = new TreeMap<>();
+        for (Map.Entry<Long, Integer> entry : new TreeMap<>(countsByUser).entrySet()) {
+            int slot = ShardingGene.ofUserId(entry.getKey());
+            rowCounterMapper.incrementUserOrders(entry.getKey(), slot, entry.getValue());
+            countsBySlot.merge(slot, (long) entry.getValue(), Long::sum);
+        }
+        for (Map.Entry<Integer, Long> entry : countsBySlot.entrySet()) {
+            rowCounterMapper.incrementSlot(ORDER_TABLE, entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 订单删除后调用
+     * @param userId 订单所属用户ID
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onOrderDeleted(Long userId) {
+        changeOrderCount(userId, -1L);
+    }
+
+    /**
+     * 用户插入后调用
+     * @param userId 用户ID
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onUserInserted(Long userId) {
+        rowCounterMapper.incrementSlot(USER_TABLE, ShardingGene.ofUserId(userId), 1L);
+    }
+
+    /**
+     * 用户删除后调用
+     * @param userId 用户ID
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onUserDeleted(Long userId) {
+        rowCounterMapper.incrementSlot(USER_TABLE, ShardingGene.ofUserId(userId), -1L);
+    }
+
+    /**
+     * 查询订单总数
+     * @return 订单总数
+     */
+    public long countOrders() {
+        return nullToZero(rowCounterMapper.sumSlots(ORDER_TABLE));
+    }
+
+    /**
+     * 查询用户总数
+     * @return 用户总数
+     */
+    public long countUsers() {
+        return nullToZero(rowCounterMapper.sumSlots(USER_TABLE));
+    }
+
+    /**
+     * 查询用户的订单数
+     * @param userId 用户ID
+     * @return 订单数
+     */
+    public long countOrdersByUserId(Long userId) {
+        return nullToZero(rowCounterMapper.selectUserOrderCount(userId));
+    }
+
+    /**
+     * 槽位计数行被同槽位的所有写入共享，放在最后更新以缩短持锁时间
+     */
+    private void changeOrderCount(Long userId, long delta) {
+        int slot = ShardingGene.ofUserId(userId);
+        rowCounterMapper.incrementUserOrders(userId, slot, delta);
+        rowCounterMapper.incrementSlot(ORDER_TABLE, slot, delta);
+    }
+
+    private static long nullToZero(Long value) {
+        return value == null ? 0L : value;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.shardingjdbc.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量操作中单条数据的处理结果
+ * @param <T> 数据类型
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResult<T> {
+
+    /**
+     * 在请求列表中的下标
+     */
+    private int index;
+
+    /**
+     * 是否成功
+     */
+    private boolean success;
+
+    /**
+     * 结果是否未知：等待超过处理时限时任务可能仍在执行或已经提交，应按data中的ID查询确认，不要重复提交
+     */
+    private boolean unknown;
+
+    /**
+     * 失败原因，成功时为null
+     */
+    private String message;
+
+    /**
+     * 处理后的数据
+     */
+    private T data;
+
+    public static <T> BatchItemResult<T> success(int index, T data) {
+        return new BatchItemResult<>(index, true, false, null, data);
+    }
+
+    public static <T> BatchItemResult<T> failure(int index, String message) {
+        return new BatchItemResult<>(index, false, false, message, null);
+    }
+
+    public static <T> BatchItemResult<T> unknown(int index, String message, T data) {
+        return new BatchItemResult<>(index, false, true, message, data);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.shardingjdbc.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 游标分页结果
+ * @param <T> 数据类型
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    
+    /**
+     * 当前页数据
+     */
+    private List<T> data;
+    
+    /**
+     * 下一页游标，没有下一页时为null
+     */
+    private String nextCursor;
+    
+    /**
+     * 是否还有下一页
+     */
+    private boolean hasMore;
+}
@@ -0,0 +1,59 @@
+package com.example.shardingjdbc.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 订单游标分页位置
+ * 记录上一页最后一条订单的(create_time, order_id)，对客户端以不透明字符串传递
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderCursor {
+    
+    private static final String SEPARATOR = "|";
+    
+    /**
+     * 上一页最后一条订单的创建时间
+     */
+    private LocalDateTime createTime;
+    
+    /**
+     * 上一页最后一条订单的订单ID
+     */
+    private Long orderId;
+    
+    /**
+     * 编码为游标字符串
+     * @return 游标字符串
+     */
+    public String encode() {
+        String value = createTime + SEPARATOR + orderId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 解析游标字符串
+     * @param cursor 游标字符串
+     * @return 游标，cursor为空时返回null表示第一页
+     */
+    public static OrderCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = value.lastIndexOf(SEPARATOR);
+            return new OrderCursor(LocalDateTime.parse(value.substring(0, index)), Long.parseLong(value.substring(index + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("无效的分页游标：" + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.shardingjdbc.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 订单状态变更
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusChange {
+
+    /**
+     * 用户ID，用于定位订单所在的数据节点
+     */
+    private Long userId;
+
+    /**
+     * 订单ID
+     */
+    private Long orderId;
+
+    /**
+     * 目标状态
+     */
+    private Integer status;
+}
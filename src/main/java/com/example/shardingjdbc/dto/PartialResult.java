@@ -0,0 +1,50 @@
+package com.example.shardingjdbc.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 部分结果
+ * 只包含在时限内返回的数据节点上的数据，未返回的数据节点列在missingNodes中，计数未返回的数据源列在missingCounters中
+ * @param <T> 数据类型
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartialResult<T> {
+    
+    /**
+     * 已返回的数据节点上的数据
+     */
+    private List<T> data;
+    
+    /**
+     * 已返回的数据节点上的总数，不需要总数时为null
+     */
+    private Long total;
+    
+    /**
+     * 未在时限内返回的数据节点，格式为 数据源.表
+     */
+    private List<String> missingNodes;
+    
+    /**
+     * 计数未在时限内返回的数据源，这些数据源上已返回的数据节点不计入总数
+     */
+    private List<String> missingCounters;
+    
+    public PartialResult(List<T> data, Long total, List<String> missingNodes) {
+        this(data, total, missingNodes, Collections.emptyList());
+    }
+    
+    /**
+     * @return 是否全部数据节点和计数都已返回
+     */
+    public boolean isComplete() {
+        return missingNodes.isEmpty() && missingCounters.isEmpty();
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.shardingjdbc.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 用户订单数
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserOrderCount {
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 订单数
+     */
+    private Long orderCount;
+}
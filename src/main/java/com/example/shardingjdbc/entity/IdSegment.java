@@ -0,0 +1,42 @@
+package com.example.shardingjdbc.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * ID号段实体类
+ * 记录各业务ID已分配的最大值（高水位），仅存放在ds0的单表中
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdSegment {
+    
+    /**
+     * 业务标识
+     */
+    private String bizTag;
+    
+    /**
+     * 已分配的最大ID
+     */
+    private Long maxId;
+    
+    /**
+     * 号段步长
+     */
+    private Integer step;
+    
+    /**
+     * 描述
+     */
+    private String description;
+    
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+}
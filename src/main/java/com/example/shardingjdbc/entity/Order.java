@@ -10,6 +10,7 @@ import java.time.LocalDateTime;
 /**
  * 订单实体类
  * 按user_id进行数据库分片，按order_id进行表分片
+ * order_id低10位携带用户分片基因，仅凭order_id即可路由到唯一分片
  */
 @Data
 @NoArgsConstructor
@@ -17,7 +18,7 @@ import java.time.LocalDateTime;
 public class Order {
     
     /**
-     * 订单ID - 表分片键
+     * 订单ID - 表分片键（低10位为用户分片基因）
      */
     private Long orderId;
     
@@ -27,7 +28,7 @@ public class Order {
     private Long userId;
     
     /**
-     * 订单号
+     * 订单号（ORDER + 日期 + 订单ID，可直接解析出分片坐标）
      */
     private String orderNo;
     
@@ -65,4 +66,9 @@ public class Order {
      * 备注
      */
     private String remark;
+    
+    /**
+     * 乐观锁版本号，更新时携带则按版本比较后写入
+     */
+    private Integer version;
 }
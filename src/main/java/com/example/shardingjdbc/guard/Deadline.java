@@ -0,0 +1,120 @@
+package com.example.shardingjdbc.guard;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 请求的处理时限
+ * 绑定在处理请求的线程上，提交到分片线程池的查询通过propagate带上；
+ * 执行中的语句登记在时限上，到期时统一取消，ShardingSphere把取消转发到各分片上的物理语句
+ */
+@Slf4j
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long expiresAtNanos;
+
+    private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean cancelled;
+
+    public Deadline(long timeoutMillis) {
+        this.expiresAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * @return 当前线程的处理时限，未设置时返回null
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    static void bind(Deadline deadline) {
+        CURRENT.set(deadline);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 把当前线程的处理时限带到其他线程执行的查询上，用于提交到分片线程池的查询
+     * @param query 查询
+     * @return 在当前时限内执行的查询，当前线程未设置时限时返回原查询
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> query) {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return query;
+        }
+        return () -> {
+            Deadline previous = CURRENT.get();
+            CURRENT.set(deadline);
+            try {
+                return query.get();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * @return 剩余时间（毫秒），已到期时为0
+     */
+    public long remainingMillis() {
+        return Math.max(0L, TimeUnit.NANOSECONDS.toMillis(expiresAtNanos - System.nanoTime()));
+    }
+
+    /**
+     * @throws DeadlineExceededException 已到期或已取消
+     */
+    public void checkNotExpired() {
+        if (cancelled || remainingMillis() == 0L) {
+            throw new DeadlineExceededException("请求已超过处理时限");
+        }
+    }
+
+    /**
+     * 登记执行中的语句，已取消时立即取消该语句
+     * @param statement 语句
+     */
+    void register(Statement statement) {
+        statements.add(statement);
+        if (cancelled) {
+            cancel(statement);
+        }
+    }
+
+    void unregister(Statement statement) {
+        statements.remove(statement);
+    }
+
+    /**
+     * 取消全部执行中的语句，之后登记的语句也会被取消
+     */
+    void cancel() {
+        cancelled = true;
+        for (Statement each : statements) {
+            cancel(each);
+        }
+    }
+
+    private void cancel(Statement statement) {
+        try {
+            statement.cancel();
+        } catch (SQLException e) {
+            log.warn("取消超时语句失败", e);
+        }
+    }
+}
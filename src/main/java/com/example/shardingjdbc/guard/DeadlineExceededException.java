@@ -0,0 +1,11 @@
+package com.example.shardingjdbc.guard;
+
+/**
+ * 请求已超过处理时限
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.shardingjdbc.guard;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 设置请求的处理时限
+ * 标注了RequestDeadline的接口按请求头或默认值创建处理时限并绑定到请求线程，到期时取消执行中的语句
+ */
+public class DeadlineHandlerInterceptor implements AsyncHandlerInterceptor {
+
+    /**
+     * 请求的处理时限（毫秒）
+     */
+    public static final String HEADER = "X-Request-Timeout-Ms";
+
+    private static final String ATTRIBUTE = DeadlineHandlerInterceptor.class.getName() + ".timer";
+
+    private final long maxMillis;
+
+    private final ScheduledThreadPoolExecutor timer;
+
+    public DeadlineHandlerInterceptor(long maxMillis) {
+        this.maxMillis = maxMillis;
+        AtomicInteger counter = new AtomicInteger();
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "deadline-timer-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 请求正常结束时取消的定时任务立即移除，不在队列中堆积
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        RequestDeadline annotation = ((HandlerMethod) handler).getMethodAnnotation(RequestDeadline.class);
+        if (annotation == null) {
+            return true;
+        }
+        Deadline deadline = new Deadline(timeoutMillis(request.getHeader(HEADER), annotation.value()));
+        Deadline.bind(deadline);
+        request.setAttribute(ATTRIBUTE, timer.schedule(deadline::cancel, deadline.remainingMillis(), TimeUnit.MILLISECONDS));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        clear(request);
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        clear(request);
+    }
+
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private void clear(HttpServletRequest request) {
+        Deadline.unbind();
+        Object scheduled = request.getAttribute(ATTRIBUTE);
+        if (scheduled instanceof ScheduledFuture) {
+            ((ScheduledFuture<?>) scheduled).cancel(false);
+            request.removeAttribute(ATTRIBUTE);
+        }
+    }
+
+    /**
+     * 请求头不合法时使用接口默认值，请求头超过上限时按上限
+     */
+    private long timeoutMillis(String header, long defaultMillis) {
+        if (header != null) {
+            try {
+                long millis = Long.parseLong(header.trim());
+                if (millis > 0) {
+                    return Math.min(millis, maxMillis);
+                }
+            } catch (NumberFormatException ignored) {
+                // 使用默认值
+            }
+        }
+        return Math.min(defaultMillis, maxMillis);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.shardingjdbc.guard;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * 把请求的剩余时间应用到语句上
+ * 创建语句时以剩余时间作为查询超时，由ShardingSphere复制到各分片上的物理语句；
+ * 执行期间把语句登记到处理时限上，到期时取消；已到期时不再执行
+ */
+@Component
+@Intercepts({
+        @Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}),
+        @Signature(type = StatementHandler.class, method = "query", args = {Statement.class, ResultHandler.class}),
+        @Signature(type = StatementHandler.class, method = "update", args = {Statement.class}),
+        @Signature(type = StatementHandler.class, method = "batch", args = {Statement.class})
+})
+public class DeadlineStatementInterceptor implements Interceptor {
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Deadline deadline = Deadline.current();
+        if (deadline == null) {
+            return invocation.proceed();
+        }
+        deadline.checkNotExpired();
+        if ("prepare".equals(invocation.getMethod().getName())) {
+            // JDBC查询超时以秒为单位，向上取整，精确的时限由到期取消保证
+            int seconds = (int) Math.max(1L, (deadline.remainingMillis() + 999L) / 1000L);
+            Integer transactionTimeout = (Integer) invocation.getArgs()[1];
+            invocation.getArgs()[1] = transactionTimeout == null ? seconds : Math.min(transactionTimeout, seconds);
+            return invocation.proceed();
+        }
+        Statement statement = (Statement) invocation.getArgs()[0];
+        deadline.register(statement);
+        try {
+            return invocation.proceed();
+        } finally {
+            deadline.unregister(statement);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.shardingjdbc.guard;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记接口的默认处理时限
+ * 请求头X-Request-Timeout-Ms可以改为其他时限，但不超过request-deadline.max-millis；
+ * 未标记的接口（如流式导出）不设时限
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RequestDeadline {
+
+    /**
+     * @return 默认时限（毫秒）
+     */
+    long value();
+}
@@ -0,0 +1,193 @@
+package com.example.shardingjdbc.guard;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个物理数据源的隔离舱和熔断器
+ * 隔离舱限制同时执行的语句数；熔断器在连续失败或慢语句达到阈值后打开，打开期间直接拒绝，
+ * 到期后只放行一条试探语句，成功则关闭，失败则重新打开；
+ * 语句执行钩子持有的名额有最长期限，钩子没有收到结束回调时，到期后由之后获取名额的语句收回
+ */
+public class ShardGuard {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String dataSourceName;
+
+    private final ShardGuardProperties properties;
+
+    private final Semaphore permits;
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private final LongAdder shortCircuitedCount = new LongAdder();
+
+    private final LongAdder expiredLeaseCount = new LongAdder();
+
+    private final Set<Lease> leases = ConcurrentHashMap.newKeySet();
+
+    private State state = State.CLOSED;
+
+    private int consecutiveFailures;
+
+    private long openedAtMillis;
+
+    public ShardGuard(String dataSourceName, ShardGuardProperties properties) {
+        this.dataSourceName = dataSourceName;
+        this.properties = properties;
+        this.permits = new Semaphore(properties.getMaxConcurrentStatements());
+    }
+
+    /**
+     * 执行语句前调用，获取执行名额
+     * @throws ShardUnavailableException 熔断器打开或并发已满
+     */
+    public void acquire() {
+        reclaimExpiredLeases();
+        if (!allowByBreaker()) {
+            shortCircuitedCount.increment();
+            throw new ShardUnavailableException(dataSourceName, "数据源" + dataSourceName + "已熔断，暂不可用");
+        }
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(properties.getMaxWaitMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            releaseTrial();
+            rejectedCount.increment();
+            throw new ShardUnavailableException(dataSourceName, "数据源" + dataSourceName + "并发语句已满，暂不可用");
+        }
+    }
+
+    /**
+     * 获取有期限的执行名额，用于无法保证结束回调的语句执行钩子
+     * @return 名额，结束时通过release(Lease, boolean, long)归还
+     * @throws ShardUnavailableException 熔断器打开或并发已满
+     */
+    public Lease lease() {
+        acquire();
+        Lease result = new Lease(System.nanoTime());
+        leases.add(result);
+        return result;
+    }
+
+    /**
+     * 归还有期限的执行名额并记录结果，名额已到期被收回时忽略
+     * @param lease 名额
+     * @param success 数据源是否正常响应
+     * @param elapsedMillis 执行耗时（毫秒）
+     */
+    public void release(Lease lease, boolean success, long elapsedMillis) {
+        if (leases.remove(lease)) {
+            release(success, elapsedMillis);
+        }
+    }
+
+    /**
+     * 语句执行结束后调用，归还名额并记录结果
+     * @param success 数据源是否正常响应，主键冲突等业务错误也算正常响应
+     * @param elapsedMillis 执行耗时（毫秒）
+     */
+    public void release(boolean success, long elapsedMillis) {
+        permits.release();
+        if (success && elapsedMillis <= properties.getSlowStatementMillis()) {
+            onSuccess();
+        } else {
+            onFailure();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        synchronized (this) {
+            result.put("state", state.name());
+            result.put("consecutiveFailures", consecutiveFailures);
+        }
+        result.put("activeStatements", properties.getMaxConcurrentStatements() - permits.availablePermits());
+        result.put("rejectedCount", rejectedCount.sum());
+        result.put("shortCircuitedCount", shortCircuitedCount.sum());
+        result.put("expiredLeaseCount", expiredLeaseCount.sum());
+        return result;
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private synchronized boolean allowByBreaker() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN && System.currentTimeMillis() - openedAtMillis >= properties.getOpenMillis()) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        // 半开状态已有试探语句在执行
+        return false;
+    }
+
+    /**
+     * 收回超过期限的名额，按失败计入熔断：持有者已因异常退出而没有归还，或语句执行时间超过期限
+     */
+    private void reclaimExpiredLeases() {
+        if (leases.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        long leaseNanos = TimeUnit.MILLISECONDS.toNanos(properties.getLeaseMillis());
+        for (Lease each : leases) {
+            if (now - each.acquiredAtNanos >= leaseNanos && leases.remove(each)) {
+                expiredLeaseCount.increment();
+                release(false, properties.getLeaseMillis());
+            }
+        }
+    }
+
+    /**
+     * 试探语句未能执行时恢复为打开状态，等待下一次试探
+     */
+    private synchronized void releaseTrial() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+        }
+    }
+
+    private synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        // 打开前已在执行的语句成功不关闭熔断器，等待试探
+        if (state != State.OPEN) {
+            state = State.CLOSED;
+        }
+    }
+
+    private synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= properties.getFailureThreshold()) {
+            state = State.OPEN;
+            openedAtMillis = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 有期限的执行名额
+     */
+    public static final class Lease {
+
+        private final long acquiredAtNanos;
+
+        private Lease(long acquiredAtNanos) {
+            this.acquiredAtNanos = acquiredAtNanos;
+        }
+    }
+}
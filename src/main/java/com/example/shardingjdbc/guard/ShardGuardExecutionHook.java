@@ -0,0 +1,75 @@
+package com.example.shardingjdbc.guard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shardingsphere.infra.database.metadata.DataSourceMetaData;
+import org.apache.shardingsphere.infra.executor.sql.hook.SQLExecutionHook;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 语句执行钩子
+ * ShardingSphere在每个物理数据源上执行语句前后调用，每次执行创建新实例；
+ * 执行前获取该数据源的执行名额，熔断或并发已满时抛出异常，跳过该数据源上的语句；
+ * ShardingSphere只在语句抛出SQLException时回调finishFailure，其他异常不回调，因此获取的是有期限的名额
+ */
+@Slf4j
+public class ShardGuardExecutionHook implements SQLExecutionHook {
+
+    private ShardGuard guard;
+
+    private ShardGuard.Lease lease;
+
+    private long startNanos;
+
+    @Override
+    public void start(String dataSourceName, String sql, List<Object> parameters, DataSourceMetaData dataSourceMetaData,
+                      boolean isTrunkThread, Map<String, Object> shardingExecuteDataMap) {
+        ShardGuards guards = ShardGuards.getInstance();
+        if (guards == null) {
+            return;
+        }
+        ShardGuard result = guards.guardOf(dataSourceName);
+        lease = result.lease();
+        guard = result;
+        startNanos = System.nanoTime();
+    }
+
+    @Override
+    public void finishSuccess() {
+        if (guard != null) {
+            guard.release(lease, true, elapsedMillis());
+        }
+    }
+
+    @Override
+    public void finishFailure(Exception cause) {
+        if (guard != null) {
+            boolean unhealthy = isUnhealthy(cause);
+            if (unhealthy) {
+                log.warn("数据源语句执行失败，计入熔断：{}", cause.getMessage());
+            }
+            guard.release(lease, !unhealthy, elapsedMillis());
+        }
+    }
+
+    private long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1000000L;
+    }
+
+    /**
+     * 连接异常说明数据源不健康，主键冲突、语法错误等说明数据源已正常响应；
+     * 查询超时可能由调用方的处理时限引起，不直接计入，执行时间超过慢语句阈值时按慢语句计入
+     */
+    private static boolean isUnhealthy(Exception cause) {
+        if (cause instanceof SQLTransientConnectionException
+                || cause instanceof SQLNonTransientConnectionException) {
+            return true;
+        }
+        return cause instanceof SQLException && ((SQLException) cause).getSQLState() != null
+                && ((SQLException) cause).getSQLState().startsWith("08");
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.shardingjdbc.guard;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 数据源隔离与熔断配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "shard-guard")
+public class ShardGuardProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * 每个物理数据源同时执行的语句数上限，应小于连接池大小，使慢数据源不会占满连接
+     */
+    private int maxConcurrentStatements = 16;
+
+    /**
+     * 并发已满时等待空闲名额的最长时间（毫秒），0为立即失败
+     */
+    private long maxWaitMillis = 0;
+
+    /**
+     * 执行时间超过该值的语句按失败计入熔断（毫秒）
+     */
+    private long slowStatementMillis = 2000;
+
+    /**
+     * 连续失败或慢语句达到该次数后打开熔断器
+     */
+    private int failureThreshold = 5;
+
+    /**
+     * 熔断器打开的时长（毫秒），到期后放行一条试探语句
+     */
+    private long openMillis = 10000;
+
+    /**
+     * 语句执行钩子持有名额的最长时间（毫秒），应大于最长的语句执行时间；
+     * 语句抛出SQLException以外的异常时ShardingSphere不回调钩子，名额到期后收回
+     */
+    private long leaseMillis = 60000;
+}
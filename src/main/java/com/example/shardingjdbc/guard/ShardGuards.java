@@ -0,0 +1,86 @@
+package com.example.shardingjdbc.guard;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 各物理数据源的隔离舱和熔断器
+ * 语句执行钩子由ShardingSphere通过SPI创建，不经过Spring，因此通过静态实例访问
+ */
+@Component
+public class ShardGuards {
+
+    private static volatile ShardGuards instance;
+
+    private final ShardGuardProperties properties;
+
+    private final ConcurrentMap<String, ShardGuard> guards = new ConcurrentHashMap<>();
+
+    public ShardGuards(ShardGuardProperties properties) {
+        this.properties = properties;
+        instance = this;
+    }
+
+    /**
+     * @return 当前实例，Spring容器未启动或未开启时返回null
+     */
+    static ShardGuards getInstance() {
+        ShardGuards result = instance;
+        return result != null && result.properties.isEnabled() ? result : null;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 获取物理数据源的隔离舱和熔断器
+     * @param dataSourceName 物理数据源名称
+     * @return 隔离舱和熔断器
+     */
+    public ShardGuard guardOf(String dataSourceName) {
+        return guards.computeIfAbsent(dataSourceName, key -> new ShardGuard(key, properties));
+    }
+
+    /**
+     * 在物理数据源的隔离舱和熔断器下执行查询
+     * 直接访问物理数据源的查询不经过语句执行钩子，通过此方法使用同一个隔离舱和熔断器；只有连接类失败计入熔断
+     * @param dataSourceName 物理数据源名称
+     * @param query 查询
+     * @return 查询结果
+     * @throws ShardUnavailableException 数据源已熔断或并发已满
+     */
+    public <T> T call(String dataSourceName, Supplier<T> query) {
+        if (!isEnabled()) {
+            return query.get();
+        }
+        ShardGuard guard = guardOf(dataSourceName);
+        guard.acquire();
+        long startNanos = System.nanoTime();
+        boolean healthy = true;
+        try {
+            return query.get();
+        } catch (DataAccessResourceFailureException e) {
+            healthy = false;
+            throw e;
+        } finally {
+            guard.release(healthy, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+    }
+
+    /**
+     * @return 物理数据源名称到状态的映射
+     */
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> result = new TreeMap<>();
+        guards.forEach((name, each) -> result.put(name, each.stats()));
+        return result;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.shardingjdbc.guard;
+
+import lombok.Getter;
+
+/**
+ * 数据源暂不可用
+ * 数据源的并发语句已满或熔断器打开时快速失败，不等待连接和语句执行
+ */
+@Getter
+public class ShardUnavailableException extends RuntimeException {
+
+    private final String dataSourceName;
+
+    public ShardUnavailableException(String dataSourceName, String message) {
+        super(message);
+        this.dataSourceName = dataSourceName;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.shardingjdbc.keygen;
+
+import com.example.shardingjdbc.sharding.ShardingGene;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 订单ID生成器（雪花算法变体）
+ * 结构：1位符号 + 41位时间戳 + 5位工作节点 + 7位序列号 + 10位用户分片基因
+ */
+@Slf4j
+@Component
+public class OrderIdGenerator {
+
+    /**
+     * 起始时间 2024-01-01 00:00:00 UTC
+     */
+    private static final long EPOCH = 1704067200000L;
+
+    private static final int WORKER_ID_BITS = 5;
+
+    private static final int SEQUENCE_BITS = 7;
+
+    private static final long MAX_WORKER_ID = ~(-1L << WORKER_ID_BITS);
+
+    private static final long SEQUENCE_MASK = ~(-1L << SEQUENCE_BITS);
+
+    private static final int WORKER_ID_SHIFT = SEQUENCE_BITS;
+
+    private static final int TIMESTAMP_SHIFT = WORKER_ID_SHIFT + WORKER_ID_BITS;
+
+    /**
+     * 可容忍的时钟回拨毫秒数
+     */
+    private static final long MAX_BACKWARD_MILLIS = 10L;
+
+    private final long workerId;
+
+    private long lastTimestamp = -1L;
+
+    private long sequence;
+
+    public OrderIdGenerator(@Value("${id-generator.order.worker-id:0}") long workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("工作节点ID必须在0到" + MAX_WORKER_ID + "之间");
+        }
+        this.workerId = workerId;
+    }
+
+    /**
+     * 为指定用户生成订单ID
+     * @param userId 用户ID
+     * @return 携带用户分片基因的订单ID
+     */
+    public synchronized long nextId(long userId) {
+        long timestamp = System.currentTimeMillis();
+        if (timestamp < lastTimestamp) {
+            long backward = lastTimestamp - timestamp;
+            if (backward > MAX_BACKWARD_MILLIS) {
+                throw new IllegalStateException("时钟回拨" + backward + "毫秒，拒绝生成订单ID");
+            }
+            log.warn("检测到时钟回拨{}毫秒，等待时钟追上", backward);
+            timestamp = waitUntilAfter(lastTimestamp - 1);
+        }
+        if (timestamp == lastTimestamp) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0L) {
+                timestamp = waitUntilAfter(lastTimestamp);
+            }
+        } else {
+            sequence = 0L;
+        }
+        lastTimestamp = timestamp;
+        long high = ((timestamp - EPOCH) << TIMESTAMP_SHIFT) | (workerId << WORKER_ID_SHIFT) | sequence;
+        return ShardingGene.compose(high, userId);
+    }
+
+    private long waitUntilAfter(long timestamp) {
+        long current = System.currentTimeMillis();
+        while (current <= timestamp) {
+            current = System.currentTimeMillis();
+        }
+        return current;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.shardingjdbc.keygen;
+
+import com.example.shardingjdbc.entity.IdSegment;
+import com.example.shardingjdbc.mapper.IdSegmentMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 号段模式ID生成器（参考美团Leaf-segment）
+ * 每次从t_id_segment取一段ID缓存在内存中发放，当前号段消费超过10%时异步预取下一段，
+ * 正常情况下发号不产生数据库访问，也不需要跨分片协调
+ */
+@Slf4j
+@Component
+public class SegmentIdGenerator {
+
+    /**
+     * 剩余比例低于该值时触发预取
+     */
+    private static final double PREFETCH_RATIO = 0.9D;
+
+    private final IdSegmentMapper idSegmentMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "segment-id-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, SegmentBuffer> buffers = new ConcurrentHashMap<>();
+
+    public SegmentIdGenerator(IdSegmentMapper idSegmentMapper, PlatformTransactionManager transactionManager) {
+        this.idSegmentMapper = idSegmentMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // 号段分配独立提交，不受调用方事务回滚影响
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 获取下一个ID
+     * @param bizTag 业务标识
+     * @return ID
+     */
+    public long nextId(String bizTag) {
+        return buffers.computeIfAbsent(bizTag, SegmentBuffer::new).nextId();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        prefetchExecutor.shutdownNow();
+    }
+
+    private Segment loadSegment(String bizTag) {
+        IdSegment idSegment = transactionTemplate.execute(status -> {
+            if (idSegmentMapper.increaseMaxId(bizTag) == 0) {
+                throw new IllegalStateException("号段不存在，业务标识：" + bizTag);
+            }
+            return idSegmentMapper.selectByBizTag(bizTag);
+        });
+        long end = idSegment.getMaxId() + 1;
+        long start = end - idSegment.getStep();
+        log.info("加载ID号段，业务标识：{}，区间：[{}, {})", bizTag, start, end);
+        return new Segment(start, end);
+    }
+
+    /**
+     * 单个号段，区间为[start, end)
+     */
+    private static final class Segment {
+
+        private final long end;
+
+        private final long size;
+
+        private long cursor;
+
+        private Segment(long start, long end) {
+            this.end = end;
+            this.size = end - start;
+            this.cursor = start;
+        }
+
+        private boolean isExhausted() {
+            return cursor >= end;
+        }
+
+        private boolean shouldPrefetch() {
+            return end - cursor < size * PREFETCH_RATIO;
+        }
+    }
+
+    /**
+     * 双号段缓冲
+     */
+    private final class SegmentBuffer {
+
+        private final String bizTag;
+
+        private Segment current;
+
+        private CompletableFuture<Segment> next;
+
+        private SegmentBuffer(String bizTag) {
+            this.bizTag = bizTag;
+        }
+
+        private synchronized long nextId() {
+            if (current == null || current.isExhausted()) {
+                current = takeNext();
+            }
+            long id = current.cursor++;
+            if (next == null && current.shouldPrefetch()) {
+                next = CompletableFuture.supplyAsync(() -> loadSegment(bizTag), prefetchExecutor);
+            }
+            return id;
+        }
+
+        private Segment takeNext() {
+            CompletableFuture<Segment> prefetched = next;
+            next = null;
+            if (prefetched != null) {
+                try {
+                    return prefetched.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("等待ID号段预取被中断，业务标识：" + bizTag, e);
+                } catch (ExecutionException e) {
+                    log.warn("异步预取ID号段失败，改为同步加载，业务标识：{}", bizTag, e.getCause());
+                }
+            }
+            return loadSegment(bizTag);
+        }
+    }
+}
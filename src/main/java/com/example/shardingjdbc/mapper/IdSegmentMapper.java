@@ -0,0 +1,26 @@
+package com.example.shardingjdbc.mapper;
+
+import com.example.shardingjdbc.entity.IdSegment;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * ID号段Mapper接口
+ */
+@Mapper
+public interface IdSegmentMapper {
+    
+    /**
+     * 按步长推进高水位
+     * @param bizTag 业务标识
+     * @return 影响行数
+     */
+    int increaseMaxId(@Param("bizTag") String bizTag);
+    
+    /**
+     * 根据业务标识查询号段
+     * @param bizTag 业务标识
+     * @return 号段信息
+     */
+    IdSegment selectByBizTag(@Param("bizTag") String bizTag);
+}
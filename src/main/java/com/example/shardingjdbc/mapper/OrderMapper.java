@@ -4,7 +4,10 @@ import com.example.shardingjdbc.entity.Order;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 订单Mapper接口
@@ -19,6 +22,13 @@ public interface OrderMapper {
      */
     int insert(Order order);
     
+    /**
+     * 批量插入订单，一条多行INSERT语句
+     * @param orders 订单列表
+     * @return 影响行数
+     */
+    int insertBatch(@Param("orders") List<Order> orders);
+    
     /**
      * 根据订单ID查询订单
      * @param orderId 订单ID
@@ -26,6 +36,13 @@ public interface OrderMapper {
      */
     Order selectById(@Param("orderId") Long orderId);
     
+    /**
+     * 根据订单ID列表查询订单，调用方需保证同一批订单位于同一数据节点
+     * @param orderIds 订单ID集合
+     * @return 存在的订单，顺序不确定
+     */
+    List<Order> selectByIds(@Param("orderIds") Collection<Long> orderIds);
+    
     /**
      * 根据用户ID查询订单列表
      * @param userId 用户ID
@@ -68,6 +85,34 @@ public interface OrderMapper {
      */
     List<Order> selectByPage(@Param("offset") int offset, @Param("limit") int limit);
     
+    /**
+     * 按游标分页查询订单，按(create_time, order_id)倒序
+     * @param createTime 上一页最后一条订单的创建时间，为null时查询第一页
+     * @param orderId 上一页最后一条订单的订单ID
+     * @param limit 限制数量
+     * @return 订单列表
+     */
+    List<Order> selectByCursor(@Param("createTime") LocalDateTime createTime,
+                               @Param("orderId") Long orderId,
+                               @Param("limit") int limit);
+    
+    /**
+     * 查询订单的状态和版本
+     * @param orderIds 订单ID集合
+     * @return 只包含订单ID、状态和版本的订单
+     */
+    List<Order> selectStatuses(@Param("orderIds") Collection<Long> orderIds);
+    
+    /**
+     * 按版本批量更新订单状态，已完成、已取消的订单不更新
+     * @param versions 订单ID到读取时版本的映射
+     * @param status 目标状态
+     * @param updateTime 更新时间
+     * @return 影响行数
+     */
+    int updateStatusBatch(@Param("versions") Map<Long, Integer> versions, @Param("status") Integer status,
+                          @Param("updateTime") LocalDateTime updateTime);
+    
     /**
      * 查询订单总数
      * @return 订单总数
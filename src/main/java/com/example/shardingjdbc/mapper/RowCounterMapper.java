@@ -0,0 +1,118 @@
+package com.example.shardingjdbc.mapper;
+
+import com.example.shardingjdbc.dto.UserOrderCount;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 行数计数器Mapper接口
+ * 槽位计数表t_shard_counter按槽位分库，用户订单计数表t_user_order_counter按user_id分库，
+ * 计数行与被计数的数据位于同一分库，可以和业务写入在同一个本地事务中更新
+ */
+@Mapper
+public interface RowCounterMapper {
+
+    /**
+     * 增减槽位计数，计数行不存在时创建
+     * @param tableName 逻辑表名
+     * @param slot 槽位
+     * @param delta 增量
+     * @return 影响行数
+     */
+    int incrementSlot(@Param("tableName") String tableName, @Param("slot") int slot, @Param("delta") long delta);
+
+    /**
+     * 增减用户订单计数，计数行不存在时创建
+     * @param userId 用户ID
+     * @param slot 用户所在槽位
+     * @param delta 增量
+     * @return 影响行数
+     */
+    int incrementUserOrders(@Param("userId") Long userId, @Param("slot") int slot, @Param("delta") long delta);
+
+    /**
+     * 汇总逻辑表在全部槽位上的计数
+     * @param tableName 逻辑表名
+     * @return 总行数，没有计数行时为null
+     */
+    Long sumSlots(@Param("tableName") String tableName);
+
+    /**
+     * 查询逻辑表在当前库各槽位上的计数
+     * @param tableName 逻辑表名
+     * @return 槽位（slot）到计数（row_count）的行
+     */
+    List<Map<String, Object>> selectSlotCounts(@Param("tableName") String tableName);
+
+    /**
+     * 查询用户订单计数
+     * @param userId 用户ID
+     * @return 订单数，没有计数行时为null
+     */
+    Long selectUserOrderCount(@Param("userId") Long userId);
+
+    /**
+     * 批量查询用户订单计数
+     * @param userIds 用户ID集合
+     * @return 用户订单计数，没有计数行的用户不返回
+     */
+    List<UserOrderCount> selectUserOrderCounts(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * 批量统计用户的实际订单数
+     * @param userIds 用户ID集合
+     * @return 用户实际订单数，没有订单的用户不返回
+     */
+    List<UserOrderCount> countOrdersByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * 锁定槽位计数行，阻塞并发的计数更新直到当前事务结束
+     * @param tableName 逻辑表名
+     * @param slot 槽位
+     * @return 当前计数，没有计数行时为null
+     */
+    Long lockSlot(@Param("tableName") String tableName, @Param("slot") int slot);
+
+    /**
+     * 锁定用户订单计数行
+     * @param userId 用户ID
+     * @return 当前计数，没有计数行时为null
+     */
+    Long lockUserOrders(@Param("userId") Long userId);
+
+    /**
+     * 覆盖槽位计数
+     * @param tableName 逻辑表名
+     * @param slot 槽位
+     * @param rowCount 行数
+     * @return 影响行数
+     */
+    int saveSlot(@Param("tableName") String tableName, @Param("slot") int slot, @Param("rowCount") long rowCount);
+
+    /**
+     * 覆盖用户订单计数
+     * @param userId 用户ID
+     * @param slot 用户所在槽位
+     * @param orderCount 订单数
+     * @return 影响行数
+     */
+    int saveUserOrders(@Param("userId") Long userId, @Param("slot") int slot, @Param("orderCount") long orderCount);
+
+    /**
+     * 汇总槽位内全部用户的订单计数
+     * @param slot 槽位
+     * @return 订单数，没有计数行时为null
+     */
+    Long sumUserOrdersBySlot(@Param("slot") int slot);
+
+    /**
+     * 统计槽位内的实际用户数
+     * @param slot 槽位
+     * @return 用户数
+     */
+    long countUsersBySlot(@Param("slot") int slot);
+}
@@ -4,6 +4,7 @@ import com.example.shardingjdbc.entity.User;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -26,6 +27,13 @@ public interface UserMapper {
      */
     User selectById(@Param("userId") Long userId);
     
+    /**
+     * 根据用户ID列表查询用户，调用方需保证同一批用户位于同一数据节点
+     * @param userIds 用户ID集合
+     * @return 存在的用户，顺序不确定
+     */
+    List<User> selectByIds(@Param("userIds") Collection<Long> userIds);
+    
     /**
      * 根据用户名查询用户
      * @param username 用户名
@@ -46,6 +54,14 @@ public interface UserMapper {
      */
     int update(User user);
     
+    /**
+     * 用户名仍为读到的旧值时更新用户信息
+     * @param user 用户信息
+     * @param expectedUsername 读到的旧用户名
+     * @return 影响行数，用户名已被并发修改时为0
+     */
+    int updateIfUsername(@Param("user") User user, @Param("expectedUsername") String expectedUsername);
+    
     /**
      * 根据用户ID删除用户
      * @param userId 用户ID
@@ -0,0 +1,34 @@
+package com.example.shardingjdbc.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 用户名全局索引Mapper接口
+ * 索引表按username哈希分片，用于按用户名定位user_id并保证用户名全局唯一
+ */
+@Mapper
+public interface UsernameIndexMapper {
+    
+    /**
+     * 插入用户名索引
+     * @param username 用户名
+     * @param userId 用户ID
+     * @return 影响行数
+     */
+    int insert(@Param("username") String username, @Param("userId") Long userId);
+    
+    /**
+     * 根据用户名查询用户ID
+     * @param username 用户名
+     * @return 用户ID
+     */
+    Long selectUserIdByUsername(@Param("username") String username);
+    
+    /**
+     * 根据用户名删除索引
+     * @param username 用户名
+     * @return 影响行数
+     */
+    int deleteByUsername(@Param("username") String username);
+}
@@ -0,0 +1,148 @@
+package com.example.shardingjdbc.resharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shardingsphere.infra.datanode.DataNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按原布局物理表并行执行的扩容任务
+ * 每个物理表由一个线程按主键顺序分批处理，同一时间只允许运行一次
+ */
+@Slf4j
+public abstract class AbstractReshardingJob {
+
+    protected final SourceLayout sourceLayout;
+
+    protected final TargetLayout targetLayout;
+
+    protected final ReshardingMetrics metrics;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile boolean cancelled;
+
+    private volatile boolean completed;
+
+    private final AtomicInteger failedNodes = new AtomicInteger();
+
+    protected AbstractReshardingJob(SourceLayout sourceLayout, TargetLayout targetLayout, ReshardingMetrics metrics) {
+        this.sourceLayout = sourceLayout;
+        this.targetLayout = targetLayout;
+        this.metrics = metrics;
+    }
+
+    /**
+     * 异步启动任务
+     */
+    public void start() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException(getName() + "任务正在执行");
+        }
+        List<ReshardingTable> tables = new ArrayList<>();
+        List<DataNode> nodes = new ArrayList<>();
+        try {
+            prepare();
+            for (ReshardingTable table : ReshardingTable.values()) {
+                for (DataNode node : sourceLayout.nodesOf(table)) {
+                    tables.add(table);
+                    nodes.add(node);
+                }
+            }
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        cancelled = false;
+        completed = false;
+        failedNodes.set(0);
+        ExecutorService executor = newExecutor(getParallelism());
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[nodes.size()];
+        for (int i = 0; i < futures.length; i++) {
+            ReshardingTable table = tables.get(i);
+            DataNode node = nodes.get(i);
+            futures[i] = CompletableFuture.runAsync(() -> processNode(table, node), executor);
+        }
+        log.info("{}任务启动，物理表数量：{}", getName(), nodes.size());
+        CompletableFuture.allOf(futures).whenComplete((result, cause) -> {
+            executor.shutdown();
+            completed = cause == null && !cancelled && failedNodes.get() == 0;
+            running.set(false);
+            log.info("{}任务结束，是否取消：{}", getName(), cancelled);
+        });
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * @return 最近一次任务是否处理完全部物理表，且没有被取消、没有失败的物理表
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * 作废最近一次任务的结果，重新开启双写后之前的回填和校验不再有效
+     */
+    public void clearCompleted() {
+        completed = false;
+    }
+
+    protected boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 任务启动前的准备
+     */
+    protected void prepare() {
+    }
+
+    protected abstract String getName();
+
+    protected abstract int getParallelism();
+
+    /**
+     * 处理单个物理表
+     * @param table 逻辑表
+     * @param node 原布局中的物理表
+     * @param progress 进度
+     */
+    protected abstract void process(ReshardingTable table, DataNode node, ReshardingMetrics.Progress progress);
+
+    protected abstract ReshardingMetrics.Progress startProgress(DataNode node, long totalRows);
+
+    private void processNode(ReshardingTable table, DataNode node) {
+        Long totalRows = sourceLayout.jdbcTemplate(node).queryForObject(table.countSql(node.getTableName()), Long.class);
+        ReshardingMetrics.Progress progress = startProgress(node, totalRows == null ? 0L : totalRows);
+        try {
+            process(table, node, progress);
+            progress.finish(cancelled ? ReshardingMetrics.State.CANCELLED : ReshardingMetrics.State.DONE);
+        } catch (RuntimeException e) {
+            failedNodes.incrementAndGet();
+            progress.finish(ReshardingMetrics.State.FAILED);
+            log.error("{}任务处理物理表失败：{}.{}", getName(), node.getDataSourceName(), node.getTableName(), e);
+        }
+    }
+
+    private ExecutorService newExecutor(int parallelism) {
+        AtomicInteger sequence = new AtomicInteger();
+        return Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "resharding-" + getClass().getSimpleName() + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
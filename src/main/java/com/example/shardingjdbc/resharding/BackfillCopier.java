@@ -0,0 +1,67 @@
+package com.example.shardingjdbc.resharding;
+
+import com.google.common.util.concurrent.RateLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shardingsphere.infra.datanode.DataNode;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 历史数据回填
+ * 每个原物理表一个线程，按主键分批读取并写入新布局，所有线程共享一个全局限速器；
+ * 写入使用INSERT IGNORE，已由双写写入的较新数据不会被覆盖；
+ * 因此重新回填不会修正新布局中已存在但不一致的行，这类行由带修复的分块校验处理
+ */
+@Slf4j
+@Component
+public class BackfillCopier extends AbstractReshardingJob {
+
+    private final ReshardingProperties.Backfill config;
+
+    private volatile RateLimiter rateLimiter;
+
+    public BackfillCopier(SourceLayout sourceLayout, TargetLayout targetLayout, ReshardingMetrics metrics,
+                          ReshardingProperties properties) {
+        super(sourceLayout, targetLayout, metrics);
+        this.config = properties.getBackfill();
+    }
+
+    @Override
+    protected void prepare() {
+        rateLimiter = RateLimiter.create(config.getRowsPerSecond());
+    }
+
+    @Override
+    protected String getName() {
+        return "数据回填";
+    }
+
+    @Override
+    protected int getParallelism() {
+        return config.getParallelism();
+    }
+
+    @Override
+    protected ReshardingMetrics.Progress startProgress(DataNode node, long totalRows) {
+        return metrics.startBackfill(node, totalRows);
+    }
+
+    @Override
+    protected void process(ReshardingTable table, DataNode node, ReshardingMetrics.Progress progress) {
+        JdbcTemplate source = sourceLayout.jdbcTemplate(node);
+        String sql = table.selectBatchSql(node.getTableName());
+        long lastKey = Long.MIN_VALUE;
+        while (!isCancelled()) {
+            List<Object[]> rows = source.query(sql, table::readRow, lastKey, config.getBatchSize());
+            if (rows.isEmpty()) {
+                return;
+            }
+            rateLimiter.acquire(rows.size());
+            targetLayout.insertIgnore(table, rows);
+            lastKey = table.keyOf(rows.get(rows.size() - 1));
+            progress.advance(rows.size(), lastKey);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.shardingjdbc.resharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shardingsphere.infra.datanode.DataNode;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * 分块校验
+ * 按主键顺序把原物理表切成固定大小的数据块，数据块对应一个主键区间；分别计算原布局中该区间的行，
+ * 与新布局中同一主键区间内、按原布局规则属于该物理表的行的CRC32校验和，两边多出的行都会被发现。
+ * 不一致的数据块记录到扩容指标中；开启修复时按原布局覆盖新布局中不一致的行、删除只存在于新布局的行，
+ * 修复后重新比较，一致的计为已修复
+ */
+@Slf4j
+@Component
+public class ChecksumVerifier extends AbstractReshardingJob {
+
+    private static final byte FIELD_SEPARATOR = 0x1F;
+
+    private final ReshardingProperties.Verify config;
+
+    private volatile boolean requestedRepair;
+
+    private volatile boolean repair;
+
+    public ChecksumVerifier(SourceLayout sourceLayout, TargetLayout targetLayout, ReshardingMetrics metrics,
+                            ReshardingProperties properties) {
+        super(sourceLayout, targetLayout, metrics);
+        this.config = properties.getVerify();
+    }
+
+    /**
+     * 异步启动校验
+     * @param repair 是否修复不一致的数据块
+     */
+    public synchronized void start(boolean repair) {
+        this.requestedRepair = repair;
+        start();
+    }
+
+    public boolean isRepair() {
+        return repair;
+    }
+
+    @Override
+    protected void prepare() {
+        // 只在任务实际启动时生效，任务执行中再次启动不会改变正在执行的任务
+        repair = requestedRepair;
+        metrics.resetVerify();
+    }
+
+    @Override
+    protected String getName() {
+        return "分块校验";
+    }
+
+    @Override
+    protected int getParallelism() {
+        return config.getParallelism();
+    }
+
+    @Override
+    protected ReshardingMetrics.Progress startProgress(DataNode node, long totalRows) {
+        return metrics.startVerify(node, totalRows);
+    }
+
+    @Override
+    protected void process(ReshardingTable table, DataNode node, ReshardingMetrics.Progress progress) {
+        JdbcTemplate source = sourceLayout.jdbcTemplate(node);
+        String sql = table.selectBatchSql(node.getTableName());
+        long fromKey = Long.MIN_VALUE;
+        while (!isCancelled()) {
+            List<Object[]> sourceRows = source.query(sql, table::readRow, fromKey, config.getChunkSize());
+            // 原物理表已读完时，最后一个区间延伸到主键最大值，检查新布局中多出的行
+            long toKey = sourceRows.isEmpty() ? Long.MAX_VALUE : table.keyOf(sourceRows.get(sourceRows.size() - 1));
+            verifyChunk(table, node, fromKey, toKey, sourceRows);
+            if (sourceRows.isEmpty()) {
+                return;
+            }
+            progress.advance(sourceRows.size(), toKey);
+            fromKey = toKey;
+        }
+    }
+
+    private void verifyChunk(ReshardingTable table, DataNode node, long fromKey, long toKey, List<Object[]> sourceRows) {
+        List<Object[]> targetRows = targetRowsOf(table, node, fromKey, toKey);
+        if (checksum(sourceRows) == checksum(targetRows)) {
+            return;
+        }
+        long firstKey = Math.min(firstKeyOf(table, sourceRows), firstKeyOf(table, targetRows));
+        long lastKey = Math.max(lastKeyOf(table, sourceRows), lastKeyOf(table, targetRows));
+        if (repair) {
+            repairChunk(table, node, sourceRows, targetRows);
+            List<Object[]> currentRows = sourceLayout.jdbcTemplate(node)
+                    .query(table.selectRangeSql(node.getTableName()), table::readRow, fromKey, toKey, Integer.MAX_VALUE);
+            if (checksum(currentRows) == checksum(targetRowsOf(table, node, fromKey, toKey))) {
+                log.info("数据块已修复，物理表：{}.{}，主键区间：[{}, {}]", node.getDataSourceName(), node.getTableName(), firstKey, lastKey);
+                metrics.recordRepair(node, firstKey, lastKey);
+                return;
+            }
+        }
+        log.warn("数据块校验不一致，物理表：{}.{}，主键区间：[{}, {}]", node.getDataSourceName(), node.getTableName(), firstKey, lastKey);
+        metrics.recordMismatch(node, firstKey, lastKey);
+    }
+
+    /**
+     * 新布局中主键在区间内、按原布局规则属于该物理表的行，按主键排序
+     */
+    private List<Object[]> targetRowsOf(ReshardingTable table, DataNode node, long fromKey, long toKey) {
+        List<Object[]> result = targetLayout.selectRange(table, fromKey, toKey, config.getChunkSize(),
+                key -> node.equals(sourceLayout.nodeOf(table, key)));
+        result.sort(Comparator.comparingLong(table::keyOf));
+        return result;
+    }
+
+    /**
+     * 按原布局修复数据块：不一致或缺失的行按版本覆盖写入，只存在于新布局的行在原布局中确认不存在后删除
+     * 按版本覆盖不会用校验时读到的旧行覆盖校验期间双写的新行
+     */
+    private void repairChunk(ReshardingTable table, DataNode node, List<Object[]> sourceRows, List<Object[]> targetRows) {
+        Map<Long, Object[]> targetByKey = new LinkedHashMap<>();
+        for (Object[] each : targetRows) {
+            targetByKey.put(table.keyOf(each), each);
+        }
+        for (Object[] each : sourceRows) {
+            Object[] target = targetByKey.remove(table.keyOf(each));
+            if (target == null || checksum(Collections.singletonList(each)) != checksum(Collections.singletonList(target))) {
+                targetLayout.upsert(table, each);
+            }
+        }
+        if (targetByKey.isEmpty()) {
+            return;
+        }
+        // 删除前重新查询原布局，跳过校验期间新写入原布局的行
+        Set<Long> existing = new HashSet<>();
+        NamedParameterJdbcTemplate source = new NamedParameterJdbcTemplate(sourceLayout.jdbcTemplate(node));
+        for (Object[] each : source.query(table.selectByKeysSql(node.getTableName()),
+                Collections.singletonMap("keys", new ArrayList<>(targetByKey.keySet())), table::readRow)) {
+            existing.add(table.keyOf(each));
+        }
+        for (Long each : targetByKey.keySet()) {
+            if (!existing.contains(each)) {
+                targetLayout.delete(table, each);
+            }
+        }
+    }
+
+    private long firstKeyOf(ReshardingTable table, List<Object[]> rows) {
+        return rows.isEmpty() ? Long.MAX_VALUE : table.keyOf(rows.get(0));
+    }
+
+    private long lastKeyOf(ReshardingTable table, List<Object[]> rows) {
+        return rows.isEmpty() ? Long.MIN_VALUE : table.keyOf(rows.get(rows.size() - 1));
+    }
+
+    private long checksum(List<Object[]> rows) {
+        CRC32 crc32 = new CRC32();
+        for (Object[] row : rows) {
+            for (Object each : row) {
+                crc32.update(String.valueOf(each).getBytes(StandardCharsets.UTF_8));
+                crc32.update(FIELD_SEPARATOR);
+            }
+        }
+        return crc32.getValue();
+    }
+}
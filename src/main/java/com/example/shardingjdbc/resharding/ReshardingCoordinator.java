@@ -0,0 +1,252 @@
+package com.example.shardingjdbc.resharding;
+
+import com.example.shardingjdbc.entity.Order;
+import com.example.shardingjdbc.entity.User;
+import com.example.shardingjdbc.routing.PrimaryRoute;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 在线扩容协调器
+ * 流程：开启双写 → 回填历史数据 → 分块校验 → 读切换；
+ * 双写在业务事务提交后执行，失败只记录指标不影响业务写入，遗漏的数据由回填和校验兜底
+ */
+@Slf4j
+@Service
+public class ReshardingCoordinator {
+
+    private final AtomicReference<ReshardingPhase> phase;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TargetLayout targetLayout;
+
+    private final BackfillCopier backfillCopier;
+
+    private final ChecksumVerifier checksumVerifier;
+
+    private final ReshardingMetrics metrics;
+
+    public ReshardingCoordinator(DataSource dataSource, ReshardingProperties properties, TargetLayout targetLayout,
+                                 BackfillCopier backfillCopier, ChecksumVerifier checksumVerifier, ReshardingMetrics metrics) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.targetLayout = targetLayout;
+        this.backfillCopier = backfillCopier;
+        this.checksumVerifier = checksumVerifier;
+        this.metrics = metrics;
+        // 启动时按配置直接进入对应阶段，用于在扩容过程中重启应用
+        ReshardingPhase initial = properties.getPhase();
+        checkTargetLayout(initial);
+        if (initial.isReadSwitched()) {
+            log.warn("按配置以读切换阶段启动，回填和校验结果不做检查");
+        }
+        this.phase = new AtomicReference<>(initial);
+    }
+
+    public ReshardingPhase getPhase() {
+        return phase.get();
+    }
+
+    /**
+     * 切换扩容阶段，只能逐级前进或回退
+     * 进入读切换前要求最近一次回填完整执行、最近一次校验完整执行且没有不一致的数据块，并且校验开始后没有双写失败；
+     * 从未扩容重新开启双写时，之前的回填和校验结果作废
+     * @param target 目标阶段
+     */
+    public synchronized void switchPhase(ReshardingPhase target) {
+        ReshardingPhase current = phase.get();
+        if (current == target) {
+            return;
+        }
+        if (!current.canSwitchTo(target)) {
+            throw new IllegalStateException("扩容阶段只能逐级切换，不能从" + current + "直接切换到" + target);
+        }
+        checkTargetLayout(target);
+        if (target.isReadSwitched()) {
+            checkReadSwitch();
+        }
+        if (current == ReshardingPhase.NONE) {
+            backfillCopier.clearCompleted();
+            checksumVerifier.clearCompleted();
+        } else if (target == ReshardingPhase.NONE) {
+            cancelJobs();
+        }
+        phase.set(target);
+        log.info("扩容阶段切换：{} → {}", current, target);
+    }
+
+    public boolean isReadSwitched() {
+        return phase.get().isReadSwitched();
+    }
+
+    /**
+     * 行写入原布局后调用，双写阶段在事务提交后把整行同步到新布局
+     * 提交后从主库重新读取当前行而不是同步事务内读到的行：两个事务的提交顺序与同步顺序不一致时，
+     * 后执行的同步写入的仍是最新数据；新布局按版本列条件覆盖，先读后写之间被更新的行也不会被旧数据覆盖
+     * @param table 逻辑表
+     * @param key 主键
+     */
+    public void afterSaved(ReshardingTable table, Long key) {
+        if (phase.get().isDualWrite()) {
+            afterCommit(() -> syncRow(table, key));
+        }
+    }
+
+    /**
+     * 一批行写入原布局后调用，双写阶段在事务提交后用一次查询重新读取这些行并同步到新布局，其余同 {@link #afterSaved}
+     * @param table 逻辑表
+     * @param keys 主键
+     */
+    public void afterSavedAll(ReshardingTable table, Collection<Long> keys) {
+        if (phase.get().isDualWrite() && !keys.isEmpty()) {
+            List<Long> copied = new ArrayList<>(keys);
+            afterCommit(() -> syncRows(table, copied));
+        }
+    }
+
+    /**
+     * 行从原布局删除后调用，双写阶段在事务提交后同步删除新布局中的行
+     * @param table 逻辑表
+     * @param key 主键
+     */
+    public void afterDeleted(ReshardingTable table, Long key) {
+        if (phase.get().isDualWrite()) {
+            afterCommit(() -> targetLayout.delete(table, key));
+        }
+    }
+
+    public User findUser(Long userId) {
+        return targetLayout.selectByKey(ReshardingTable.USER, userId, new BeanPropertyRowMapper<>(User.class));
+    }
+
+    public Order findOrder(Long orderId) {
+        return targetLayout.selectByKey(ReshardingTable.ORDER, orderId, new BeanPropertyRowMapper<>(Order.class));
+    }
+
+    public void startBackfill() {
+        checkDualWrite();
+        backfillCopier.start();
+    }
+
+    /**
+     * 启动分块校验
+     * @param repair 是否按原布局修复不一致的数据块
+     */
+    public void startVerify(boolean repair) {
+        checkDualWrite();
+        checksumVerifier.start(repair);
+    }
+
+    public void cancelJobs() {
+        backfillCopier.cancel();
+        checksumVerifier.cancel();
+    }
+
+    /**
+     * 扩容状态与指标
+     */
+    public Map<String, Object> status() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("phase", phase.get());
+        result.put("backfillRunning", backfillCopier.isRunning());
+        result.put("verifyRunning", checksumVerifier.isRunning());
+        result.put("verifyRepair", checksumVerifier.isRepair());
+        result.putAll(metrics.snapshot());
+        return result;
+    }
+
+    private void checkTargetLayout(ReshardingPhase target) {
+        if (target.isDualWrite() && !targetLayout.isConfigured()) {
+            throw new IllegalStateException("未配置新分片布局的数据源，无法进入" + target + "阶段");
+        }
+    }
+
+    private void checkReadSwitch() {
+        if (backfillCopier.isRunning() || checksumVerifier.isRunning()) {
+            throw new IllegalStateException("回填或校验正在执行，不能进入读切换");
+        }
+        if (!backfillCopier.isCompleted()) {
+            throw new IllegalStateException("最近一次回填未完整执行，不能进入读切换");
+        }
+        if (!checksumVerifier.isCompleted() || metrics.getMismatchedChunks() > 0) {
+            throw new IllegalStateException("最近一次校验未完整执行或存在不一致的数据块，不能进入读切换");
+        }
+        long failures = metrics.getDualWriteFailuresSinceVerify();
+        if (failures > 0) {
+            throw new IllegalStateException("最近一次校验开始后有" + failures + "次双写失败，请重新校验后再进入读切换");
+        }
+    }
+
+    private void checkDualWrite() {
+        // 未开启双写时回填，回填期间的新写入会丢失
+        if (!phase.get().isDualWrite()) {
+            throw new IllegalStateException("请先开启双写再执行回填或校验");
+        }
+    }
+
+    private void syncRow(ReshardingTable table, Long key) {
+        List<Object[]> rows = PrimaryRoute.read(() -> jdbcTemplate.query(table.selectByKeySql(table.getLogicTable()), table::readRow, key));
+        if (rows.isEmpty()) {
+            targetLayout.delete(table, key);
+        } else {
+            targetLayout.upsert(table, rows.get(0));
+        }
+    }
+
+    private void syncRows(ReshardingTable table, List<Long> keys) {
+        NamedParameterJdbcTemplate template = new NamedParameterJdbcTemplate(jdbcTemplate);
+        List<Object[]> rows = PrimaryRoute.read(() -> template.query(table.selectByKeysSql(table.getLogicTable()),
+                Collections.singletonMap("keys", keys), table::readRow));
+        Map<Long, Object[]> rowsByKey = new HashMap<>();
+        for (Object[] each : rows) {
+            rowsByKey.put(table.keyOf(each), each);
+        }
+        for (Long each : keys) {
+            Object[] row = rowsByKey.get(each);
+            if (row == null) {
+                targetLayout.delete(table, each);
+            } else {
+                targetLayout.upsert(table, row);
+            }
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            runDualWrite(action);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void afterCommit() {
+                runDualWrite(action);
+            }
+        });
+    }
+
+    private void runDualWrite(Runnable action) {
+        try {
+            action.run();
+            metrics.recordDualWrite(true);
+        } catch (RuntimeException e) {
+            metrics.recordDualWrite(false);
+            log.warn("双写新分片布局失败，等待回填或校验修复", e);
+        }
+    }
+}
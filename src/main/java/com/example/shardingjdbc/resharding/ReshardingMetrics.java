@@ -0,0 +1,200 @@
+package com.example.shardingjdbc.resharding;
+
+import org.apache.shardingsphere.infra.datanode.DataNode;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 在线扩容指标：双写计数、回填与校验的进度和吞吐
+ */
+@Component
+public class ReshardingMetrics {
+
+    /**
+     * 最多保留的不一致数据块记录数
+     */
+    private static final int MAX_MISMATCHES = 100;
+
+    private final LongAdder dualWrites = new LongAdder();
+
+    private final LongAdder dualWriteFailures = new LongAdder();
+
+    private final Map<String, Progress> backfillProgress = new ConcurrentSkipListMap<>();
+
+    private final Map<String, Progress> verifyProgress = new ConcurrentSkipListMap<>();
+
+    private final LongAdder mismatchedChunks = new LongAdder();
+
+    private final List<String> mismatches = new ArrayList<>();
+
+    private final LongAdder repairedChunks = new LongAdder();
+
+    private volatile long dualWriteFailuresAtVerify;
+
+    private final List<String> repairs = new ArrayList<>();
+
+    public void recordDualWrite(boolean success) {
+        (success ? dualWrites : dualWriteFailures).increment();
+    }
+
+    public Progress startBackfill(DataNode node, long totalRows) {
+        return start(backfillProgress, node, totalRows);
+    }
+
+    public Progress startVerify(DataNode node, long totalRows) {
+        return start(verifyProgress, node, totalRows);
+    }
+
+    public void resetVerify() {
+        dualWriteFailuresAtVerify = dualWriteFailures.sum();
+        verifyProgress.clear();
+        mismatchedChunks.reset();
+        repairedChunks.reset();
+        synchronized (mismatches) {
+            mismatches.clear();
+            repairs.clear();
+        }
+    }
+
+    public long getMismatchedChunks() {
+        return mismatchedChunks.sum();
+    }
+
+    /**
+     * @return 最近一次校验开始后的双写失败次数，这些写入可能发生在所在数据块校验之后
+     */
+    public long getDualWriteFailuresSinceVerify() {
+        return dualWriteFailures.sum() - dualWriteFailuresAtVerify;
+    }
+
+    public void recordMismatch(DataNode node, long firstKey, long lastKey) {
+        mismatchedChunks.increment();
+        record(mismatches, node, firstKey, lastKey);
+    }
+
+    /**
+     * 记录已修复的不一致数据块，修复后重新比较一致的不计入不一致数据块
+     */
+    public void recordRepair(DataNode node, long firstKey, long lastKey) {
+        repairedChunks.increment();
+        record(repairs, node, firstKey, lastKey);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("dualWrites", dualWrites.sum());
+        result.put("dualWriteFailures", dualWriteFailures.sum());
+        result.put("backfill", summarize(backfillProgress));
+        Map<String, Object> verify = summarize(verifyProgress);
+        verify.put("mismatchedChunks", mismatchedChunks.sum());
+        verify.put("repairedChunks", repairedChunks.sum());
+        synchronized (mismatches) {
+            verify.put("mismatches", new ArrayList<>(mismatches));
+            verify.put("repairs", new ArrayList<>(repairs));
+        }
+        result.put("verify", verify);
+        return result;
+    }
+
+    private void record(List<String> ranges, DataNode node, long firstKey, long lastKey) {
+        synchronized (mismatches) {
+            if (ranges.size() < MAX_MISMATCHES) {
+                ranges.add(nameOf(node) + "[" + firstKey + ", " + lastKey + "]");
+            }
+        }
+    }
+
+    private Progress start(Map<String, Progress> progressMap, DataNode node, long totalRows) {
+        Progress result = new Progress(totalRows);
+        progressMap.put(nameOf(node), result);
+        return result;
+    }
+
+    private String nameOf(DataNode node) {
+        return node.getDataSourceName() + "." + node.getTableName();
+    }
+
+    private Map<String, Object> summarize(Map<String, Progress> progressMap) {
+        long totalRows = 0L;
+        long processedRows = 0L;
+        double rowsPerSecond = 0D;
+        Map<String, Object> tables = new LinkedHashMap<>();
+        for (Map.Entry<String, Progress> entry : progressMap.entrySet()) {
+            Progress progress = entry.getValue();
+            totalRows += progress.totalRows;
+            processedRows += progress.processedRows.get();
+            if (progress.state == State.RUNNING) {
+                rowsPerSecond += progress.rowsPerSecond();
+            }
+            tables.put(entry.getKey(), progress.toMap());
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("totalRows", totalRows);
+        result.put("processedRows", processedRows);
+        result.put("percent", totalRows == 0L ? 100D : Math.min(100D, processedRows * 100D / totalRows));
+        result.put("rowsPerSecond", rowsPerSecond);
+        result.put("tables", tables);
+        return result;
+    }
+
+    /**
+     * 任务状态
+     */
+    public enum State {
+        RUNNING, DONE, CANCELLED, FAILED
+    }
+
+    /**
+     * 单个物理表的处理进度
+     */
+    public static final class Progress {
+
+        private final long totalRows;
+
+        private final long startMillis = System.currentTimeMillis();
+
+        private final AtomicLong processedRows = new AtomicLong();
+
+        private volatile long lastKey = Long.MIN_VALUE;
+
+        private volatile long endMillis;
+
+        private volatile State state = State.RUNNING;
+
+        private Progress(long totalRows) {
+            this.totalRows = totalRows;
+        }
+
+        public void advance(int rows, long lastKey) {
+            processedRows.addAndGet(rows);
+            this.lastKey = lastKey;
+        }
+
+        public void finish(State state) {
+            this.state = state;
+            this.endMillis = System.currentTimeMillis();
+        }
+
+        private double rowsPerSecond() {
+            long elapsed = (state == State.RUNNING ? System.currentTimeMillis() : endMillis) - startMillis;
+            return elapsed <= 0L ? 0D : processedRows.get() * 1000D / elapsed;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("state", state);
+            result.put("totalRows", totalRows);
+            result.put("processedRows", processedRows.get());
+            result.put("lastKey", lastKey == Long.MIN_VALUE ? null : lastKey);
+            result.put("rowsPerSecond", rowsPerSecond());
+            return result;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.shardingjdbc.resharding;
+
+/**
+ * 在线扩容阶段
+ */
+public enum ReshardingPhase {
+
+    /**
+     * 未扩容，只读写原分片布局
+     */
+    NONE,
+
+    /**
+     * 双写：写原布局的同时同步写新布局，读仍走原布局；回填与校验在该阶段执行
+     */
+    DUAL_WRITE,
+
+    /**
+     * 读切换：继续双写，按主键的读请求改走新布局
+     */
+    READ_SWITCH;
+
+    public boolean isDualWrite() {
+        return this != NONE;
+    }
+
+    public boolean isReadSwitched() {
+        return this == READ_SWITCH;
+    }
+
+    /**
+     * 阶段只能逐级前进或回退：NONE ⇄ DUAL_WRITE ⇄ READ_SWITCH
+     * @param target 目标阶段
+     * @return 能否切换
+     */
+    public boolean canSwitchTo(ReshardingPhase target) {
+        return Math.abs(target.ordinal() - ordinal()) <= 1;
+    }
+}
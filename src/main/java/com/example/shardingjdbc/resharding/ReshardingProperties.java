@@ -0,0 +1,116 @@
+package com.example.shardingjdbc.resharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 在线扩容配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "resharding")
+public class ReshardingProperties {
+
+    /**
+     * 启动时的扩容阶段
+     */
+    private ReshardingPhase phase = ReshardingPhase.NONE;
+
+    /**
+     * 原布局每个库的订单分表数量
+     */
+    private int sourceOrderTableCount = 2;
+
+    private Target target = new Target();
+
+    private Backfill backfill = new Backfill();
+
+    private Verify verify = new Verify();
+
+    /**
+     * 新布局
+     */
+    @Data
+    public static class Target {
+
+        /**
+         * 新布局的数据源
+         */
+        private Map<String, TargetDataSource> dataSources = new LinkedHashMap<>();
+
+        /**
+         * 槽位默认分配的数据源，为空时使用全部新数据源
+         */
+        private List<String> defaultNodes = new ArrayList<>();
+
+        /**
+         * 新布局的槽位映射文件
+         */
+        private String slotMappingFile;
+
+        /**
+         * 新布局每个库的订单分表数量
+         */
+        private int orderTableCount = 2;
+    }
+
+    /**
+     * 新布局数据源连接信息
+     */
+    @Data
+    public static class TargetDataSource {
+
+        private String jdbcUrl;
+
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 10;
+    }
+
+    /**
+     * 历史数据回填
+     */
+    @Data
+    public static class Backfill {
+
+        /**
+         * 并行复制的源分表数量
+         */
+        private int parallelism = 4;
+
+        /**
+         * 每批复制行数
+         */
+        private int batchSize = 500;
+
+        /**
+         * 全局限速，每秒复制行数
+         */
+        private int rowsPerSecond = 2000;
+    }
+
+    /**
+     * 分块校验
+     */
+    @Data
+    public static class Verify {
+
+        /**
+         * 并行校验的源分表数量
+         */
+        private int parallelism = 4;
+
+        /**
+         * 每块校验行数
+         */
+        private int chunkSize = 1000;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.shardingjdbc.resharding;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 参与扩容的逻辑表
+ * 列清单的第一列为主键，行数据按列清单顺序以Object[]保存；
+ * 版本列用于判断新旧，同步到新布局时较旧的行不覆盖较新的行
+ */
+public enum ReshardingTable {
+
+    USER("t_user", Arrays.asList("user_id", "username", "password", "email", "phone", "create_time", "update_time", "status"),
+            "update_time"),
+
+    ORDER("t_order", Arrays.asList("order_id", "user_id", "order_no", "product_name", "quantity", "amount", "status",
+            "create_time", "update_time", "remark", "version"), "version");
+
+    private final String logicTable;
+
+    private final List<String> columns;
+
+    private final String columnList;
+
+    private final String versionColumn;
+
+    ReshardingTable(String logicTable, List<String> columns, String versionColumn) {
+        this.logicTable = logicTable;
+        this.columns = columns;
+        this.columnList = String.join(", ", columns);
+        this.versionColumn = versionColumn;
+    }
+
+    public String getLogicTable() {
+        return logicTable;
+    }
+
+    public String getKeyColumn() {
+        return columns.get(0);
+    }
+
+    public String selectByKeySql(String table) {
+        return "SELECT " + columnList + " FROM " + table + " WHERE " + getKeyColumn() + " = ?";
+    }
+
+    public String selectByKeysSql(String table) {
+        return "SELECT " + columnList + " FROM " + table + " WHERE " + getKeyColumn() + " IN (:keys)";
+    }
+
+    public String selectBatchSql(String table) {
+        return "SELECT " + columnList + " FROM " + table + " WHERE " + getKeyColumn() + " > ? ORDER BY " + getKeyColumn() + " LIMIT ?";
+    }
+
+    public String selectRangeSql(String table) {
+        return "SELECT " + columnList + " FROM " + table + " WHERE " + getKeyColumn() + " > ? AND " + getKeyColumn() + " <= ? ORDER BY "
+                + getKeyColumn() + " LIMIT ?";
+    }
+
+    public String countSql(String table) {
+        return "SELECT COUNT(*) FROM " + table;
+    }
+
+    public String insertIgnoreSql(String table) {
+        return "INSERT IGNORE INTO " + table + " (" + columnList + ") VALUES (" + placeholders() + ")";
+    }
+
+    /**
+     * 写入或按版本覆盖：只有写入行的版本不低于已有行时才覆盖
+     * MySQL按顺序执行赋值，版本列放在最后，前面各列比较的是覆盖前的版本
+     */
+    public String upsertSql(String table) {
+        String newer = "VALUES(" + versionColumn + ") >= " + versionColumn;
+        String updates = columns.stream().skip(1).filter(each -> !each.equals(versionColumn))
+                .map(each -> each + " = IF(" + newer + ", VALUES(" + each + "), " + each + ")")
+                .collect(Collectors.joining(", "));
+        return "INSERT INTO " + table + " (" + columnList + ") VALUES (" + placeholders() + ") ON DUPLICATE KEY UPDATE "
+                + updates + ", " + versionColumn + " = IF(" + newer + ", VALUES(" + versionColumn + "), " + versionColumn + ")";
+    }
+
+    public String deleteSql(String table) {
+        return "DELETE FROM " + table + " WHERE " + getKeyColumn() + " = ?";
+    }
+
+    /**
+     * 按列清单读取一行
+     */
+    public Object[] readRow(ResultSet resultSet, int rowNum) throws SQLException {
+        Object[] result = new Object[columns.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = resultSet.getObject(i + 1);
+        }
+        return result;
+    }
+
+    public long keyOf(Object[] row) {
+        return ((Number) row[0]).longValue();
+    }
+
+    private String placeholders() {
+        return columns.stream().map(each -> "?").collect(Collectors.joining(", "));
+    }
+}
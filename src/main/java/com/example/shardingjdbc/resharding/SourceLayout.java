@@ -0,0 +1,96 @@
+package com.example.shardingjdbc.resharding;
+
+import com.example.shardingjdbc.routing.PhysicalDataSources;
+import com.example.shardingjdbc.routing.ReadwriteTopology;
+import com.example.shardingjdbc.sharding.DataNodeLocator;
+import org.apache.shardingsphere.infra.datanode.DataNode;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 扩容前的原分片布局
+ * 直接访问ShardingSphere管理的物理数据源，按物理表逐个读取历史数据；
+ * 配置读写分离时只读取各逻辑数据源的主库，并以逻辑数据源名称作为数据节点名称
+ */
+@Component
+public class SourceLayout {
+
+    private final PhysicalDataSources physicalDataSources;
+
+    private final int orderTableCount;
+
+    private final ReadwriteTopology readwriteTopology;
+
+    private final DataNodeLocator dataNodeLocator;
+
+    private volatile Map<String, JdbcTemplate> jdbcTemplates;
+
+    public SourceLayout(PhysicalDataSources physicalDataSources, ReshardingProperties properties, ReadwriteTopology readwriteTopology,
+                        DataNodeLocator dataNodeLocator) {
+        this.physicalDataSources = physicalDataSources;
+        this.orderTableCount = properties.getSourceOrderTableCount();
+        this.readwriteTopology = readwriteTopology;
+        this.dataNodeLocator = dataNodeLocator;
+    }
+
+    /**
+     * 列出逻辑表在原布局中的全部物理表
+     * @param table 逻辑表
+     * @return 数据节点
+     */
+    public List<DataNode> nodesOf(ReshardingTable table) {
+        List<DataNode> result = new ArrayList<>();
+        for (String each : jdbcTemplates().keySet()) {
+            if (table == ReshardingTable.USER) {
+                result.add(new DataNode(each, table.getLogicTable()));
+                continue;
+            }
+            for (int i = 0; i < orderTableCount; i++) {
+                result.add(new DataNode(each, table.getLogicTable() + "_" + i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 计算行在原布局中的数据节点
+     * @param table 逻辑表
+     * @param key 主键
+     * @return 数据节点
+     */
+    public DataNode nodeOf(ReshardingTable table, long key) {
+        return table == ReshardingTable.USER ? dataNodeLocator.userNodeOf(key) : dataNodeLocator.orderNodeOfOrderId(key);
+    }
+
+    /**
+     * 计算槽位在原布局中的数据节点
+     * @param table 逻辑表
+     * @param slot 槽位，即分片基因
+     * @return 数据节点
+     */
+    public DataNode nodeOfSlot(ReshardingTable table, int slot) {
+        return table == ReshardingTable.USER ? dataNodeLocator.userNodeOfGene(slot) : dataNodeLocator.orderNodeOfGene(slot);
+    }
+
+    public JdbcTemplate jdbcTemplate(DataNode node) {
+        return jdbcTemplates().get(node.getDataSourceName());
+    }
+
+    private Map<String, JdbcTemplate> jdbcTemplates() {
+        if (jdbcTemplates == null) {
+            Map<String, JdbcTemplate> result = new TreeMap<>();
+            physicalDataSources.jdbcTemplates().forEach((name, each) -> {
+                if (!readwriteTopology.isReplica(name)) {
+                    result.put(readwriteTopology.logicalNameOf(name), each);
+                }
+            });
+            jdbcTemplates = result;
+        }
+        return jdbcTemplates;
+    }
+}
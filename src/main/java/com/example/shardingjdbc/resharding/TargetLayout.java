@@ -0,0 +1,197 @@
+package com.example.shardingjdbc.resharding;
+
+import com.example.shardingjdbc.sharding.ShardingGene;
+import com.example.shardingjdbc.sharding.SlotMapping;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shardingsphere.infra.datanode.DataNode;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.LongPredicate;
+
+/**
+ * 扩容后的新分片布局
+ * 数据库按分片基因查新槽位映射表，订单分表按基因散列值对新分表数量取模，
+ * 与ShardingSphere中的分片算法保持同一套规则
+ */
+@Slf4j
+@Component
+public class TargetLayout {
+
+    private final Map<String, HikariDataSource> dataSources = new LinkedHashMap<>();
+
+    private final Map<String, JdbcTemplate> jdbcTemplates = new LinkedHashMap<>();
+
+    private final SlotMapping slotMapping;
+
+    private final int orderTableCount;
+
+    public TargetLayout(ReshardingProperties properties) {
+        ReshardingProperties.Target target = properties.getTarget();
+        for (Map.Entry<String, ReshardingProperties.TargetDataSource> entry : target.getDataSources().entrySet()) {
+            // 连接池在首次获取连接时才初始化，新数据源不可用时不影响应用启动
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("resharding-" + entry.getKey());
+            dataSource.setJdbcUrl(entry.getValue().getJdbcUrl());
+            dataSource.setUsername(entry.getValue().getUsername());
+            dataSource.setPassword(entry.getValue().getPassword());
+            dataSource.setMaximumPoolSize(entry.getValue().getMaximumPoolSize());
+            dataSources.put(entry.getKey(), dataSource);
+            jdbcTemplates.put(entry.getKey(), new JdbcTemplate(dataSource));
+        }
+        this.orderTableCount = target.getOrderTableCount();
+        this.slotMapping = dataSources.isEmpty() ? null : SlotMapping.load(slotMappingProps(target));
+    }
+
+    public boolean isConfigured() {
+        return slotMapping != null;
+    }
+
+    /**
+     * 计算行在新布局中的数据节点
+     * @param table 逻辑表
+     * @param key 主键
+     * @return 数据节点
+     */
+    public DataNode nodeOf(ReshardingTable table, long key) {
+        if (table == ReshardingTable.USER) {
+            return new DataNode(slotMapping.route(jdbcTemplates.keySet(), ShardingGene.ofUserId(key)), table.getLogicTable());
+        }
+        String dataSourceName = slotMapping.route(jdbcTemplates.keySet(), ShardingGene.ofOrderId(key));
+        return new DataNode(dataSourceName, table.getLogicTable() + "_" + ShardingGene.hash(ShardingGene.ofOrderId(key)) % orderTableCount);
+    }
+
+    /**
+     * 列出逻辑表在新布局中的全部物理表
+     * @param table 逻辑表
+     * @return 数据节点
+     */
+    public List<DataNode> nodesOf(ReshardingTable table) {
+        List<DataNode> result = new ArrayList<>();
+        for (String each : jdbcTemplates.keySet()) {
+            if (table == ReshardingTable.USER) {
+                result.add(new DataNode(each, table.getLogicTable()));
+                continue;
+            }
+            for (int i = 0; i < orderTableCount; i++) {
+                result.add(new DataNode(each, table.getLogicTable() + "_" + i));
+            }
+        }
+        return result;
+    }
+
+    public void upsert(ReshardingTable table, Object[] row) {
+        DataNode node = nodeOf(table, table.keyOf(row));
+        jdbcTemplate(node).update(table.upsertSql(node.getTableName()), row);
+    }
+
+    public void delete(ReshardingTable table, long key) {
+        DataNode node = nodeOf(table, key);
+        jdbcTemplate(node).update(table.deleteSql(node.getTableName()), key);
+    }
+
+    /**
+     * 批量写入新布局，已存在的行保持不变（以双写的数据为准）
+     * @param table 逻辑表
+     * @param rows 行数据
+     */
+    public void insertIgnore(ReshardingTable table, List<Object[]> rows) {
+        for (Map.Entry<DataNode, List<Object[]>> entry : groupByNode(table, rows).entrySet()) {
+            jdbcTemplate(entry.getKey()).batchUpdate(table.insertIgnoreSql(entry.getKey().getTableName()), entry.getValue());
+        }
+    }
+
+    public <T> T selectByKey(ReshardingTable table, long key, RowMapper<T> rowMapper) {
+        DataNode node = nodeOf(table, key);
+        List<T> result = jdbcTemplate(node).query(table.selectByKeySql(node.getTableName()), rowMapper, key);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * 按主键批量查询新布局中的行
+     * @param table 逻辑表
+     * @param keys 主键
+     * @return 行数据，顺序不保证
+     */
+    public List<Object[]> selectByKeys(ReshardingTable table, Collection<Long> keys) {
+        Map<DataNode, List<Long>> keysByNode = new LinkedHashMap<>();
+        for (Long each : keys) {
+            keysByNode.computeIfAbsent(nodeOf(table, each), node -> new ArrayList<>()).add(each);
+        }
+        List<Object[]> result = new ArrayList<>(keys.size());
+        for (Map.Entry<DataNode, List<Long>> entry : keysByNode.entrySet()) {
+            NamedParameterJdbcTemplate template = new NamedParameterJdbcTemplate(jdbcTemplate(entry.getKey()));
+            result.addAll(template.query(table.selectByKeysSql(entry.getKey().getTableName()),
+                    Collections.singletonMap("keys", entry.getValue()), table::readRow));
+        }
+        return result;
+    }
+
+    /**
+     * 查询新布局全部物理表中主键在区间内的行，每个物理表按主键分批读取
+     * @param table 逻辑表
+     * @param fromKey 主键下界（不含）
+     * @param toKey 主键上界（含）
+     * @param batchSize 每批行数
+     * @param filter 按主键过滤，只保留满足条件的行
+     * @return 行数据，顺序不保证
+     */
+    public List<Object[]> selectRange(ReshardingTable table, long fromKey, long toKey, int batchSize, LongPredicate filter) {
+        List<Object[]> result = new ArrayList<>();
+        for (DataNode node : nodesOf(table)) {
+            String sql = table.selectRangeSql(node.getTableName());
+            long lastKey = fromKey;
+            while (true) {
+                List<Object[]> rows = jdbcTemplate(node).query(sql, table::readRow, lastKey, toKey, batchSize);
+                for (Object[] each : rows) {
+                    if (filter.test(table.keyOf(each))) {
+                        result.add(each);
+                    }
+                }
+                if (rows.size() < batchSize) {
+                    break;
+                }
+                lastKey = table.keyOf(rows.get(rows.size() - 1));
+            }
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void close() {
+        dataSources.values().forEach(HikariDataSource::close);
+    }
+
+    private Map<DataNode, List<Object[]>> groupByNode(ReshardingTable table, List<Object[]> rows) {
+        Map<DataNode, List<Object[]>> result = new LinkedHashMap<>();
+        for (Object[] each : rows) {
+            result.computeIfAbsent(nodeOf(table, table.keyOf(each)), node -> new ArrayList<>()).add(each);
+        }
+        return result;
+    }
+
+    private JdbcTemplate jdbcTemplate(DataNode node) {
+        return jdbcTemplates.get(node.getDataSourceName());
+    }
+
+    private Properties slotMappingProps(ReshardingProperties.Target target) {
+        Properties result = new Properties();
+        Collection<String> defaultNodes = target.getDefaultNodes().isEmpty() ? dataSources.keySet() : target.getDefaultNodes();
+        result.setProperty(SlotMapping.DEFAULT_NODES_KEY, String.join(",", defaultNodes));
+        if (target.getSlotMappingFile() != null) {
+            result.setProperty(SlotMapping.MAPPING_FILE_KEY, target.getSlotMappingFile());
+        }
+        return result;
+    }
+}
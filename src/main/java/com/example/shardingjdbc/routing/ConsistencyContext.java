@@ -0,0 +1,84 @@
+package com.example.shardingjdbc.routing;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 当前请求的一致性上下文
+ * 服务层记录本次请求写入的逻辑数据源，用于在响应中签发一致性令牌；
+ * 请求携带的令牌尚未被从库追上时标记为必须读主库。
+ * 上下文只在ConsistencyTokenFilter处理请求期间存在，定时任务、线程池等其他线程上的写入不记录，也不会残留在线程上
+ */
+public final class ConsistencyContext {
+
+    private static final ThreadLocal<Set<String>> WRITES = new ThreadLocal<>();
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = ThreadLocal.withInitial(() -> false);
+
+    private ConsistencyContext() {
+    }
+
+    /**
+     * 在当前线程上开始一个请求的上下文，由ConsistencyTokenFilter调用，结束时调用 {@link #clear()}
+     */
+    static void open() {
+        WRITES.set(new TreeSet<>());
+    }
+
+    /**
+     * 记录写入的逻辑数据源，当前线程有事务时在事务提交后记录，回滚的写入不记录
+     * @param dataSourceName 逻辑数据源名称
+     */
+    public static void recordWrite(String dataSourceName) {
+        Set<String> writes = WRITES.get();
+        if (writes == null) {
+            return;
+        }
+        // 未开启事务（包括NOT_SUPPORTED）时语句已自动提交，直接记录
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            writes.add(dataSourceName);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void afterCommit() {
+                writes.add(dataSourceName);
+            }
+        });
+    }
+
+    /**
+     * 取出并清空已记录的写入
+     * @return 写入的逻辑数据源名称
+     */
+    public static Set<String> drainWrites() {
+        Set<String> writes = WRITES.get();
+        if (writes == null || writes.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> result = new TreeSet<>(writes);
+        writes.clear();
+        return result;
+    }
+
+    public static void requirePrimary() {
+        PRIMARY_REQUIRED.set(true);
+    }
+
+    /**
+     * @return 当前请求是否必须读主库，此时不应共享其他请求从从库读到的结果
+     */
+    public static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get();
+    }
+
+    public static void clear() {
+        WRITES.remove();
+        PRIMARY_REQUIRED.remove();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.shardingjdbc.routing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 读己之写的一致性令牌
+ * 记录写入后各逻辑数据源主库的GTID集合，编码为 Base64URL("ds0=GTID集合\nds1=GTID集合")
+ */
+public final class ConsistencyToken {
+
+    private ConsistencyToken() {
+    }
+
+    /**
+     * 编码令牌
+     * @param positions 逻辑数据源到主库GTID集合的映射
+     * @return 令牌
+     */
+    public static String encode(Map<String, String> positions) {
+        StringBuilder result = new StringBuilder();
+        for (Map.Entry<String, String> entry : new TreeMap<>(positions).entrySet()) {
+            if (result.length() > 0) {
+                result.append('\n');
+            }
+            result.append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(result.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码令牌
+     * @param token 令牌
+     * @return 逻辑数据源到主库GTID集合的映射
+     * @throws IllegalArgumentException 令牌格式错误
+     */
+    public static Map<String, String> decode(String token) {
+        String content = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+        Map<String, String> result = new TreeMap<>();
+        if (content.isEmpty()) {
+            return result;
+        }
+        for (String each : content.split("\n")) {
+            int index = each.indexOf('=');
+            if (index <= 0) {
+                throw new IllegalArgumentException("一致性令牌格式错误");
+            }
+            result.put(each.substring(0, index), each.substring(index + 1));
+        }
+        return result;
+    }
+}
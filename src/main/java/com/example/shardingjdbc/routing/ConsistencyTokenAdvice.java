@@ -0,0 +1,54 @@
+package com.example.shardingjdbc.routing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.MethodParameter;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 签发一致性令牌
+ * 写入接口返回前，服务方法的事务已提交，读取本次请求写入的各逻辑数据源主库位点，放入响应头；
+ * 读取位点失败或未开启GTID时不签发，客户端后续读取按普通请求处理
+ */
+@Slf4j
+@ControllerAdvice
+public class ConsistencyTokenAdvice implements ResponseBodyAdvice<Object> {
+
+    private final ReplicationPositions replicationPositions;
+
+    public ConsistencyTokenAdvice(ReplicationPositions replicationPositions) {
+        this.replicationPositions = replicationPositions;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        Set<String> writes = ConsistencyContext.drainWrites();
+        if (writes.isEmpty()) {
+            return body;
+        }
+        try {
+            Map<String, String> positions = replicationPositions.primaryPositions(writes);
+            if (!positions.isEmpty()) {
+                response.getHeaders().set(ConsistencyTokenFilter.HEADER, ConsistencyToken.encode(positions));
+            }
+        } catch (DataAccessException e) {
+            log.warn("读取主库复制位点失败，不签发一致性令牌，逻辑数据源：{}", writes, e);
+        }
+        return body;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.shardingjdbc.routing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shardingsphere.infra.hint.HintManager;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 读己之写过滤器
+ * 请求携带一致性令牌且有分片的从库尚未追上令牌中的位点时，整个请求强制读主库；
+ * 令牌格式错误时同样读主库，不携带令牌的请求不受影响
+ */
+@Slf4j
+@Component
+public class ConsistencyTokenFilter extends OncePerRequestFilter {
+
+    /**
+     * 请求和响应中一致性令牌的头
+     */
+    public static final String HEADER = "X-Consistency-Token";
+
+    private final ReplicationPositions replicationPositions;
+
+    public ConsistencyTokenFilter(ReplicationPositions replicationPositions) {
+        this.replicationPositions = replicationPositions;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ConsistencyContext.open();
+        try {
+            String token = request.getHeader(HEADER);
+            if (token == null || token.isEmpty() || isCaughtUp(token)) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            ConsistencyContext.requirePrimary();
+            try (HintManager hintManager = HintManager.getInstance()) {
+                hintManager.setWriteRouteOnly();
+                filterChain.doFilter(request, response);
+            }
+        } finally {
+            ConsistencyContext.clear();
+        }
+    }
+
+    private boolean isCaughtUp(String token) {
+        Map<String, String> positions;
+        try {
+            positions = ConsistencyToken.decode(token);
+        } catch (IllegalArgumentException e) {
+            log.warn("一致性令牌格式错误，本次请求读主库：{}", token);
+            return false;
+        }
+        for (Map.Entry<String, String> entry : positions.entrySet()) {
+            if (!replicationPositions.isCaughtUp(entry.getKey(), entry.getValue())) {
+                log.debug("从库未追上一致性令牌，本次请求读主库，逻辑数据源：{}", entry.getKey());
+                return false;
+            }
+        }
+        return true;
+    }
+}
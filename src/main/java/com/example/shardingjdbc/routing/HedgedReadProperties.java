@@ -0,0 +1,46 @@
+package com.example.shardingjdbc.routing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 对冲读取配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "hedged-read")
+public class HedgedReadProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * 第一个读库超过该分位的耗时仍未返回时发出对冲读取
+     */
+    private int percentile = 95;
+
+    /**
+     * 参与计算分位的最近耗时样本数
+     */
+    private int windowSize = 1000;
+
+    /**
+     * 样本数达到该值前使用初始对冲延迟
+     */
+    private int minSamples = 100;
+
+    /**
+     * 样本不足时的对冲延迟（毫秒）
+     */
+    private long initialDelayMillis = 50;
+
+    /**
+     * 对冲延迟下限（毫秒），避免分位耗时很低时几乎每次都对冲
+     */
+    private long minDelayMillis = 5;
+
+    /**
+     * 逻辑数据源只有一个从库时是否对冲到主库
+     */
+    private boolean hedgeToPrimary = false;
+}
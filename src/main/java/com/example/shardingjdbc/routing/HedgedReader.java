@@ -0,0 +1,297 @@
+package com.example.shardingjdbc.routing;
+
+import com.example.shardingjdbc.guard.Deadline;
+import com.example.shardingjdbc.guard.ShardGuards;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shardingsphere.infra.hint.HintManager;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对冲读取
+ * 幂等的单分片读取直接查询物理从库：第一个从库超过最近耗时的分位（默认p95）仍未返回时，把同一查询发给另一个从库，
+ * 取先成功返回的结果并取消另一个语句；对冲延迟随观测到的耗时调整，正常情况下约有5%的读取发出对冲。
+ * 读取绕过ShardingSphere路由，只用于已知数据节点的查询；事务中或当前请求必须读主库时不使用
+ */
+@Slf4j
+@Component
+public class HedgedReader {
+
+    private final PhysicalDataSources physicalDataSources;
+
+    private final ReadwriteTopology readwriteTopology;
+
+    private final ShardGuards shardGuards;
+
+    private final ExecutorService hedgeExecutor;
+
+    private final HedgedReadProperties properties;
+
+    private final ConcurrentMap<String, ReadStats> stats = new ConcurrentHashMap<>();
+
+    public HedgedReader(PhysicalDataSources physicalDataSources, ReadwriteTopology readwriteTopology,
+                        ShardGuards shardGuards, @Qualifier("hedgeExecutor") ExecutorService hedgeExecutor,
+                        HedgedReadProperties properties) {
+        this.physicalDataSources = physicalDataSources;
+        this.readwriteTopology = readwriteTopology;
+        this.shardGuards = shardGuards;
+        this.hedgeExecutor = hedgeExecutor;
+        this.properties = properties;
+    }
+
+    /**
+     * 当前线程能否对逻辑数据源使用对冲读取
+     * 未开启、在事务中、当前请求必须读主库或逻辑数据源没有第二个读库时不能使用
+     * @param logicalName 逻辑数据源名称
+     * @return 能否使用
+     */
+    public boolean canHedge(String logicalName) {
+        if (!properties.isEnabled() || TransactionSynchronizationManager.isActualTransactionActive()
+                || ConsistencyContext.isPrimaryRequired() || HintManager.isWriteRouteOnly()) {
+            return false;
+        }
+        int replicaCount = readwriteTopology.replicasOf(logicalName).size();
+        return replicaCount >= 2 || (replicaCount == 1 && properties.isHedgeToPrimary());
+    }
+
+    /**
+     * 对冲读取逻辑数据源上的物理表，调用前需确认 {@link #canHedge(String)}
+     * @param name 读取名称，按名称统计耗时分位和对冲次数
+     * @param logicalName 逻辑数据源名称
+     * @param sql 查询物理表的SQL
+     * @param rowMapper 行映射
+     * @param args SQL参数
+     * @return 先成功返回的读库上的结果
+     */
+    public <T> List<T> query(String name, String logicalName, String sql, RowMapper<T> rowMapper, Object... args) {
+        ReadStats readStats = stats.computeIfAbsent(name, key -> new ReadStats(properties));
+        List<String> targets = targetsOf(logicalName);
+        Deadline deadline = Deadline.current();
+        int queryTimeoutSeconds = deadline == null ? -1 : (int) Math.max(1L, (deadline.remainingMillis() + 999L) / 1000L);
+        readStats.reads.increment();
+
+        Attempt<T> first = new Attempt<>(targets.get(0), sql, queryTimeoutSeconds, rowMapper, args, readStats.latency);
+        first.start();
+        try {
+            return first.future.get(hedgeDelayMicros(readStats.latency), TimeUnit.MICROSECONDS);
+        } catch (TimeoutException e) {
+            // 第一个读库未在对冲延迟内返回，发出对冲读取
+        } catch (ExecutionException e) {
+            // 对冲只针对慢读取，第一个读库失败时按原异常返回
+            throw rethrow(e);
+        } catch (InterruptedException e) {
+            first.cancel();
+            Thread.currentThread().interrupt();
+            throw new DataAccessResourceFailureException("读取被中断", e);
+        }
+
+        readStats.hedged.increment();
+        Attempt<T> hedge = new Attempt<>(targets.get(1), sql, queryTimeoutSeconds, rowMapper, args, readStats.latency);
+        hedge.start();
+        CompletableFuture<Attempt<T>> winner = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(2);
+        first.whenFirstSuccess(winner, pending);
+        hedge.whenFirstSuccess(winner, pending);
+        try {
+            Attempt<T> result = winner.get();
+            if (result == hedge) {
+                readStats.hedgeWins.increment();
+                first.cancel();
+            } else {
+                hedge.cancel();
+            }
+            log.debug("对冲读取完成，读取：{}，先返回的读库：{}", name, result.dataSourceName);
+            return result.future.join();
+        } catch (ExecutionException e) {
+            throw rethrow(e);
+        } catch (InterruptedException e) {
+            first.cancel();
+            hedge.cancel();
+            Thread.currentThread().interrupt();
+            throw new DataAccessResourceFailureException("读取被中断", e);
+        }
+    }
+
+    /**
+     * @return 读取名称到读取次数、对冲次数、对冲胜出次数和当前对冲延迟的映射
+     */
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> result = new TreeMap<>();
+        stats.forEach((name, each) -> {
+            long reads = each.reads.sum();
+            long hedged = each.hedged.sum();
+            long hedgeWins = each.hedgeWins.sum();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("readCount", reads);
+            item.put("hedgedCount", hedged);
+            item.put("hedgeWinCount", hedgeWins);
+            item.put("hedgeRate", reads == 0 ? 0.0 : (double) hedged / reads);
+            item.put("hedgeWinRate", hedged == 0 ? 0.0 : (double) hedgeWins / hedged);
+            item.put("hedgeDelayMillis", hedgeDelayMicros(each.latency) / 1000.0);
+            item.put("latencySamples", each.latency.count());
+            result.put(name, item);
+        });
+        return result;
+    }
+
+    /**
+     * 对冲延迟：最近耗时的分位，样本不足时使用初始延迟，不低于延迟下限
+     */
+    private long hedgeDelayMicros(LatencyWindow latency) {
+        long percentile = latency.percentile();
+        long micros = percentile < 0 ? TimeUnit.MILLISECONDS.toMicros(properties.getInitialDelayMillis()) : percentile;
+        return Math.max(micros, TimeUnit.MILLISECONDS.toMicros(properties.getMinDelayMillis()));
+    }
+
+    /**
+     * 读库顺序：从库随机排列，只有一个从库且允许时主库作为对冲目标
+     */
+    private List<String> targetsOf(String logicalName) {
+        List<String> result = new ArrayList<>(readwriteTopology.replicasOf(logicalName));
+        Collections.shuffle(result, ThreadLocalRandom.current());
+        if (result.size() == 1 && properties.isHedgeToPrimary()) {
+            result.add(readwriteTopology.primaryOf(logicalName));
+        }
+        return result;
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        Throwable cause = e;
+        while ((cause instanceof ExecutionException || cause instanceof CompletionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IllegalStateException("读取失败", cause);
+    }
+
+    /**
+     * 在一个读库上的一次读取
+     * 被取消时取消执行中的语句，尚未开始执行的直接放弃；只有成功返回的读取计入耗时，
+     * 被取消的读取只等待了对冲前的一段时间，计入会使分位偏低
+     */
+    private class Attempt<T> {
+
+        private final String dataSourceName;
+
+        private final String sql;
+
+        private final int queryTimeoutSeconds;
+
+        private final RowMapper<T> rowMapper;
+
+        private final Object[] args;
+
+        private final LatencyWindow latency;
+
+        private final AtomicReference<Statement> statement = new AtomicReference<>();
+
+        private volatile boolean cancelled;
+
+        private long startNanos;
+
+        private CompletableFuture<List<T>> future;
+
+        Attempt(String dataSourceName, String sql, int queryTimeoutSeconds, RowMapper<T> rowMapper, Object[] args,
+                LatencyWindow latency) {
+            this.dataSourceName = dataSourceName;
+            this.sql = sql;
+            this.queryTimeoutSeconds = queryTimeoutSeconds;
+            this.rowMapper = rowMapper;
+            this.args = args;
+            this.latency = latency;
+        }
+
+        void start() {
+            startNanos = System.nanoTime();
+            future = CompletableFuture.supplyAsync(this::execute, hedgeExecutor);
+        }
+
+        void whenFirstSuccess(CompletableFuture<Attempt<T>> winner, AtomicInteger pending) {
+            future.whenComplete((rows, e) -> {
+                if (e == null) {
+                    winner.complete(this);
+                } else if (pending.decrementAndGet() == 0) {
+                    winner.completeExceptionally(e);
+                }
+            });
+        }
+
+        void cancel() {
+            cancelled = true;
+            Statement current = statement.get();
+            if (current != null) {
+                try {
+                    current.cancel();
+                } catch (SQLException e) {
+                    log.debug("取消对冲读取的语句失败，读库：{}", dataSourceName, e);
+                }
+            }
+        }
+
+        private List<T> execute() {
+            if (cancelled) {
+                return Collections.emptyList();
+            }
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(physicalDataSources.jdbcTemplate(dataSourceName).getDataSource());
+            jdbcTemplate.setQueryTimeout(queryTimeoutSeconds);
+            List<T> result = shardGuards.call(dataSourceName, () -> jdbcTemplate.query(connection -> {
+                PreparedStatement preparedStatement = connection.prepareStatement(sql);
+                statement.set(preparedStatement);
+                return preparedStatement;
+            }, new ArgumentPreparedStatementSetter(args), new RowMapperResultSetExtractor<>(rowMapper)));
+            latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+            return result;
+        }
+    }
+
+    /**
+     * 一种读取的统计
+     */
+    private static class ReadStats {
+
+        private final LongAdder reads = new LongAdder();
+
+        private final LongAdder hedged = new LongAdder();
+
+        private final LongAdder hedgeWins = new LongAdder();
+
+        private final LatencyWindow latency;
+
+        ReadStats(HedgedReadProperties properties) {
+            this.latency = new LatencyWindow(properties.getWindowSize(), properties.getPercentile(), properties.getMinSamples());
+        }
+    }
+}
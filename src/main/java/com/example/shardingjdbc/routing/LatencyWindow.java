@@ -0,0 +1,63 @@
+package com.example.shardingjdbc.routing;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 最近若干次耗时的滑动窗口
+ * 记录时只写入环形数组，每记录一定次数重新排序计算一次分位，读取分位不加锁
+ */
+class LatencyWindow {
+
+    private static final int RECOMPUTE_INTERVAL = 64;
+
+    private final AtomicLongArray samples;
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final int percentile;
+
+    private final int minSamples;
+
+    private volatile long cachedPercentile = -1L;
+
+    LatencyWindow(int size, int percentile, int minSamples) {
+        this.samples = new AtomicLongArray(size);
+        this.percentile = percentile;
+        this.minSamples = Math.min(minSamples, size);
+    }
+
+    /**
+     * @param micros 耗时（微秒）
+     */
+    void record(long micros) {
+        long n = count.getAndIncrement();
+        samples.set((int) (n % samples.length()), micros);
+        if (n + 1 == minSamples || (n + 1 >= minSamples && (n + 1) % RECOMPUTE_INTERVAL == 0)) {
+            recompute();
+        }
+    }
+
+    /**
+     * @return 窗口内耗时的分位（微秒），样本不足时返回-1
+     */
+    long percentile() {
+        return cachedPercentile;
+    }
+
+    long count() {
+        return count.get();
+    }
+
+    private void recompute() {
+        int size = (int) Math.min(count.get(), samples.length());
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+        cachedPercentile = sorted[Math.max(0, Math.min(size - 1, index))];
+    }
+}
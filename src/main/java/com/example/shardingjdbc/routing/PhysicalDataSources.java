@@ -0,0 +1,61 @@
+package com.example.shardingjdbc.routing;
+
+import org.apache.shardingsphere.driver.jdbc.core.connection.ShardingSphereConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * ShardingSphere管理的物理数据源
+ * 绕过分片和读写分离路由，直接访问某个主库或从库
+ */
+@Component
+public class PhysicalDataSources {
+
+    private final DataSource dataSource;
+
+    private volatile Map<String, JdbcTemplate> jdbcTemplates;
+
+    public PhysicalDataSources(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * @return 物理数据源名称到JdbcTemplate的映射，按名称排序
+     */
+    public Map<String, JdbcTemplate> jdbcTemplates() {
+        if (jdbcTemplates == null) {
+            synchronized (this) {
+                if (jdbcTemplates == null) {
+                    jdbcTemplates = loadJdbcTemplates();
+                }
+            }
+        }
+        return jdbcTemplates;
+    }
+
+    public JdbcTemplate jdbcTemplate(String dataSourceName) {
+        JdbcTemplate result = jdbcTemplates().get(dataSourceName);
+        if (result == null) {
+            throw new IllegalArgumentException("物理数据源不存在：" + dataSourceName);
+        }
+        return result;
+    }
+
+    private Map<String, JdbcTemplate> loadJdbcTemplates() {
+        try (Connection connection = dataSource.getConnection()) {
+            ShardingSphereConnection shardingSphereConnection = connection.unwrap(ShardingSphereConnection.class);
+            Map<String, JdbcTemplate> result = new TreeMap<>();
+            shardingSphereConnection.getContextManager().getDataSourceMap(shardingSphereConnection.getDatabaseName())
+                    .forEach((name, each) -> result.put(name, new JdbcTemplate(each)));
+            return result;
+        } catch (SQLException e) {
+            throw new IllegalStateException("获取物理数据源失败", e);
+        }
+    }
+}
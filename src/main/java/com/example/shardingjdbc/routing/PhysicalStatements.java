@@ -0,0 +1,86 @@
+package com.example.shardingjdbc.routing;
+
+import lombok.Getter;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mapper XML中的映射语句在物理表上的SQL
+ * 绕过ShardingSphere直接查询物理表时使用映射语句本身，只把逻辑表名替换为物理表名，
+ * 列、条件、排序以及语句上的fetchSize、resultSetType都与Mapper XML保持一致
+ */
+@Component
+public class PhysicalStatements {
+
+    private final Configuration configuration;
+
+    public PhysicalStatements(SqlSessionFactory sqlSessionFactory) {
+        this.configuration = sqlSessionFactory.getConfiguration();
+    }
+
+    /**
+     * 绑定映射语句的参数
+     * @param mapperType Mapper接口
+     * @param statement 语句ID
+     * @param parameter 语句参数，多个参数时为参数名到值的映射
+     * @param logicTable 逻辑表名
+     * @param actualTable 物理表名
+     * @return 物理表上的SQL和参数
+     */
+    public Bound bind(Class<?> mapperType, String statement, Object parameter, String logicTable, String actualTable) {
+        MappedStatement mappedStatement = configuration.getMappedStatement(mapperType.getName() + "." + statement);
+        BoundSql boundSql = mappedStatement.getBoundSql(parameter);
+        List<ParameterMapping> mappings = boundSql.getParameterMappings();
+        Object[] args = new Object[mappings.size()];
+        for (int i = 0; i < args.length; i++) {
+            String property = mappings.get(i).getProperty();
+            if (boundSql.hasAdditionalParameter(property)) {
+                args[i] = boundSql.getAdditionalParameter(property);
+            } else if (parameter == null || configuration.getTypeHandlerRegistry().hasTypeHandler(parameter.getClass())) {
+                args[i] = parameter;
+            } else {
+                args[i] = configuration.newMetaObject(parameter).getValue(property);
+            }
+        }
+        String sql = Pattern.compile("\\b" + Pattern.quote(logicTable) + "\\b")
+                .matcher(boundSql.getSql()).replaceAll(Matcher.quoteReplacement(actualTable));
+        ResultSetType resultSetType = mappedStatement.getResultSetType();
+        return new Bound(sql, args, mappedStatement.getFetchSize(),
+                resultSetType == null || resultSetType == ResultSetType.DEFAULT ? ResultSet.TYPE_FORWARD_ONLY : resultSetType.getValue());
+    }
+
+    /**
+     * 物理表上的SQL、参数和语句选项
+     */
+    @Getter
+    public static class Bound {
+
+        private final String sql;
+
+        private final Object[] args;
+
+        /**
+         * 映射语句的fetchSize，未设置时为null
+         */
+        private final Integer fetchSize;
+
+        private final int resultSetType;
+
+        public Bound(String sql, Object[] args, Integer fetchSize, int resultSetType) {
+            this.sql = sql;
+            this.args = args;
+            this.fetchSize = fetchSize;
+            this.resultSetType = resultSetType;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.shardingjdbc.routing;
+
+import org.apache.shardingsphere.infra.hint.HintManager;
+
+import java.util.function.Supplier;
+
+/**
+ * 强制查询走主库
+ * 用于读出后立即按版本写入、或读出后放入缓存的场景，避免读到从库上尚未同步的旧数据
+ */
+public final class PrimaryRoute {
+
+    private PrimaryRoute() {
+    }
+
+    /**
+     * 在当前线程内强制主库路由执行查询，当前线程已强制主库路由时直接执行
+     * @param query 查询
+     * @return 查询结果
+     */
+    public static <T> T read(Supplier<T> query) {
+        if (HintManager.isWriteRouteOnly()) {
+            return query.get();
+        }
+        try (HintManager hintManager = HintManager.getInstance()) {
+            hintManager.setWriteRouteOnly();
+            return query.get();
+        }
+    }
+
+    /**
+     * 把当前线程的主库路由带到其他线程执行的查询上，用于提交到分片线程池的查询
+     * @param query 查询
+     * @return 当前线程强制主库路由时返回强制主库的查询，否则返回原查询
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> query) {
+        if (!HintManager.isWriteRouteOnly()) {
+            return query;
+        }
+        return () -> read(query);
+    }
+}
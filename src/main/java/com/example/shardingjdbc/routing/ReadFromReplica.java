@@ -0,0 +1,22 @@
+package com.example.shardingjdbc.routing;
+
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记只读的服务方法，查询路由到从库
+ * ShardingSphere读写分离只把事务外的查询路由到从库，因此方法不开启事务，调用方已在事务中时加入其事务并读主库；
+ * 不开启事务时仍有事务同步，同一方法内的查询复用一个连接，流式游标在方法返回前保持打开
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+public @interface ReadFromReplica {
+}
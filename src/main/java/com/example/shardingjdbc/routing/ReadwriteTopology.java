@@ -0,0 +1,95 @@
+package com.example.shardingjdbc.routing;
+
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 读写分离拓扑
+ * 读取读写分离规则中每个逻辑数据源的主库和从库名称；未配置读写分离时逻辑数据源就是物理数据源
+ */
+@Component
+public class ReadwriteTopology {
+
+    private static final String DATA_SOURCES_PREFIX = "spring.shardingsphere.rules.readwrite-splitting.data-sources";
+
+    private static final String WRITE_SUFFIX = ".static-strategy.write-data-source-name";
+
+    private static final String READ_SUFFIX = ".static-strategy.read-data-source-names";
+
+    private final Map<String, String> primaries = new TreeMap<>();
+
+    private final Map<String, List<String>> replicas = new TreeMap<>();
+
+    private final Map<String, String> logicalNames = new HashMap<>();
+
+    private final Set<String> replicaNames = new HashSet<>();
+
+    public ReadwriteTopology(Environment environment) {
+        Map<String, String> props = Binder.get(environment)
+                .bind(DATA_SOURCES_PREFIX, Bindable.mapOf(String.class, String.class))
+                .orElse(Collections.emptyMap());
+        for (Map.Entry<String, String> entry : props.entrySet()) {
+            if (entry.getKey().endsWith(WRITE_SUFFIX)) {
+                String logicalName = entry.getKey().substring(0, entry.getKey().length() - WRITE_SUFFIX.length());
+                primaries.put(logicalName, entry.getValue().trim());
+                logicalNames.put(entry.getValue().trim(), logicalName);
+            } else if (entry.getKey().endsWith(READ_SUFFIX)) {
+                String logicalName = entry.getKey().substring(0, entry.getKey().length() - READ_SUFFIX.length());
+                List<String> names = new ArrayList<>();
+                for (String each : entry.getValue().split(",")) {
+                    names.add(each.trim());
+                    logicalNames.put(each.trim(), logicalName);
+                    replicaNames.add(each.trim());
+                }
+                replicas.put(logicalName, names);
+            }
+        }
+    }
+
+    /**
+     * 物理数据源是否为从库
+     * @param dataSourceName 物理数据源名称
+     * @return 是否为从库
+     */
+    public boolean isReplica(String dataSourceName) {
+        return replicaNames.contains(dataSourceName);
+    }
+
+    /**
+     * 物理数据源所属的逻辑数据源，未配置读写分离时返回自身
+     * @param dataSourceName 物理数据源名称
+     * @return 逻辑数据源名称
+     */
+    public String logicalNameOf(String dataSourceName) {
+        return logicalNames.getOrDefault(dataSourceName, dataSourceName);
+    }
+
+    /**
+     * 逻辑数据源的从库，未配置读写分离时为空
+     * @param logicalName 逻辑数据源名称
+     * @return 从库物理数据源名称
+     */
+    public List<String> replicasOf(String logicalName) {
+        return replicas.getOrDefault(logicalName, Collections.emptyList());
+    }
+
+    /**
+     * 逻辑数据源的主库，未配置读写分离时返回自身
+     * @param logicalName 逻辑数据源名称
+     * @return 主库物理数据源名称
+     */
+    public String primaryOf(String logicalName) {
+        return primaries.getOrDefault(logicalName, logicalName);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.shardingjdbc.routing;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 主从复制位点
+ * 写入后读取主库已执行的GTID集合作为位点；判断从库是否追上位点时检查该分片的全部从库，
+ * 因为读写分离按负载均衡选择从库，只有全部从库追上才能保证读到写入
+ */
+@Slf4j
+@Component
+public class ReplicationPositions {
+
+    private static final String PRIMARY_POSITION_SQL = "SELECT @@GLOBAL.gtid_executed";
+
+    private static final String CAUGHT_UP_SQL = "SELECT GTID_SUBSET(?, @@GLOBAL.gtid_executed)";
+
+    private final PhysicalDataSources physicalDataSources;
+
+    private final ReadwriteTopology readwriteTopology;
+
+    /**
+     * 从库已追上的位点，复制只会前进，命中即可跳过检查
+     */
+    private final Cache<String, Boolean> caughtUp = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(1, TimeUnit.MINUTES)
+            .build();
+
+    public ReplicationPositions(PhysicalDataSources physicalDataSources, ReadwriteTopology readwriteTopology) {
+        this.physicalDataSources = physicalDataSources;
+        this.readwriteTopology = readwriteTopology;
+    }
+
+    /**
+     * 读取逻辑数据源主库的当前位点，未开启GTID时不返回
+     * @param dataSourceNames 逻辑数据源名称
+     * @return 逻辑数据源到GTID集合的映射
+     */
+    public Map<String, String> primaryPositions(Set<String> dataSourceNames) {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (String each : dataSourceNames) {
+            String position = physicalDataSources.jdbcTemplate(readwriteTopology.primaryOf(each))
+                    .queryForObject(PRIMARY_POSITION_SQL, String.class);
+            if (position != null && !position.isEmpty()) {
+                // gtid_executed中多个UUID之间带换行
+                result.put(each, position.replace("\n", ""));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 逻辑数据源的全部从库是否已执行到指定位点，查询失败视为未追上
+     * @param dataSourceName 逻辑数据源名称
+     * @param position GTID集合
+     * @return 是否已追上
+     */
+    public boolean isCaughtUp(String dataSourceName, String position) {
+        for (String each : readwriteTopology.replicasOf(dataSourceName)) {
+            String key = each + '@' + position;
+            if (caughtUp.getIfPresent(key) != null) {
+                continue;
+            }
+            try {
+                if (!Boolean.TRUE.equals(physicalDataSources.jdbcTemplate(each).queryForObject(CAUGHT_UP_SQL, Boolean.class, position))) {
+                    return false;
+                }
+            } catch (DataAccessException e) {
+                log.warn("检查从库复制位点失败，从库：{}", each, e);
+                return false;
+            }
+            caughtUp.put(key, Boolean.TRUE);
+        }
+        return true;
+    }
+}
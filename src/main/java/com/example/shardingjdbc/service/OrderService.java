@@ -1,8 +1,13 @@
 package com.example.shardingjdbc.service;
 
+import com.example.shardingjdbc.dto.BatchItemResult;
+import com.example.shardingjdbc.dto.CursorPage;
+import com.example.shardingjdbc.dto.OrderStatusChange;
+import com.example.shardingjdbc.dto.PartialResult;
 import com.example.shardingjdbc.entity.Order;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 订单服务接口
@@ -16,6 +21,20 @@ public interface OrderService {
      */
     Order createOrder(Order order);
     
+    /**
+     * 批量创建订单，按数据节点分组后各库并行写入，同一库的订单在一个事务中提交
+     * @param orders 订单列表
+     * @return 每个订单的处理结果，顺序与请求一致
+     */
+    List<BatchItemResult<Order>> createOrders(List<Order> orders);
+    
+    /**
+     * 批量更新订单状态，按数据节点分组后各库并行执行，同一节点同一状态的订单合并为一条UPDATE
+     * @param changes 状态变更列表
+     * @return 每个订单的处理结果，顺序与请求一致
+     */
+    List<BatchItemResult<OrderStatusChange>> updateOrderStatuses(List<OrderStatusChange> changes);
+    
     /**
      * 根据订单ID查询订单
      * @param orderId 订单ID
@@ -23,6 +42,13 @@ public interface OrderService {
      */
     Order getOrderById(Long orderId);
     
+    /**
+     * 根据订单ID列表批量查询订单，按数据节点分组后每个节点执行一次IN查询
+     * @param orderIds 订单ID列表
+     * @return 与请求顺序一致的订单列表，不存在的订单为null
+     */
+    List<Order> getOrdersByIds(List<Long> orderIds);
+    
     /**
      * 根据用户ID查询订单列表
      * @param userId 用户ID
@@ -44,7 +70,20 @@ public interface OrderService {
     List<Order> getAllOrders();
     
     /**
-     * 更新订单信息
+     * 查询所有订单的部分结果，只归并在单分片时限内返回的数据节点
+     * @return 按创建时间倒序的订单和缺失的数据节点
+     */
+    PartialResult<Order> getAllOrdersPartial();
+    
+    /**
+     * 流式导出所有订单，按创建时间倒序逐条回调，不在内存中保存全部订单
+     * @param consumer 订单处理回调
+     * @return 导出数量
+     */
+    long exportAllOrders(Consumer<Order> consumer);
+    
+    /**
+     * 更新订单信息，携带版本号时按版本比较后写入，版本不一致抛出OptimisticLockingFailureException
      * @param order 订单信息
      * @return 更新后的订单信息
      */
@@ -65,6 +104,22 @@ public interface OrderService {
      */
     List<Order> getOrdersByPage(int pageNum, int pageSize);
     
+    /**
+     * 分页查询订单的部分结果，只归并在单分片时限内返回的数据节点，总数为已返回数据源上的计数之和
+     * @param pageNum 页码
+     * @param pageSize 每页大小
+     * @return 当前页订单、总数和缺失的数据节点
+     */
+    PartialResult<Order> getOrdersByPagePartial(int pageNum, int pageSize);
+    
+    /**
+     * 按游标分页查询订单
+     * @param cursor 上一页返回的游标，为空时查询第一页
+     * @param pageSize 每页大小
+     * @return 游标分页结果
+     */
+    CursorPage<Order> getOrdersByCursor(String cursor, int pageSize);
+    
     /**
      * 获取订单总数
      * @return 订单总数
@@ -88,7 +143,7 @@ public interface OrderService {
     int getOrderCountByUserId(Long userId);
     
     /**
-     * 更新订单状态
+     * 按版本更新订单状态，版本冲突时重新读取后重试，已完成或已取消的订单不能变更状态
      * @param orderId 订单ID
      * @param status 订单状态
      * @return 是否更新成功
@@ -1,8 +1,11 @@
 package com.example.shardingjdbc.service;
 
+import com.example.shardingjdbc.dto.PartialResult;
 import com.example.shardingjdbc.entity.User;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * 用户服务接口
@@ -24,6 +27,13 @@ public interface UserService {
      */
     User getUserById(Long userId);
     
+    /**
+     * 根据用户ID列表批量查询用户，按数据节点分组后每个节点执行一次IN查询
+     * @param userIds 用户ID列表
+     * @return 与请求顺序一致的用户列表，不存在的用户为null
+     */
+    List<User> getUsersByIds(List<Long> userIds);
+    
     /**
      * 根据用户名查询用户
      * @param username 用户名
@@ -37,6 +47,13 @@ public interface UserService {
      */
     List<User> getAllUsers();
     
+    /**
+     * 流式导出所有用户，按创建时间倒序逐条回调，不在内存中保存全部用户
+     * @param consumer 用户处理回调
+     * @return 导出数量
+     */
+    long exportAllUsers(Consumer<User> consumer);
+    
     /**
      * 更新用户信息
      * @param user 用户信息
@@ -59,9 +76,23 @@ public interface UserService {
      */
     List<User> getUsersByPage(int pageNum, int pageSize);
     
+    /**
+     * 分页查询用户的部分结果，只归并在单分片时限内返回的数据节点，总数为已返回数据源上的计数之和
+     * @param pageNum 页码
+     * @param pageSize 每页大小
+     * @return 当前页用户、总数和缺失的数据节点
+     */
+    PartialResult<User> getUsersByPagePartial(int pageNum, int pageSize);
+    
     /**
      * 获取用户总数
      * @return 用户总数
      */
     int getUserCount();
+    
+    /**
+     * 获取用户缓存的命中、未命中和淘汰统计
+     * @return 缓存统计
+     */
+    Map<String, Object> getCacheStats();
 }
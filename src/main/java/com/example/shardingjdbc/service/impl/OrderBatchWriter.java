@@ -0,0 +1,166 @@
+package com.example.shardingjdbc.service.impl;
+
+import com.example.shardingjdbc.counter.RowCounterService;
+import com.example.shardingjdbc.dto.OrderStatusChange;
+import com.example.shardingjdbc.entity.Order;
+import com.example.shardingjdbc.mapper.OrderMapper;
+import com.example.shardingjdbc.resharding.ReshardingCoordinator;
+import com.example.shardingjdbc.resharding.ReshardingTable;
+import com.example.shardingjdbc.routing.PrimaryRoute;
+import com.example.shardingjdbc.sharding.DataNodeLocator;
+import com.google.common.collect.Lists;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shardingsphere.infra.datanode.DataNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 订单批量写入器
+ * 同一数据节点的订单合并为多行INSERT在一个事务中提交，或合并为按版本比较的UPDATE；
+ * 调用方应保证一批订单位于同一个库，否则事务跨库，只能保证各库分别提交
+ */
+@Slf4j
+@Component
+public class OrderBatchWriter {
+
+    /**
+     * 单条语句最多处理的行数，避免超过max_allowed_packet
+     */
+    private static final int MAX_ROWS_PER_STATEMENT = 200;
+
+    /**
+     * 按版本更新订单状态时，版本冲突后的最多尝试次数
+     */
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
+    /**
+     * 已完成、已取消为终态，不再允许变更状态
+     */
+    private static final Set<Integer> FINAL_STATUSES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(3, 4)));
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private RowCounterService rowCounterService;
+
+    @Autowired
+    private ReshardingCoordinator reshardingCoordinator;
+
+    @Autowired
+    private DataNodeLocator dataNodeLocator;
+
+    /**
+     * 在一个事务中写入一批已补全ID和订单号的订单
+     * @param orders 订单列表
+     */
+    @Transactional
+    public void insertAll(List<Order> orders) {
+        Map<DataNode, List<Order>> ordersByNode = new LinkedHashMap<>();
+        Map<Long, Integer> countsByUser = new HashMap<>();
+        for (Order each : orders) {
+            ordersByNode.computeIfAbsent(dataNodeLocator.orderNodeOf(each.getUserId()), key -> new ArrayList<>()).add(each);
+            countsByUser.merge(each.getUserId(), 1, Integer::sum);
+        }
+        for (List<Order> nodeOrders : ordersByNode.values()) {
+            for (List<Order> chunk : Lists.partition(nodeOrders, MAX_ROWS_PER_STATEMENT)) {
+                orderMapper.insertBatch(chunk);
+            }
+        }
+        rowCounterService.onOrdersInserted(countsByUser);
+        List<Long> orderIds = new ArrayList<>(orders.size());
+        for (Order each : orders) {
+            orderIds.add(each.getOrderId());
+        }
+        reshardingCoordinator.afterSavedAll(ReshardingTable.ORDER, orderIds);
+    }
+
+    /**
+     * 批量更新订单状态，同一数据节点、同一目标状态的订单合并为一条按版本比较的UPDATE
+     * 不加行锁：从主库读出状态和版本，已完成、已取消的订单不变更，其余订单按各自的版本写入，每条语句单独提交；
+     * 影响行数少于待写入的订单时重新读取，已按本次写入的版本变为目标状态的计为成功，其余有限次重试
+     * @param changes 状态变更列表
+     * @return 未能更新的订单ID到原因的映射，不在其中的订单已是目标状态
+     */
+    public Map<Long, String> updateStatuses(List<OrderStatusChange> changes) {
+        Map<DataNode, Map<Integer, List<Long>>> groups = new LinkedHashMap<>();
+        for (OrderStatusChange each : changes) {
+            groups.computeIfAbsent(dataNodeLocator.orderNodeOf(each.getUserId()), key -> new TreeMap<>())
+                    .computeIfAbsent(each.getStatus(), key -> new ArrayList<>()).add(each.getOrderId());
+        }
+        Map<Long, String> failures = new HashMap<>();
+        for (Map<Integer, List<Long>> statusGroups : groups.values()) {
+            for (Map.Entry<Integer, List<Long>> entry : statusGroups.entrySet()) {
+                for (List<Long> chunk : Lists.partition(entry.getValue(), MAX_ROWS_PER_STATEMENT)) {
+                    updateStatus(chunk, entry.getKey(), failures);
+                }
+            }
+        }
+        return failures;
+    }
+
+    private void updateStatus(List<Long> orderIds, Integer status, Map<Long, String> failures) {
+        List<Long> saved = new ArrayList<>(orderIds.size());
+        try {
+            updateStatus(orderIds, status, failures, saved);
+        } finally {
+            // 已提交的写入都要同步到新布局
+            reshardingCoordinator.afterSavedAll(ReshardingTable.ORDER, saved);
+        }
+    }
+
+    private void updateStatus(List<Long> orderIds, Integer status, Map<Long, String> failures, List<Long> saved) {
+        Collection<Long> pending = orderIds;
+        Map<Long, Integer> written = Collections.emptyMap();
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            Collection<Long> readIds = pending;
+            Map<Long, Order> current = new HashMap<>();
+            for (Order each : PrimaryRoute.read(() -> orderMapper.selectStatuses(readIds))) {
+                current.put(each.getOrderId(), each);
+            }
+            Map<Long, Integer> versions = new LinkedHashMap<>();
+            for (Long each : pending) {
+                Order order = current.get(each);
+                if (order == null) {
+                    failures.put(each, "订单不存在");
+                } else if (status.equals(order.getStatus())) {
+                    // 上一次写入成功，或订单本来就是目标状态
+                    if (written.containsKey(each) && Integer.valueOf(written.get(each) + 1).equals(order.getVersion())) {
+                        saved.add(each);
+                    }
+                } else if (FINAL_STATUSES.contains(order.getStatus())) {
+                    failures.put(each, "订单已完成或已取消，不能变更状态");
+                } else if (attempt > MAX_UPDATE_ATTEMPTS) {
+                    failures.put(each, "订单状态并发修改过于频繁，请稍后重试");
+                } else {
+                    versions.put(each, order.getVersion());
+                }
+            }
+            if (versions.isEmpty()) {
+                return;
+            }
+            if (orderMapper.updateStatusBatch(versions, status, LocalDateTime.now()) == versions.size()) {
+                saved.addAll(versions.keySet());
+                return;
+            }
+            // 影响行数无法区分具体订单，重新读取确认
+            log.warn("订单状态批量更新版本冲突，第{}次尝试", attempt);
+            pending = new ArrayList<>(versions.keySet());
+            written = versions;
+        }
+    }
+}
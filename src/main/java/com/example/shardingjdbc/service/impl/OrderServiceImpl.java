@@ -1,16 +1,59 @@
 package com.example.shardingjdbc.service.impl;
 
+import com.example.shardingjdbc.cache.SingleFlight;
+import com.example.shardingjdbc.counter.RowCounterService;
+import com.example.shardingjdbc.dto.BatchItemResult;
+import com.example.shardingjdbc.dto.CursorPage;
+import com.example.shardingjdbc.dto.OrderCursor;
+import com.example.shardingjdbc.dto.OrderStatusChange;
+import com.example.shardingjdbc.dto.PartialResult;
 import com.example.shardingjdbc.entity.Order;
+import com.example.shardingjdbc.guard.Deadline;
+import com.example.shardingjdbc.keygen.OrderIdGenerator;
 import com.example.shardingjdbc.mapper.OrderMapper;
+import com.example.shardingjdbc.resharding.ReshardingCoordinator;
+import com.example.shardingjdbc.resharding.ReshardingTable;
+import com.example.shardingjdbc.routing.ConsistencyContext;
+import com.example.shardingjdbc.routing.HedgedReader;
+import com.example.shardingjdbc.routing.PhysicalStatements;
+import com.example.shardingjdbc.routing.PrimaryRoute;
+import com.example.shardingjdbc.routing.ReadFromReplica;
 import com.example.shardingjdbc.service.OrderService;
+import com.example.shardingjdbc.sharding.DataNodeLocator;
+import com.example.shardingjdbc.sharding.OrderNoCodec;
+import com.example.shardingjdbc.sharding.ShardingGene;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.shardingsphere.infra.datanode.DataNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 /**
  * 订单服务实现类
@@ -20,30 +63,96 @@ import java.util.UUID;
 @Transactional
 public class OrderServiceImpl implements OrderService {
     
+    /**
+     * 单次批量创建的订单数上限
+     */
+    private static final int MAX_BATCH_SIZE = 1000;
+    
+    /**
+     * 单次批量查询的订单数上限
+     */
+    private static final int MAX_MULTI_GET_SIZE = 200;
+    
+    /**
+     * 按版本更新订单或订单状态时，版本冲突后的最多尝试次数
+     */
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+    
+    /**
+     * 已完成、已取消为终态，不再允许变更状态
+     */
+    private static final Set<Integer> FINAL_STATUSES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(3, 4)));
+    
+    /**
+     * 直接查询物理表时的行映射，列名按下划线转驼峰映射，与OrderMapper.xml的结果映射一致
+     */
+    private static final RowMapper<Order> ORDER_ROW_MAPPER = BeanPropertyRowMapper.newInstance(Order.class);
+    
+    private static final Comparator<Order> CREATE_TIME_DESC = Comparator
+            .comparing(Order::getCreateTime, Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()))
+            .thenComparing(Order::getOrderId, Comparator.nullsLast(Comparator.<Long>reverseOrder()));
+    
     @Autowired
     private OrderMapper orderMapper;
     
+    @Autowired
+    private OrderIdGenerator orderIdGenerator;
+    
+    @Autowired
+    private ReshardingCoordinator reshardingCoordinator;
+    
+    @Autowired
+    private RowCounterService rowCounterService;
+    
+    @Autowired
+    private DataNodeLocator dataNodeLocator;
+    
+    @Autowired
+    private ExecutorService shardExecutor;
+    
+    @Autowired
+    private OrderBatchWriter orderBatchWriter;
+    
+    @Autowired
+    private OrderWriteCoalescer orderWriteCoalescer;
+    
+    @Autowired
+    private PartialScatterReader partialScatterReader;
+    
+    @Autowired
+    private HedgedReader hedgedReader;
+    
+    @Autowired
+    private PhysicalStatements physicalStatements;
+    
+    @Autowired
+    private StreamingMergeReader streamingMergeReader;
+    
+    private final SingleFlight<Long, Order> orderLookups = new SingleFlight<>();
+    
     @Override
     public Order createOrder(Order order) {
         log.info("创建订单，用户ID：{}，商品名称：{}", order.getUserId(), order.getProductName());
         
-        // 设置创建时间和更新时间
-        LocalDateTime now = LocalDateTime.now();
-        order.setCreateTime(now);
-        order.setUpdateTime(now);
-        
-        // 生成订单号
-        if (order.getOrderNo() == null || order.getOrderNo().isEmpty()) {
-            order.setOrderNo(generateOrderNo());
+        String error = validateKeys(order);
+        if (error != null) {
+            throw new IllegalArgumentException(error);
         }
+        prepareOrder(order);
         
-        // 设置默认状态为待支付
-        if (order.getStatus() == null) {
-            order.setStatus(0);
+        // 调用方没有外层事务时交给合并写入器，与并发请求合并为一次INSERT和提交
+        if (orderWriteCoalescer.isEnabled() && TransactionAspectSupport.currentTransactionStatus().isNewTransaction()) {
+            orderWriteCoalescer.write(order);
+            ConsistencyContext.recordWrite(dataNodeLocator.orderNodeOf(order.getUserId()).getDataSourceName());
+            log.info("订单创建成功（合并写入），订单ID：{}，订单号：{}", order.getOrderId(), order.getOrderNo());
+            return order;
         }
         
         int result = orderMapper.insert(order);
         if (result > 0) {
+            rowCounterService.onOrderInserted(order.getUserId());
+            reshardingCoordinator.afterSaved(ReshardingTable.ORDER, order.getOrderId());
+            ConsistencyContext.recordWrite(dataNodeLocator.orderNodeOf(order.getUserId()).getDataSourceName());
             log.info("订单创建成功，订单ID：{}，订单号：{}", order.getOrderId(), order.getOrderNo());
             return order;
         } else {
@@ -53,52 +162,322 @@ public class OrderServiceImpl implements OrderService {
     }
     
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BatchItemResult<Order>> createOrders(List<Order> orders) {
+        log.info("批量创建订单，数量：{}", orders.size());
+        if (orders.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("单次最多创建" + MAX_BATCH_SIZE + "个订单");
+        }
+        
+        List<BatchItemResult<Order>> results = new ArrayList<>(Collections.nCopies(orders.size(), null));
+        // 按订单所在的库分组，各库并行写入，库内再按数据节点合并为多行INSERT
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            String error = validate(order);
+            if (error != null) {
+                results.set(i, BatchItemResult.failure(i, error));
+                continue;
+            }
+            prepareOrder(order);
+            String dataSourceName = dataNodeLocator.orderNodeOf(order.getUserId()).getDataSourceName();
+            groups.computeIfAbsent(dataSourceName, key -> new ArrayList<>()).add(i);
+        }
+        Map<String, CompletableFuture<List<String>>> futures = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : groups.entrySet()) {
+            List<Order> databaseOrders = new ArrayList<>(entry.getValue().size());
+            for (Integer each : entry.getValue()) {
+                databaseOrders.add(orders.get(each));
+            }
+            futures.put(entry.getKey(), CompletableFuture.supplyAsync(Deadline.propagate(() -> insertEach(entry.getKey(), databaseOrders)), shardExecutor));
+        }
+        for (Map.Entry<String, CompletableFuture<List<String>>> entry : futures.entrySet()) {
+            CompletableFuture<List<String>> future = entry.getValue();
+            String error = await(future);
+            List<Integer> indexes = groups.get(entry.getKey());
+            if (error != null && !future.isDone()) {
+                // 写入仍在执行，可能已经提交，订单ID由服务端生成，按失败返回会让调用方重试出重复订单
+                log.warn("批量创建订单结果未知，数据库：{}，原因：{}", entry.getKey(), error);
+                ConsistencyContext.recordWrite(entry.getKey());
+                for (Integer each : indexes) {
+                    results.set(each, BatchItemResult.unknown(each,
+                            "数据库" + entry.getKey() + "写入结果未知：" + error + "，请按订单ID查询确认，不要重复提交", orders.get(each)));
+                }
+                continue;
+            }
+            if (error != null && future.isCompletedExceptionally()) {
+                log.error("批量创建订单失败，数据库：{}，原因：{}", entry.getKey(), error);
+            }
+            List<String> errors = future.isCompletedExceptionally() ? Collections.nCopies(indexes.size(), error) : future.join();
+            if (errors.contains(null)) {
+                ConsistencyContext.recordWrite(entry.getKey());
+            }
+            for (int i = 0; i < indexes.size(); i++) {
+                Integer each = indexes.get(i);
+                results.set(each, errors.get(i) == null
+                        ? BatchItemResult.success(each, orders.get(each))
+                        : BatchItemResult.failure(each, "数据库" + entry.getKey() + "写入失败：" + errors.get(i)));
+            }
+        }
+        return results;
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BatchItemResult<OrderStatusChange>> updateOrderStatuses(List<OrderStatusChange> changes) {
+        log.info("批量更新订单状态，数量：{}", changes.size());
+        if (changes.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("单次最多更新" + MAX_BATCH_SIZE + "个订单");
+        }
+        
+        List<BatchItemResult<OrderStatusChange>> results = new ArrayList<>(Collections.nCopies(changes.size(), null));
+        // 按订单所在的库分组，各库并行更新
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        Set<Long> orderIds = new HashSet<>();
+        for (int i = 0; i < changes.size(); i++) {
+            OrderStatusChange change = changes.get(i);
+            String error = validate(change);
+            if (error == null && !orderIds.add(change.getOrderId())) {
+                error = "订单ID重复";
+            }
+            if (error != null) {
+                results.set(i, BatchItemResult.failure(i, error));
+                continue;
+            }
+            String dataSourceName = dataNodeLocator.orderNodeOf(change.getUserId()).getDataSourceName();
+            groups.computeIfAbsent(dataSourceName, key -> new ArrayList<>()).add(i);
+        }
+        Map<String, CompletableFuture<Map<Long, String>>> futures = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : groups.entrySet()) {
+            List<OrderStatusChange> databaseChanges = new ArrayList<>(entry.getValue().size());
+            for (Integer each : entry.getValue()) {
+                databaseChanges.add(changes.get(each));
+            }
+            futures.put(entry.getKey(), CompletableFuture.supplyAsync(Deadline.propagate(() -> orderBatchWriter.updateStatuses(databaseChanges)), shardExecutor));
+        }
+        for (Map.Entry<String, CompletableFuture<Map<Long, String>>> entry : futures.entrySet()) {
+            CompletableFuture<Map<Long, String>> future = entry.getValue();
+            String error = await(future);
+            if (error != null && !future.isDone()) {
+                // 更新仍在执行，可能已经提交
+                log.warn("批量更新订单状态结果未知，数据库：{}，原因：{}", entry.getKey(), error);
+                ConsistencyContext.recordWrite(entry.getKey());
+                for (Integer each : groups.get(entry.getKey())) {
+                    results.set(each, BatchItemResult.unknown(each,
+                            "数据库" + entry.getKey() + "更新结果未知：" + error + "，请查询订单确认", changes.get(each)));
+                }
+                continue;
+            }
+            if (future.isCompletedExceptionally()) {
+                log.error("批量更新订单状态失败，数据库：{}，原因：{}", entry.getKey(), error);
+            } else {
+                error = null;
+                ConsistencyContext.recordWrite(entry.getKey());
+            }
+            Map<Long, String> failures = error == null ? future.join() : Collections.emptyMap();
+            for (Integer each : groups.get(entry.getKey())) {
+                OrderStatusChange change = changes.get(each);
+                if (error != null) {
+                    results.set(each, BatchItemResult.failure(each, "数据库" + entry.getKey() + "更新失败：" + error));
+                } else if (failures.containsKey(change.getOrderId())) {
+                    results.set(each, BatchItemResult.failure(each, failures.get(change.getOrderId())));
+                } else {
+                    results.set(each, BatchItemResult.success(each, change));
+                }
+            }
+        }
+        return results;
+    }
+    
+    @Override
+    @ReadFromReplica
     public Order getOrderById(Long orderId) {
         log.info("根据订单ID查询订单，订单ID：{}", orderId);
-        return orderMapper.selectById(orderId);
+        // 调用方已在事务中时直接查询，保证读到本事务的写入；必须读主库时不共享其他请求从从库读到的结果
+        if (TransactionSynchronizationManager.isActualTransactionActive() || ConsistencyContext.isPrimaryRequired()) {
+            return selectOrder(orderId);
+        }
+        // 并发查询同一订单时只执行一次查询，等待方不开启事务、不占用连接
+        return orderLookups.execute(orderId, () -> selectOrder(orderId));
     }
     
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<Order> getOrdersByIds(List<Long> orderIds) {
+        log.info("批量查询订单，数量：{}", orderIds.size());
+        if (orderIds.size() > MAX_MULTI_GET_SIZE) {
+            throw new IllegalArgumentException("单次最多查询" + MAX_MULTI_GET_SIZE + "个订单");
+        }
+        if (orderIds.contains(null)) {
+            throw new IllegalArgumentException("订单ID不能为空");
+        }
+        
+        Map<Long, Order> found = new HashMap<>();
+        if (reshardingCoordinator.isReadSwitched()) {
+            // 新布局按主键逐条读取
+            for (Long each : new LinkedHashSet<>(orderIds)) {
+                Order order = reshardingCoordinator.findOrder(each);
+                if (order != null) {
+                    found.put(each, order);
+                }
+            }
+        } else {
+            // 按数据节点分组，每个节点一条IN查询，各节点并行执行
+            Map<DataNode, Set<Long>> groups = new LinkedHashMap<>();
+            for (Long each : orderIds) {
+                groups.computeIfAbsent(dataNodeLocator.orderNodeOfOrderId(each), key -> new LinkedHashSet<>()).add(each);
+            }
+            List<CompletableFuture<List<Order>>> futures = new ArrayList<>(groups.size());
+            for (Set<Long> each : groups.values()) {
+                futures.add(CompletableFuture.supplyAsync(Deadline.propagate(PrimaryRoute.propagate(() -> orderMapper.selectByIds(each))), shardExecutor));
+            }
+            for (CompletableFuture<List<Order>> each : futures) {
+                for (Order order : join(each)) {
+                    found.put(order.getOrderId(), order);
+                }
+            }
+        }
+        List<Order> result = new ArrayList<>(orderIds.size());
+        for (Long each : orderIds) {
+            result.add(found.get(each));
+        }
+        return result;
+    }
+    
+    @Override
+    @ReadFromReplica
     public List<Order> getOrdersByUserId(Long userId) {
         log.info("根据用户ID查询订单列表，用户ID：{}", userId);
+        DataNode node = dataNodeLocator.orderNodeOf(userId);
+        if (hedgedReader.canHedge(node.getDataSourceName())) {
+            // 在该用户所在的物理表上执行 OrderMapper.selectByUserId，慢从库由另一个从库对冲
+            PhysicalStatements.Bound bound = physicalStatements.bind(OrderMapper.class, "selectByUserId", userId,
+                    ReshardingTable.ORDER.getLogicTable(), node.getTableName());
+            return hedgedReader.query("orders-by-user", node.getDataSourceName(), bound.getSql(), ORDER_ROW_MAPPER, bound.getArgs());
+        }
         return orderMapper.selectByUserId(userId);
     }
     
     @Override
+    @ReadFromReplica
     public Order getOrderByOrderNo(String orderNo) {
         log.info("根据订单号查询订单，订单号：{}", orderNo);
+        Long orderId = OrderNoCodec.decodeOrderId(orderNo);
+        if (orderId != null && reshardingCoordinator.isReadSwitched()) {
+            Order order = reshardingCoordinator.findOrder(orderId);
+            return order != null && orderNo.equals(order.getOrderNo()) ? order : null;
+        }
         return orderMapper.selectByOrderNo(orderNo);
     }
     
     @Override
+    @ReadFromReplica
     public List<Order> getAllOrders() {
         log.info("查询所有订单");
         return orderMapper.selectAll();
     }
     
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public PartialResult<Order> getAllOrdersPartial() {
+        log.info("查询所有订单（部分结果）");
+        PartialResult<Order> result = partialScatterReader.query(ReshardingTable.ORDER, OrderMapper.class, "selectAll", null, ORDER_ROW_MAPPER);
+        result.getData().sort(CREATE_TIME_DESC);
+        return result;
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long exportAllOrders(Consumer<Order> consumer) {
+        log.info("流式导出所有订单");
+        
+        long count = streamingMergeReader.forEach(ReshardingTable.ORDER, OrderMapper.class, "selectAllForExport",
+                ORDER_ROW_MAPPER, CREATE_TIME_DESC, consumer);
+        log.info("订单导出完成，数量：{}", count);
+        return count;
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Order updateOrder(Order order) {
         log.info("更新订单信息，订单ID：{}", order.getOrderId());
         
-        // 设置更新时间
-        order.setUpdateTime(LocalDateTime.now());
+        if (order.getVersion() != null) {
+            return updateOrderWithVersion(order);
+        }
         
-        int result = orderMapper.update(order);
-        if (result > 0) {
-            log.info("订单更新成功，订单ID：{}", order.getOrderId());
-            return orderMapper.selectById(order.getOrderId());
-        } else {
-            log.error("订单更新失败，订单ID：{}", order.getOrderId());
+        // 调用方未携带版本：不加行锁，从主库读出当前行，按其版本写入，写入成功时当前行合并提交的字段就是写入后的行；
+        // 版本冲突时重新读取，每条语句单独提交
+        for (int attempt = 1; attempt <= MAX_UPDATE_ATTEMPTS; attempt++) {
+            Order current = PrimaryRoute.read(() -> orderMapper.selectById(order.getOrderId()));
+            if (current == null) {
+                log.error("订单更新失败，订单不存在，订单ID：{}", order.getOrderId());
+                throw new RuntimeException("订单更新失败");
+            }
+            checkStatusChange(order, current);
+            
+            order.setUpdateTime(LocalDateTime.now());
+            order.setVersion(current.getVersion());
+            if (orderMapper.update(order) > 0) {
+                onOrderUpdated(order.getOrderId());
+                return merge(current, order);
+            }
+            log.warn("订单更新版本冲突，订单ID：{}，第{}次尝试", order.getOrderId(), attempt);
+        }
+        throw new OptimisticLockingFailureException("订单并发修改过于频繁，请稍后重试");
+    }
+    
+    /**
+     * 按调用方携带的版本直接写入，成功时调用方的实体加上新版本就是写入后的行，不再读取；
+     * 只有写入失败时才从主库读取，区分订单不存在、已完成或已取消和版本冲突
+     */
+    private Order updateOrderWithVersion(Order order) {
+        Integer expectedVersion = order.getVersion();
+        order.setUpdateTime(LocalDateTime.now());
+        if (orderMapper.update(order) > 0) {
+            onOrderUpdated(order.getOrderId());
+            order.setVersion(expectedVersion + 1);
+            return order;
+        }
+        Order current = PrimaryRoute.read(() -> orderMapper.selectById(order.getOrderId()));
+        if (current == null) {
+            log.error("订单更新失败，订单不存在，订单ID：{}", order.getOrderId());
             throw new RuntimeException("订单更新失败");
         }
+        checkStatusChange(order, current);
+        log.warn("订单版本冲突，订单ID：{}，版本：{}", order.getOrderId(), expectedVersion);
+        throw new OptimisticLockingFailureException("订单已被修改，请刷新后重试");
+    }
+    
+    /**
+     * 已完成、已取消的订单不能变更为其他状态
+     */
+    private void checkStatusChange(Order order, Order current) {
+        if (order.getStatus() != null && !order.getStatus().equals(current.getStatus())
+                && FINAL_STATUSES.contains(current.getStatus())) {
+            throw new IllegalStateException("订单已完成或已取消，不能变更状态");
+        }
+    }
+    
+    private void onOrderUpdated(Long orderId) {
+        reshardingCoordinator.afterSaved(ReshardingTable.ORDER, orderId);
+        ConsistencyContext.recordWrite(dataNodeLocator.orderNodeOfOrderId(orderId).getDataSourceName());
+        log.info("订单更新成功，订单ID：{}", orderId);
     }
     
     @Override
     public boolean deleteOrder(Long orderId) {
         log.info("删除订单，订单ID：{}", orderId);
         
+        // 先查出所属用户，用于维护用户订单计数
+        Order existing = orderMapper.selectById(orderId);
         int result = orderMapper.deleteById(orderId);
         if (result > 0) {
+            if (existing != null) {
+                rowCounterService.onOrderDeleted(existing.getUserId());
+            }
+            reshardingCoordinator.afterDeleted(ReshardingTable.ORDER, orderId);
+            ConsistencyContext.recordWrite(dataNodeLocator.orderNodeOfOrderId(orderId).getDataSourceName());
             log.info("订单删除成功，订单ID：{}", orderId);
             return true;
         } else {
@@ -108,6 +487,7 @@ public class OrderServiceImpl implements OrderService {
     }
     
     @Override
+    @ReadFromReplica
     public List<Order> getOrdersByPage(int pageNum, int pageSize) {
         log.info("分页查询订单，页码：{}，每页大小：{}", pageNum, pageSize);
         
@@ -116,12 +496,46 @@ public class OrderServiceImpl implements OrderService {
     }
     
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public PartialResult<Order> getOrdersByPagePartial(int pageNum, int pageSize) {
+        log.info("分页查询订单（部分结果），页码：{}，每页大小：{}", pageNum, pageSize);
+        
+        int offset = (pageNum - 1) * pageSize;
+        return partialScatterReader.page(ReshardingTable.ORDER, OrderMapper.class, "selectByPage",
+                ORDER_ROW_MAPPER, CREATE_TIME_DESC, offset, pageSize);
+    }
+    
+    @Override
+    @ReadFromReplica
+    public CursorPage<Order> getOrdersByCursor(String cursor, int pageSize) {
+        log.info("游标分页查询订单，游标：{}，每页大小：{}", cursor, pageSize);
+        
+        OrderCursor position = OrderCursor.decode(cursor);
+        // 多取一条用于判断是否还有下一页
+        List<Order> orders = position == null
+                ? orderMapper.selectByCursor(null, null, pageSize + 1)
+                : orderMapper.selectByCursor(position.getCreateTime(), position.getOrderId(), pageSize + 1);
+        boolean hasMore = orders.size() > pageSize;
+        if (hasMore) {
+            orders = orders.subList(0, pageSize);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            Order last = orders.get(orders.size() - 1);
+            nextCursor = new OrderCursor(last.getCreateTime(), last.getOrderId()).encode();
+        }
+        return new CursorPage<>(orders, nextCursor, hasMore);
+    }
+    
+    @Override
+    @ReadFromReplica
     public int getOrderCount() {
         log.info("查询订单总数");
-        return orderMapper.countAll();
+        return (int) rowCounterService.countOrders();
     }
     
     @Override
+    @ReadFromReplica
     public List<Order> getOrdersByUserIdAndPage(Long userId, int pageNum, int pageSize) {
         log.info("根据用户ID分页查询订单，用户ID：{}，页码：{}，每页大小：{}", userId, pageNum, pageSize);
         
@@ -130,35 +544,250 @@ public class OrderServiceImpl implements OrderService {
     }
     
     @Override
+    @ReadFromReplica
     public int getOrderCountByUserId(Long userId) {
         log.info("根据用户ID查询订单总数，用户ID：{}", userId);
-        return orderMapper.countByUserId(userId);
+        return (int) rowCounterService.countOrdersByUserId(userId);
     }
     
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean updateOrderStatus(Long orderId, Integer status) {
         log.info("更新订单状态，订单ID：{}，状态：{}", orderId, status);
         
-        Order order = new Order();
-        order.setOrderId(orderId);
-        order.setStatus(status);
-        order.setUpdateTime(LocalDateTime.now());
+        // 不加行锁：读出当前版本后按版本写入，冲突时重新读取，每条语句单独提交
+        for (int attempt = 1; attempt <= MAX_UPDATE_ATTEMPTS; attempt++) {
+            // 从主库读取当前版本，不受从库延迟影响
+            Order current = PrimaryRoute.read(() -> orderMapper.selectById(orderId));
+            if (current == null) {
+                log.error("订单状态更新失败，订单不存在，订单ID：{}", orderId);
+                return false;
+            }
+            if (status.equals(current.getStatus())) {
+                return true;
+            }
+            if (FINAL_STATUSES.contains(current.getStatus())) {
+                throw new IllegalStateException("订单已完成或已取消，不能变更状态");
+            }
+            
+            Order order = new Order();
+            order.setOrderId(orderId);
+            order.setStatus(status);
+            order.setUpdateTime(LocalDateTime.now());
+            order.setVersion(current.getVersion());
+            if (orderMapper.update(order) > 0) {
+                reshardingCoordinator.afterSaved(ReshardingTable.ORDER, orderId);
+                ConsistencyContext.recordWrite(dataNodeLocator.orderNodeOfOrderId(orderId).getDataSourceName());
+                log.info("订单状态更新成功，订单ID：{}，状态：{}", orderId, status);
+                return true;
+            }
+            log.warn("订单状态更新版本冲突，订单ID：{}，第{}次尝试", orderId, attempt);
+        }
+        throw new OptimisticLockingFailureException("订单状态并发修改过于频繁，请稍后重试");
+    }
+    
+    /**
+     * 按订单ID查询订单，扩容读切换后从新分片布局读取
+     * @param orderId 订单ID
+     * @return 订单
+     */
+    private Order selectOrder(Long orderId) {
+        if (reshardingCoordinator.isReadSwitched()) {
+            return reshardingCoordinator.findOrder(orderId);
+        }
+        return orderMapper.selectById(orderId);
+    }
+    
+    /**
+     * 补全订单的时间、ID、订单号和默认状态
+     * @param order 订单信息
+     */
+    private void prepareOrder(Order order) {
+        // 设置创建时间和更新时间
+        LocalDateTime now = LocalDateTime.now();
+        order.setCreateTime(now);
+        order.setUpdateTime(now);
         
-        int result = orderMapper.update(order);
-        if (result > 0) {
-            log.info("订单状态更新成功，订单ID：{}，状态：{}", orderId, status);
-            return true;
-        } else {
-            log.error("订单状态更新失败，订单ID：{}，状态：{}", orderId, status);
-            return false;
+        // 生成携带用户分片基因的订单ID，使按订单ID查询只路由到一个分片
+        if (order.getOrderId() == null) {
+            order.setOrderId(orderIdGenerator.nextId(order.getUserId()));
+        }
+        
+        // 生成携带分片坐标的订单号，使按订单号查询只路由到一个分片
+        if (order.getOrderNo() == null || order.getOrderNo().isEmpty()) {
+            order.setOrderNo(generateOrderNo(order));
+        }
+        
+        // 设置默认状态为待支付
+        if (order.getStatus() == null) {
+            order.setStatus(0);
+        }
+        
+        // 新订单的版本号由表默认值0开始
+        order.setVersion(0);
+    }
+    
+    /**
+     * 校验批量创建的订单
+     * @param order 订单信息
+     * @return 错误信息，校验通过时返回null
+     */
+    private String validate(Order order) {
+        if (order == null) {
+            return "订单不能为空";
+        }
+        if (order.getUserId() == null) {
+            return "用户ID不能为空";
+        }
+        if (order.getProductName() == null || order.getProductName().isEmpty()) {
+            return "商品名称不能为空";
+        }
+        if (order.getQuantity() == null || order.getQuantity() <= 0) {
+            return "商品数量必须大于0";
+        }
+        if (order.getAmount() == null) {
+            return "订单金额不能为空";
+        }
+        return validateKeys(order);
+    }
+    
+    /**
+     * 校验调用方指定的订单ID和订单号
+     * @param order 订单信息
+     * @return 错误信息，校验通过时返回null
+     */
+    private String validateKeys(Order order) {
+        // 订单ID携带用户分片基因，不一致时订单写入用户所在的节点，按订单ID却路由到另一个节点
+        if (order.getOrderId() != null && order.getUserId() != null
+                && ShardingGene.ofOrderId(order.getOrderId()) != ShardingGene.ofUserId(order.getUserId())) {
+            return "订单ID与用户ID不匹配";
+        }
+        // 可路由格式的订单号按其中的订单ID路由，必须与订单ID一致；其他格式的订单号不参与路由
+        Long encodedOrderId = OrderNoCodec.decodeOrderId(order.getOrderNo());
+        if (encodedOrderId != null && !encodedOrderId.equals(order.getOrderId())) {
+            return "订单号与订单ID不匹配";
+        }
+        return null;
+    }
+    
+    /**
+     * 校验批量状态变更
+     * @param change 状态变更
+     * @return 错误信息，校验通过时返回null
+     */
+    private String validate(OrderStatusChange change) {
+        if (change == null || change.getUserId() == null || change.getOrderId() == null || change.getStatus() == null) {
+            return "用户ID、订单ID和状态不能为空";
+        }
+        // 订单ID携带用户分片基因，不一致时按用户ID定位的节点上找不到该订单
+        if (ShardingGene.ofOrderId(change.getOrderId()) != ShardingGene.ofUserId(change.getUserId())) {
+            return "订单ID与用户ID不匹配";
+        }
+        return null;
+    }
+    
+    /**
+     * 写入一个库的订单，批量写入失败时逐个重试，只让出错的订单失败
+     * @param dataSourceName 数据库
+     * @param orders 同一个库的订单
+     * @return 与订单一一对应的错误信息，写入成功的为null
+     */
+    private List<String> insertEach(String dataSourceName, List<Order> orders) {
+        try {
+            orderBatchWriter.insertAll(orders);
+            return Collections.nCopies(orders.size(), null);
+        } catch (RuntimeException e) {
+            if (orders.size() == 1) {
+                return Collections.singletonList(e.getMessage());
+            }
+            log.warn("批量写入{}个订单失败，改为逐个写入，数据库：{}", orders.size(), dataSourceName, e);
+        }
+        List<String> errors = new ArrayList<>(orders.size());
+        for (Order each : orders) {
+            try {
+                orderBatchWriter.insertAll(Collections.singletonList(each));
+                errors.add(null);
+            } catch (RuntimeException e) {
+                errors.add(e.getMessage());
+            }
+        }
+        return errors;
+    }
+    
+    /**
+     * 等待任务完成，当前线程有处理时限时最多等待到时限
+     * @param future 任务
+     * @return 错误信息，成功时返回null；超时或被中断时任务可能仍在执行
+     */
+    private String await(Future<?> future) {
+        Deadline deadline = Deadline.current();
+        try {
+            if (deadline == null) {
+                future.get();
+            } else {
+                future.get(deadline.remainingMillis(), TimeUnit.MILLISECONDS);
+            }
+            return null;
+        } catch (TimeoutException e) {
+            // 任务带着同一时限执行，到期时语句被取消，不再等待；任务可能已经提交，调用方按结果未知处理
+            return "请求已超过处理时限";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "等待写入被中断";
+        } catch (ExecutionException e) {
+            return e.getCause().getMessage();
+        }
+    }
+    
+    /**
+     * 等待分片查询结果，查询异常原样抛出
+     * @param future 分片查询
+     * @return 查询结果
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * 把更新提交的字段合并到更新前的行上，得到按版本写入后的行
+     * @param current 更新前的行
+     * @param patch 已写入的字段
+     * @return 合并后的订单
+     */
+    private static Order merge(Order current, Order patch) {
+        if (patch.getProductName() != null) {
+            current.setProductName(patch.getProductName());
+        }
+        if (patch.getQuantity() != null) {
+            current.setQuantity(patch.getQuantity());
+        }
+        if (patch.getAmount() != null) {
+            current.setAmount(patch.getAmount());
+        }
+        if (patch.getStatus() != null) {
+            current.setStatus(patch.getStatus());
+        }
+        if (patch.getRemark() != null) {
+            current.setRemark(patch.getRemark());
         }
+        current.setUpdateTime(patch.getUpdateTime());
+        current.setVersion(current.getVersion() + 1);
+        return current;
     }
     
     /**
      * 生成订单号
+     * @param order 订单信息
      * @return 订单号
      */
-    private String generateOrderNo() {
-        return "ORDER" + System.currentTimeMillis() + UUID.randomUUID().toString().replace("-", "").substring(0, 8);
+    private String generateOrderNo(Order order) {
+        return OrderNoCodec.encode(order.getOrderId(), order.getCreateTime().toLocalDate());
     }
 }
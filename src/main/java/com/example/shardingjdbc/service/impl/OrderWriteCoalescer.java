@@ -0,0 +1,215 @@
+package com.example.shardingjdbc.service.impl;
+
+import com.example.shardingjdbc.entity.Order;
+import com.example.shardingjdbc.guard.Deadline;
+import com.example.shardingjdbc.guard.DeadlineExceededException;
+import com.example.shardingjdbc.sharding.DataNodeLocator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 订单写入合并器（组提交）
+ * 每个库一个写入线程，收到第一个订单后最多等待一个时间窗口，把窗口内到达的订单合并为一批，
+ * 按数据节点生成多行INSERT并只提交一次事务，再逐个唤醒调用方；
+ * 批量写入失败时逐个重试，只让出错的订单失败
+ */
+@Slf4j
+@Component
+public class OrderWriteCoalescer {
+
+    private final OrderBatchWriter orderBatchWriter;
+
+    private final DataNodeLocator dataNodeLocator;
+
+    private final boolean enabled;
+
+    private final long maxWaitNanos;
+
+    private final int maxBatchSize;
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    private volatile boolean running = true;
+
+    public OrderWriteCoalescer(OrderBatchWriter orderBatchWriter, DataNodeLocator dataNodeLocator,
+                               @Value("${order-write-coalescer.enabled:false}") boolean enabled,
+                               @Value("${order-write-coalescer.max-wait-micros:500}") long maxWaitMicros,
+                               @Value("${order-write-coalescer.max-batch-size:100}") int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("合并写入的批量大小必须大于0");
+        }
+        this.orderBatchWriter = orderBatchWriter;
+        this.dataNodeLocator = dataNodeLocator;
+        this.enabled = enabled;
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 提交订单并等待所在批次提交完成，当前线程有处理时限时最多等待到时限
+     * @param order 已补全ID和订单号的订单
+     * @throws DeadlineExceededException 超过处理时限，订单仍在队列中时不再写入，已开始写入时结果未知
+     */
+    public void write(Order order) {
+        if (!running) {
+            throw new IllegalStateException("订单写入合并器已关闭");
+        }
+        Deadline deadline = Deadline.current();
+        if (deadline != null) {
+            deadline.checkNotExpired();
+        }
+        String dataSourceName = dataNodeLocator.orderNodeOf(order.getUserId()).getDataSourceName();
+        Lane lane = lanes.computeIfAbsent(dataSourceName, Lane::new);
+        PendingOrder pending = lane.submit(order);
+        try {
+            if (deadline == null) {
+                pending.future.get();
+            } else {
+                pending.future.get(deadline.remainingMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (TimeoutException e) {
+            if (lane.queue.remove(pending)) {
+                throw new DeadlineExceededException("等待订单写入超过处理时限，订单未写入，订单ID：" + order.getOrderId());
+            }
+            throw new DeadlineExceededException("等待订单写入超过处理时限，写入结果未知，订单ID：" + order.getOrderId());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待订单写入被中断，订单ID：" + order.getOrderId(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("订单写入失败，订单ID：" + order.getOrderId(), e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        for (Lane each : lanes.values()) {
+            each.thread.interrupt();
+        }
+    }
+
+    private void flush(List<PendingOrder> batch) {
+        List<Order> orders = new ArrayList<>(batch.size());
+        for (PendingOrder each : batch) {
+            orders.add(each.order);
+        }
+        try {
+            orderBatchWriter.insertAll(orders);
+            for (PendingOrder each : batch) {
+                each.future.complete(null);
+            }
+            return;
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).future.completeExceptionally(e);
+                return;
+            }
+            log.warn("合并写入{}个订单失败，改为逐个写入", batch.size(), e);
+        }
+        for (PendingOrder each : batch) {
+            try {
+                orderBatchWriter.insertAll(Collections.singletonList(each.order));
+                each.future.complete(null);
+            } catch (RuntimeException e) {
+                each.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 等待写入的订单
+     */
+    private static final class PendingOrder {
+
+        private final Order order;
+
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingOrder(Order order) {
+            this.order = order;
+        }
+    }
+
+    /**
+     * 单个库的写入队列，调用方都在同步等待结果，队列长度不会超过并发请求数
+     */
+    private final class Lane implements Runnable {
+
+        private final BlockingQueue<PendingOrder> queue = new LinkedBlockingQueue<>();
+
+        private final Thread thread;
+
+        private Lane(String dataSourceName) {
+            this.thread = new Thread(this, "order-write-coalescer-" + dataSourceName);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        private PendingOrder submit(Order order) {
+            PendingOrder pending = new PendingOrder(order);
+            queue.add(pending);
+            return pending;
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                List<PendingOrder> batch = new ArrayList<>(maxBatchSize);
+                try {
+                    batch.add(queue.take());
+                    collect(batch);
+                } catch (InterruptedException e) {
+                    failAll(batch, e);
+                    break;
+                }
+                flush(batch);
+            }
+            List<PendingOrder> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            failAll(remaining, new IllegalStateException("订单写入合并器已关闭"));
+        }
+
+        /**
+         * 在时间窗口内继续收集订单，窗口结束后再取走已到达的订单，直到达到批量上限
+         */
+        private void collect(List<PendingOrder> batch) throws InterruptedException {
+            long deadline = System.nanoTime() + maxWaitNanos;
+            while (batch.size() < maxBatchSize) {
+                long remaining = deadline - System.nanoTime();
+                PendingOrder next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                if (next == null) {
+                    break;
+                }
+                batch.add(next);
+            }
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+
+        private void failAll(List<PendingOrder> batch, Exception cause) {
+            for (PendingOrder each : batch) {
+                each.future.completeExceptionally(cause);
+            }
+        }
+    }
+}
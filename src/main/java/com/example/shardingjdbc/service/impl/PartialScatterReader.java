@@ -0,0 +1,287 @@
+package com.example.shardingjdbc.service.impl;
+
+import com.example.shardingjdbc.dto.PartialResult;
+import com.example.shardingjdbc.guard.Deadline;
+import com.example.shardingjdbc.guard.ShardGuards;
+import com.example.shardingjdbc.mapper.RowCounterMapper;
+import com.example.shardingjdbc.resharding.ReshardingTable;
+import com.example.shardingjdbc.resharding.SourceLayout;
+import com.example.shardingjdbc.routing.ConsistencyContext;
+import com.example.shardingjdbc.routing.PhysicalDataSources;
+import com.example.shardingjdbc.routing.PhysicalStatements;
+import com.example.shardingjdbc.routing.ReadwriteTopology;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shardingsphere.infra.datanode.DataNode;
+import org.apache.shardingsphere.infra.hint.HintManager;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * 部分结果模式的分片查询
+ * 绕过ShardingSphere的全分片归并，在分片线程池中直接在每个数据节点的物理表上执行映射语句，
+ * 只等待单分片时限，超时、失败或已熔断的数据节点记为缺失，由调用方对已返回的数据归并；
+ * 读从库，当前请求必须读主库时读主库；到时限仍在执行的语句被取消，不在分片线程池中继续占用连接
+ */
+@Slf4j
+@Component
+public class PartialScatterReader {
+
+    private static final String COUNTER_TABLE = "t_shard_counter";
+
+    private final SourceLayout sourceLayout;
+
+    private final PhysicalDataSources physicalDataSources;
+
+    private final PhysicalStatements physicalStatements;
+
+    private final ReadwriteTopology readwriteTopology;
+
+    private final ShardGuards shardGuards;
+
+    private final ExecutorService shardExecutor;
+
+    private final long shardTimeoutMillis;
+
+    public PartialScatterReader(SourceLayout sourceLayout, PhysicalDataSources physicalDataSources,
+                                PhysicalStatements physicalStatements, ReadwriteTopology readwriteTopology, ShardGuards shardGuards,
+                                @Qualifier("shardExecutor") ExecutorService shardExecutor,
+                                @Value("${partial-scatter.shard-timeout-millis:500}") long shardTimeoutMillis) {
+        this.sourceLayout = sourceLayout;
+        this.physicalDataSources = physicalDataSources;
+        this.physicalStatements = physicalStatements;
+        this.readwriteTopology = readwriteTopology;
+        this.shardGuards = shardGuards;
+        this.shardExecutor = shardExecutor;
+        this.shardTimeoutMillis = shardTimeoutMillis;
+    }
+
+    /**
+     * 在逻辑表的每个数据节点上执行映射语句
+     * @param table 逻辑表
+     * @param mapperType Mapper接口
+     * @param statement 语句ID
+     * @param parameter 语句参数
+     * @param rowMapper 行映射
+     * @return 已返回的数据节点上的数据（未排序）和缺失的数据节点
+     */
+    public <T> PartialResult<T> query(ReshardingTable table, Class<?> mapperType, String statement, Object parameter,
+                                      RowMapper<T> rowMapper) {
+        Scatter scatter = new Scatter();
+        Map<DataNode, NodeQuery<T>> queries = scatter.submit(sourceLayout.nodesOf(table),
+                tableName -> physicalStatements.bind(mapperType, statement, parameter, table.getLogicTable(), tableName), rowMapper);
+        List<String> missingNodes = new ArrayList<>();
+        List<T> data = new ArrayList<>();
+        scatter.collect(queries, missingNodes).values().forEach(data::addAll);
+        return new PartialResult<>(data, null, missingNodes);
+    }
+
+    /**
+     * 分页查询逻辑表，同时按槽位计数汇总已返回的数据节点上的总数
+     * 每个数据节点按排序取前 offset + limit 行，归并后截取当前页；
+     * 槽位计数按槽位所在的数据节点汇总，只计入已返回的数据节点，计数未返回的数据源另行列出
+     * @param table 逻辑表
+     * @param mapperType Mapper接口
+     * @param statement 分页语句ID，参数为offset和limit，排序与comparator一致
+     * @param rowMapper 行映射
+     * @param comparator 与SQL一致的排序
+     * @param offset 偏移量
+     * @param limit 每页大小
+     * @return 当前页、已返回的数据节点上的总数、缺失的数据节点和计数缺失的数据源
+     */
+    public <T> PartialResult<T> page(ReshardingTable table, Class<?> mapperType, String statement, RowMapper<T> rowMapper,
+                                     Comparator<T> comparator, int offset, int limit) {
+        List<DataNode> counterNodes = new ArrayList<>();
+        for (DataNode each : sourceLayout.nodesOf(ReshardingTable.USER)) {
+            counterNodes.add(new DataNode(each.getDataSourceName(), COUNTER_TABLE));
+        }
+        Scatter scatter = new Scatter();
+        Map<String, Object> pageParameter = new HashMap<>();
+        pageParameter.put("offset", 0);
+        pageParameter.put("limit", offset + limit);
+        Map<DataNode, NodeQuery<T>> rowQueries = scatter.submit(sourceLayout.nodesOf(table),
+                tableName -> physicalStatements.bind(mapperType, statement, pageParameter, table.getLogicTable(), tableName), rowMapper);
+        Map<DataNode, NodeQuery<long[]>> countQueries = scatter.submit(counterNodes,
+                tableName -> physicalStatements.bind(RowCounterMapper.class, "selectSlotCounts",
+                        Collections.singletonMap("tableName", table.getLogicTable()), COUNTER_TABLE, tableName),
+                (rs, rowNum) -> new long[]{rs.getInt("slot"), rs.getLong("row_count")});
+
+        List<String> missingNodes = new ArrayList<>();
+        Map<DataNode, List<T>> returned = scatter.collect(rowQueries, missingNodes);
+        List<String> missingCounters = new ArrayList<>();
+        long total = 0;
+        for (Map.Entry<DataNode, List<long[]>> entry : scatter.collect(countQueries, missingCounters).entrySet()) {
+            for (long[] each : entry.getValue()) {
+                if (returned.containsKey(sourceLayout.nodeOfSlot(table, (int) each[0]))) {
+                    total += each[1];
+                }
+            }
+        }
+        List<T> rows = new ArrayList<>();
+        returned.values().forEach(rows::addAll);
+        rows.sort(comparator);
+        List<T> data = offset >= rows.size() ? new ArrayList<>() : new ArrayList<>(rows.subList(offset, Math.min(rows.size(), offset + limit)));
+        List<String> missingCounterSources = new ArrayList<>();
+        for (String each : missingCounters) {
+            missingCounterSources.add(each.substring(0, each.indexOf('.')));
+        }
+        return new PartialResult<>(data, total, missingNodes, missingCounterSources);
+    }
+
+    /**
+     * 一次分片查询：提交时确定读库和时限，收集时所有数据节点共用同一个到期时间
+     */
+    private class Scatter {
+
+        private final long timeoutMillis;
+
+        private final long deadlineNanos;
+
+        private final int queryTimeoutSeconds;
+
+        private final boolean primary;
+
+        Scatter() {
+            long millis = shardTimeoutMillis;
+            Deadline deadline = Deadline.current();
+            if (deadline != null) {
+                millis = Math.min(millis, deadline.remainingMillis());
+            }
+            this.timeoutMillis = millis;
+            this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+            // JDBC查询超时只能精确到秒，到期由collect取消语句，查询超时只作为兜底
+            this.queryTimeoutSeconds = (int) Math.max(1L, (millis + 999L) / 1000L);
+            this.primary = ConsistencyContext.isPrimaryRequired() || HintManager.isWriteRouteOnly();
+        }
+
+        <T> Map<DataNode, NodeQuery<T>> submit(List<DataNode> nodes, Function<String, PhysicalStatements.Bound> statement,
+                                               RowMapper<T> rowMapper) {
+            Map<DataNode, NodeQuery<T>> result = new LinkedHashMap<>();
+            for (DataNode each : nodes) {
+                NodeQuery<T> query = new NodeQuery<>(readDataSourceOf(each.getDataSourceName(), primary), statement.apply(each.getTableName()),
+                        queryTimeoutSeconds, rowMapper);
+                query.future = shardExecutor.submit(query::execute);
+                result.put(each, query);
+            }
+            return result;
+        }
+
+        /**
+         * @return 已返回的数据节点到数据的映射，未返回的数据节点加入missingNodes
+         */
+        <T> Map<DataNode, List<T>> collect(Map<DataNode, NodeQuery<T>> queries, List<String> missingNodes) {
+            Map<DataNode, List<T>> result = new LinkedHashMap<>();
+            for (Map.Entry<DataNode, NodeQuery<T>> entry : queries.entrySet()) {
+                String node = entry.getKey().getDataSourceName() + "." + entry.getKey().getTableName();
+                NodeQuery<T> query = entry.getValue();
+                try {
+                    result.put(entry.getKey(), query.future.get(Math.max(0L, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS));
+                } catch (TimeoutException e) {
+                    query.cancel();
+                    log.warn("数据节点未在时限内返回，记为缺失：{}，时限：{}ms", node, timeoutMillis);
+                    missingNodes.add(node);
+                } catch (ExecutionException e) {
+                    log.warn("数据节点查询失败，记为缺失：{}，原因：{}", node, e.getCause().getMessage());
+                    missingNodes.add(node);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    query.cancel();
+                    missingNodes.add(node);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 一个数据节点上的查询，取消时放弃尚未开始的查询并取消执行中的语句
+     */
+    private class NodeQuery<T> {
+
+        private final String dataSourceName;
+
+        private final PhysicalStatements.Bound bound;
+
+        private final int queryTimeoutSeconds;
+
+        private final RowMapper<T> rowMapper;
+
+        private final AtomicReference<Statement> statement = new AtomicReference<>();
+
+        private volatile boolean cancelled;
+
+        private Future<List<T>> future;
+
+        NodeQuery(String dataSourceName, PhysicalStatements.Bound bound, int queryTimeoutSeconds, RowMapper<T> rowMapper) {
+            this.dataSourceName = dataSourceName;
+            this.bound = bound;
+            this.queryTimeoutSeconds = queryTimeoutSeconds;
+            this.rowMapper = rowMapper;
+        }
+
+        List<T> execute() {
+            if (cancelled) {
+                return Collections.emptyList();
+            }
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(physicalDataSources.jdbcTemplate(dataSourceName).getDataSource());
+            jdbcTemplate.setQueryTimeout(queryTimeoutSeconds);
+            return shardGuards.call(dataSourceName, () -> jdbcTemplate.query(connection -> {
+                PreparedStatement preparedStatement = connection.prepareStatement(bound.getSql());
+                statement.set(preparedStatement);
+                // 语句创建期间被取消时不再执行，结果已无人等待
+                if (cancelled) {
+                    preparedStatement.close();
+                    throw new SQLException("查询已取消");
+                }
+                return preparedStatement;
+            }, new ArgumentPreparedStatementSetter(bound.getArgs()), new RowMapperResultSetExtractor<>(rowMapper)));
+        }
+
+        void cancel() {
+            cancelled = true;
+            future.cancel(false);
+            Statement current = statement.get();
+            if (current != null) {
+                try {
+                    current.cancel();
+                } catch (SQLException e) {
+                    log.debug("取消数据节点的查询失败，读库：{}", dataSourceName, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 选择逻辑数据源的读库：必须读主库或未配置从库时读主库，否则随机选择一个从库
+     */
+    private String readDataSourceOf(String logicalName, boolean primary) {
+        List<String> replicas = readwriteTopology.replicasOf(logicalName);
+        if (primary || replicas.isEmpty()) {
+            return readwriteTopology.primaryOf(logicalName);
+        }
+        return replicas.get(ThreadLocalRandom.current().nextInt(replicas.size()));
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.shardingjdbc.service.impl;
+
+import com.example.shardingjdbc.resharding.ReshardingTable;
+import com.example.shardingjdbc.resharding.SourceLayout;
+import com.example.shardingjdbc.routing.PhysicalDataSources;
+import com.example.shardingjdbc.routing.PhysicalStatements;
+import com.example.shardingjdbc.routing.ReadwriteTopology;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shardingsphere.infra.datanode.DataNode;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * 流式归并读取
+ * 在逻辑表的每个物理表上执行同一条映射语句，按语句上的fetchSize和resultSetType流式读取结果集，
+ * 再按排序对各物理表的当前行做多路归并，内存占用只与物理表数量和驱动每次读取的行数有关，与数据量无关；
+ * 流式读取只作用于这里执行的语句，不改变数据源和ShardingSphere的全局配置。读从库，未配置从库时读主库
+ */
+@Slf4j
+@Component
+public class StreamingMergeReader {
+
+    private final SourceLayout sourceLayout;
+
+    private final PhysicalDataSources physicalDataSources;
+
+    private final PhysicalStatements physicalStatements;
+
+    private final ReadwriteTopology readwriteTopology;
+
+    public StreamingMergeReader(SourceLayout sourceLayout, PhysicalDataSources physicalDataSources,
+                                PhysicalStatements physicalStatements, ReadwriteTopology readwriteTopology) {
+        this.sourceLayout = sourceLayout;
+        this.physicalDataSources = physicalDataSources;
+        this.physicalStatements = physicalStatements;
+        this.readwriteTopology = readwriteTopology;
+    }
+
+    /**
+     * 按排序遍历逻辑表上映射语句的全部结果
+     * @param table 逻辑表
+     * @param mapperType Mapper接口
+     * @param statement 无参数的语句ID，排序必须与comparator一致
+     * @param rowMapper 行映射
+     * @param comparator 与语句一致的排序
+     * @param consumer 逐行处理
+     * @return 行数
+     */
+    public <T> long forEach(ReshardingTable table, Class<?> mapperType, String statement, RowMapper<T> rowMapper,
+                            Comparator<T> comparator, Consumer<T> consumer) {
+        List<NodeStream<T>> streams = new ArrayList<>();
+        PriorityQueue<NodeStream<T>> heads = new PriorityQueue<>((left, right) -> comparator.compare(left.current, right.current));
+        String sql = null;
+        try {
+            for (DataNode each : sourceLayout.nodesOf(table)) {
+                PhysicalStatements.Bound bound = physicalStatements.bind(mapperType, statement, null,
+                        table.getLogicTable(), each.getTableName());
+                sql = bound.getSql();
+                NodeStream<T> stream = new NodeStream<>(rowMapper);
+                streams.add(stream);
+                stream.open(readDataSourceOf(each.getDataSourceName()), bound);
+                if (stream.next()) {
+                    heads.add(stream);
+                }
+            }
+            long count = 0;
+            while (!heads.isEmpty()) {
+                NodeStream<T> head = heads.poll();
+                consumer.accept(head.current);
+                count++;
+                if (head.next()) {
+                    heads.add(head);
+                }
+            }
+            return count;
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("流式读取" + table.getLogicTable(), sql, e);
+        } finally {
+            for (NodeStream<T> each : streams) {
+                each.close();
+            }
+        }
+    }
+
+    private String readDataSourceOf(String logicalName) {
+        List<String> replicas = readwriteTopology.replicasOf(logicalName);
+        if (replicas.isEmpty()) {
+            return readwriteTopology.primaryOf(logicalName);
+        }
+        return replicas.get(ThreadLocalRandom.current().nextInt(replicas.size()));
+    }
+
+    /**
+     * 一个物理表上的只读结果集，遍历期间占用一个连接
+     */
+    private class NodeStream<T> {
+
+        private final RowMapper<T> rowMapper;
+
+        private Connection connection;
+
+        private PreparedStatement statement;
+
+        private ResultSet resultSet;
+
+        private int rowNum;
+
+        private boolean exhausted;
+
+        private T current;
+
+        NodeStream(RowMapper<T> rowMapper) {
+            this.rowMapper = rowMapper;
+        }
+
+        void open(String dataSourceName, PhysicalStatements.Bound bound) throws SQLException {
+            connection = physicalDataSources.jdbcTemplate(dataSourceName).getDataSource().getConnection();
+            statement = connection.prepareStatement(bound.getSql(), bound.getResultSetType(), ResultSet.CONCUR_READ_ONLY);
+            if (bound.getFetchSize() != null) {
+                statement.setFetchSize(bound.getFetchSize());
+            }
+            new ArgumentPreparedStatementSetter(bound.getArgs()).setValues(statement);
+            resultSet = statement.executeQuery();
+        }
+
+        boolean next() throws SQLException {
+            if (!resultSet.next()) {
+                exhausted = true;
+                return false;
+            }
+            current = rowMapper.mapRow(resultSet, rowNum++);
+            return true;
+        }
+
+        void close() {
+            // 流式结果集未读完时关闭，驱动要先读完剩余的行，提前结束时先取消语句
+            try {
+                if (resultSet != null && !exhausted) {
+                    statement.cancel();
+                }
+            } catch (SQLException e) {
+                log.debug("取消流式读取的语句失败", e);
+            }
+            for (AutoCloseable each : new AutoCloseable[]{resultSet, statement, connection}) {
+                if (each != null) {
+                    try {
+                        each.close();
+                    } catch (Exception e) {
+                        log.debug("关闭流式读取的资源失败", e);
+                    }
+                }
+            }
+        }
+    }
+}
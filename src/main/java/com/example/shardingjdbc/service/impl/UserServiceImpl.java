@@ -1,15 +1,46 @@
 package com.example.shardingjdbc.service.impl;
 
+import com.example.shardingjdbc.cache.SingleFlight;
+import com.example.shardingjdbc.cache.UserCache;
+import com.example.shardingjdbc.counter.RowCounterService;
+import com.example.shardingjdbc.dto.PartialResult;
 import com.example.shardingjdbc.entity.User;
+import com.example.shardingjdbc.guard.Deadline;
+import com.example.shardingjdbc.keygen.SegmentIdGenerator;
 import com.example.shardingjdbc.mapper.UserMapper;
+import com.example.shardingjdbc.mapper.UsernameIndexMapper;
+import com.example.shardingjdbc.resharding.ReshardingCoordinator;
+import com.example.shardingjdbc.resharding.ReshardingTable;
+import com.example.shardingjdbc.routing.ConsistencyContext;
+import com.example.shardingjdbc.routing.PrimaryRoute;
+import com.example.shardingjdbc.routing.ReadFromReplica;
 import com.example.shardingjdbc.service.UserService;
+import com.example.shardingjdbc.sharding.DataNodeLocator;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.shardingsphere.infra.datanode.DataNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 
 /**
  * 用户服务实现类
@@ -19,9 +50,57 @@ import java.util.List;
 @Transactional
 public class UserServiceImpl implements UserService {
     
+    /**
+     * 用户ID号段的业务标识
+     */
+    private static final String USER_ID_BIZ_TAG = "user_id";
+    
+    /**
+     * 单次批量查询的用户数上限
+     */
+    private static final int MAX_MULTI_GET_SIZE = 200;
+    
+    /**
+     * 直接查询物理表时的行映射，列名按下划线转驼峰映射，与UserMapper.xml的结果映射一致
+     */
+    private static final RowMapper<User> USER_ROW_MAPPER = BeanPropertyRowMapper.newInstance(User.class);
+    
+    private static final Comparator<User> CREATE_TIME_DESC = Comparator
+            .comparing(User::getCreateTime, Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()))
+            .thenComparing(User::getUserId, Comparator.nullsLast(Comparator.<Long>reverseOrder()));
+    
     @Autowired
     private UserMapper userMapper;
     
+    @Autowired
+    private UsernameIndexMapper usernameIndexMapper;
+    
+    @Autowired
+    private SegmentIdGenerator segmentIdGenerator;
+    
+    @Autowired
+    private ReshardingCoordinator reshardingCoordinator;
+    
+    @Autowired
+    private RowCounterService rowCounterService;
+    
+    @Autowired
+    private UserCache userCache;
+    
+    @Autowired
+    private DataNodeLocator dataNodeLocator;
+    
+    @Autowired
+    private ExecutorService shardExecutor;
+    
+    @Autowired
+    private PartialScatterReader partialScatterReader;
+    
+    @Autowired
+    private StreamingMergeReader streamingMergeReader;
+    
+    private final SingleFlight<Long, User> userLookups = new SingleFlight<>();
+    
     @Override
     public User createUser(User user) {
         log.info("创建用户，用户名：{}", user.getUsername());
@@ -31,13 +110,27 @@ public class UserServiceImpl implements UserService {
         user.setCreateTime(now);
         user.setUpdateTime(now);
         
+        // 从号段中分配全局唯一的用户ID，保证插入时能按user_id路由
+        if (user.getUserId() == null) {
+            user.setUserId(segmentIdGenerator.nextId(USER_ID_BIZ_TAG));
+        }
+        
         // 设置默认状态为启用
         if (user.getStatus() == null) {
             user.setStatus(1);
         }
         
+        // 先写用户名全局索引，主键冲突说明用户名已在任一分片中被占用
+        insertUsernameIndex(user.getUsername(), user.getUserId());
+        
         int result = userMapper.insert(user);
         if (result > 0) {
+            rowCounterService.onUserInserted(user.getUserId());
+            reshardingCoordinator.afterSaved(ReshardingTable.USER, user.getUserId());
+            ConsistencyContext.recordWrite(dataNodeLocator.userNodeOf(user.getUserId()).getDataSourceName());
+            // 清除此前缓存的不存在结果
+            userCache.evictUser(user.getUserId());
+            userCache.evictUsername(user.getUsername());
             log.info("用户创建成功，用户ID：{}", user.getUserId());
             return user;
         } else {
@@ -47,34 +140,126 @@ public class UserServiceImpl implements UserService {
     }
     
     @Override
+    @ReadFromReplica
     public User getUserById(Long userId) {
         log.info("根据用户ID查询用户，用户ID：{}", userId);
-        return userMapper.selectById(userId);
+        // 不开启事务，命中缓存时不占用数据库连接
+        return userCache.getUser(userId, () -> loadUser(userId));
     }
     
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<User> getUsersByIds(List<Long> userIds) {
+        log.info("批量查询用户，数量：{}", userIds.size());
+        if (userIds.size() > MAX_MULTI_GET_SIZE) {
+            throw new IllegalArgumentException("单次最多查询" + MAX_MULTI_GET_SIZE + "个用户");
+        }
+        if (userIds.contains(null)) {
+            throw new IllegalArgumentException("用户ID不能为空");
+        }
+        
+        Map<Long, User> found = new HashMap<>();
+        if (reshardingCoordinator.isReadSwitched()) {
+            // 新布局按主键逐条读取
+            for (Long each : new LinkedHashSet<>(userIds)) {
+                User user = reshardingCoordinator.findUser(each);
+                if (user != null) {
+                    found.put(each, user);
+                }
+            }
+        } else {
+            // 按数据节点分组，每个节点一条IN查询，各节点并行执行
+            Map<DataNode, Set<Long>> groups = new LinkedHashMap<>();
+            for (Long each : userIds) {
+                groups.computeIfAbsent(dataNodeLocator.userNodeOf(each), key -> new LinkedHashSet<>()).add(each);
+            }
+            List<CompletableFuture<List<User>>> futures = new ArrayList<>(groups.size());
+            for (Set<Long> each : groups.values()) {
+                futures.add(CompletableFuture.supplyAsync(Deadline.propagate(PrimaryRoute.propagate(() -> userMapper.selectByIds(each))), shardExecutor));
+            }
+            for (CompletableFuture<List<User>> each : futures) {
+                for (User user : join(each)) {
+                    found.put(user.getUserId(), user);
+                }
+            }
+        }
+        List<User> result = new ArrayList<>(userIds.size());
+        for (Long each : userIds) {
+            result.add(found.get(each));
+        }
+        return result;
+    }
+    
+    @Override
+    @ReadFromReplica
     public User getUserByUsername(String username) {
         log.info("根据用户名查询用户，用户名：{}", username);
-        return userMapper.selectByUsername(username);
+        
+        // 先查用户名索引定位user_id，再按user_id单分片查询，避免广播到所有数据源
+        Long userId = userCache.getUserId(username, () -> PrimaryRoute.read(() -> usernameIndexMapper.selectUserIdByUsername(username)));
+        if (userId == null) {
+            return null;
+        }
+        return userCache.getUser(userId, () -> loadUser(userId));
     }
     
     @Override
+    @ReadFromReplica
     public List<User> getAllUsers() {
         log.info("查询所有用户");
         return userMapper.selectAll();
     }
     
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long exportAllUsers(Consumer<User> consumer) {
+        log.info("流式导出所有用户");
+        
+        long count = streamingMergeReader.forEach(ReshardingTable.USER, UserMapper.class, "selectAllForExport",
+                USER_ROW_MAPPER, CREATE_TIME_DESC, consumer);
+        log.info("用户导出完成，数量：{}", count);
+        return count;
+    }
+    
     @Override
     public User updateUser(User user) {
         log.info("更新用户信息，用户ID：{}", user.getUserId());
         
+        // 不加行锁：只有提交了用户名时才从主库读出当前行维护全局索引，其余情况直接执行一条UPDATE
+        User existing = null;
+        if (user.getUsername() != null) {
+            existing = PrimaryRoute.read(() -> userMapper.selectById(user.getUserId()));
+            if (existing == null) {
+                log.error("用户更新失败，用户不存在，用户ID：{}", user.getUserId());
+                throw new RuntimeException("用户更新失败");
+            }
+        }
+        
         // 设置更新时间
         user.setUpdateTime(LocalDateTime.now());
         
-        int result = userMapper.update(user);
+        int result;
+        if (existing != null && !user.getUsername().equals(existing.getUsername())) {
+            // 用户名变更时同步维护全局索引，UPDATE以读到的旧用户名为条件，并发改名时不会留下错误的索引
+            insertUsernameIndex(user.getUsername(), user.getUserId());
+            usernameIndexMapper.deleteByUsername(existing.getUsername());
+            result = userMapper.updateIfUsername(user, existing.getUsername());
+            if (result == 0) {
+                log.warn("用户名已被并发修改，用户ID：{}", user.getUserId());
+                throw new OptimisticLockingFailureException("用户已被修改，请刷新后重试");
+            }
+            userCache.evictUsername(existing.getUsername());
+            userCache.evictUsername(user.getUsername());
+        } else {
+            result = userMapper.update(user);
+        }
         if (result > 0) {
+            reshardingCoordinator.afterSaved(ReshardingTable.USER, user.getUserId());
+            ConsistencyContext.recordWrite(dataNodeLocator.userNodeOf(user.getUserId()).getDataSourceName());
+            userCache.evictUser(user.getUserId());
             log.info("用户更新成功，用户ID：{}", user.getUserId());
-            return userMapper.selectById(user.getUserId());
+            // 读过当前行时合并提交的字段返回完整的行，否则返回提交的字段
+            return existing != null ? merge(existing, user) : user;
         } else {
             log.error("用户更新失败，用户ID：{}", user.getUserId());
             throw new RuntimeException("用户更新失败");
@@ -85,8 +270,17 @@ public class UserServiceImpl implements UserService {
     public boolean deleteUser(Long userId) {
         log.info("删除用户，用户ID：{}", userId);
         
+        User existing = userMapper.selectById(userId);
         int result = userMapper.deleteById(userId);
         if (result > 0) {
+            rowCounterService.onUserDeleted(userId);
+            reshardingCoordinator.afterDeleted(ReshardingTable.USER, userId);
+            ConsistencyContext.recordWrite(dataNodeLocator.userNodeOf(userId).getDataSourceName());
+            userCache.evictUser(userId);
+            if (existing != null) {
+                usernameIndexMapper.deleteByUsername(existing.getUsername());
+                userCache.evictUsername(existing.getUsername());
+            }
             log.info("用户删除成功，用户ID：{}", userId);
             return true;
         } else {
@@ -96,6 +290,7 @@ public class UserServiceImpl implements UserService {
     }
     
     @Override
+    @ReadFromReplica
     public List<User> getUsersByPage(int pageNum, int pageSize) {
         log.info("分页查询用户，页码：{}，每页大小：{}", pageNum, pageSize);
         
@@ -104,8 +299,106 @@ public class UserServiceImpl implements UserService {
     }
     
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public PartialResult<User> getUsersByPagePartial(int pageNum, int pageSize) {
+        log.info("分页查询用户（部分结果），页码：{}，每页大小：{}", pageNum, pageSize);
+        
+        int offset = (pageNum - 1) * pageSize;
+        return partialScatterReader.page(ReshardingTable.USER, UserMapper.class, "selectByPage",
+                USER_ROW_MAPPER, CREATE_TIME_DESC, offset, pageSize);
+    }
+    
+    @Override
+    @ReadFromReplica
     public int getUserCount() {
         log.info("查询用户总数");
-        return userMapper.countAll();
+        return (int) rowCounterService.countUsers();
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Map<String, Object> getCacheStats() {
+        return userCache.stats();
+    }
+    
+    /**
+     * 缓存未命中时从主库加载用户，避免把从库上的旧数据放入缓存；并发加载同一用户时只执行一次查询
+     * @param userId 用户ID
+     * @return 用户
+     */
+    private User loadUser(Long userId) {
+        // 调用方已在事务中时直接查询，保证读到本事务的写入；必须读主库时不共享其他请求的加载结果
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return selectUser(userId);
+        }
+        if (ConsistencyContext.isPrimaryRequired()) {
+            return PrimaryRoute.read(() -> selectUser(userId));
+        }
+        return userLookups.execute(userId, () -> PrimaryRoute.read(() -> selectUser(userId)));
+    }
+    
+    /**
+     * 按用户ID查询用户，扩容读切换后从新分片布局读取
+     * @param userId 用户ID
+     * @return 用户
+     */
+    private User selectUser(Long userId) {
+        if (reshardingCoordinator.isReadSwitched()) {
+            return reshardingCoordinator.findUser(userId);
+        }
+        return userMapper.selectById(userId);
+    }
+    
+    /**
+     * 等待分片查询结果，查询异常原样抛出
+     * @param future 分片查询
+     * @return 查询结果
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * 插入用户名全局索引
+     * @param username 用户名
+     * @param userId 用户ID
+     */
+    private void insertUsernameIndex(String username, Long userId) {
+        try {
+            usernameIndexMapper.insert(username, userId);
+        } catch (DuplicateKeyException e) {
+            log.error("用户名已存在，用户名：{}", username);
+            throw new RuntimeException("用户名已存在：" + username);
+        }
+    }
+
+    /**
+     * 把更新内容中的非空字段合并到原记录上
+     */
+    private static User merge(User existing, User patch) {
+        if (patch.getUsername() != null) {
+            existing.setUsername(patch.getUsername());
+        }
+        if (patch.getPassword() != null) {
+            existing.setPassword(patch.getPassword());
+        }
+        if (patch.getEmail() != null) {
+            existing.setEmail(patch.getEmail());
+        }
+        if (patch.getPhone() != null) {
+            existing.setPhone(patch.getPhone());
+        }
+        if (patch.getStatus() != null) {
+            existing.setStatus(patch.getStatus());
+        }
+        existing.setUpdateTime(patch.getUpdateTime());
+        return existing;
     }
 }
@@ -0,0 +1,60 @@
+package com.example.shardingjdbc.sharding;
+
+import com.google.common.collect.Range;
+import lombok.Getter;
+import org.apache.shardingsphere.sharding.api.sharding.complex.ComplexKeysShardingAlgorithm;
+import org.apache.shardingsphere.sharding.api.sharding.complex.ComplexKeysShardingValue;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 按用户分片基因路由的订单分片算法
+ * 基因取自user_id，缺少user_id时取自order_id或订单号；user_id或order_id为区间条件时按区间逐值计算基因，
+ * 都无法解析时路由到全部目标。订单表同时按三个列路由，因此实现为复合分片算法而不是标准分片算法
+ */
+public abstract class AbstractOrderGeneShardingAlgorithm implements ComplexKeysShardingAlgorithm<Comparable<?>> {
+
+    @Getter
+    private Properties props;
+
+    @Override
+    public void init(Properties props) {
+        this.props = props;
+    }
+
+    @Override
+    public Collection<String> doSharding(Collection<String> availableTargetNames,
+                                         ComplexKeysShardingValue<Comparable<?>> shardingValue) {
+        Collection<Integer> genes = OrderShardingKeys.resolveGenes(shardingValue.getColumnNameAndShardingValuesMap());
+        if (genes != null) {
+            Collection<String> result = new LinkedHashSet<>();
+            for (Integer each : genes) {
+                result.add(targetOf(availableTargetNames, each));
+            }
+            return result;
+        }
+        Map<String, Range<Comparable<?>>> ranges = shardingValue.getColumnNameAndRangeValuesMap();
+        Range<Comparable<?>> userIdRange = ShardingTargets.findColumn(ranges, OrderShardingKeys.USER_ID_COLUMN);
+        if (userIdRange != null) {
+            return ShardingTargets.byKeyRange(availableTargetNames, userIdRange,
+                    userId -> targetOf(availableTargetNames, ShardingGene.ofUserId(userId)));
+        }
+        Range<Comparable<?>> orderIdRange = ShardingTargets.findColumn(ranges, OrderShardingKeys.ORDER_ID_COLUMN);
+        if (orderIdRange != null) {
+            return ShardingTargets.byKeyRange(availableTargetNames, orderIdRange,
+                    orderId -> targetOf(availableTargetNames, ShardingGene.ofOrderId(orderId)));
+        }
+        return availableTargetNames;
+    }
+
+    /**
+     * 计算基因对应的目标
+     * @param availableTargetNames 可用目标名称
+     * @param gene 用户分片基因
+     * @return 目标名称
+     */
+    protected abstract String targetOf(Collection<String> availableTargetNames, int gene);
+}
@@ -0,0 +1,82 @@
+package com.example.shardingjdbc.sharding;
+
+import org.apache.shardingsphere.infra.datanode.DataNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Properties;
+
+/**
+ * 数据节点定位器
+ * 读取订单分库算法的槽位映射配置，在应用层按与分片算法相同的规则计算订单所在的数据节点，
+ * 用于批量读写前按节点分组；实际路由仍由ShardingSphere完成，分组不准确只影响批量效率；
+ * 用户表与订单表使用同一份槽位映射
+ */
+@Component
+public class DataNodeLocator {
+
+    private static final String ORDER_DB_ALGORITHM_PROPS = "spring.shardingsphere.rules.sharding.sharding-algorithms.order-db-algorithm.props";
+
+    private final SlotMapping slotMapping;
+
+    private final int orderTableCount;
+
+    public DataNodeLocator(Environment environment,
+                           @Value("${resharding.source-order-table-count:2}") int orderTableCount) {
+        Properties props = new Properties();
+        props.putAll(Binder.get(environment)
+                .bind(ORDER_DB_ALGORITHM_PROPS, Bindable.mapOf(String.class, String.class))
+                .orElse(Collections.emptyMap()));
+        this.slotMapping = SlotMapping.load(props);
+        this.orderTableCount = orderTableCount;
+    }
+
+    /**
+     * 计算用户订单所在的数据节点
+     * @param userId 用户ID
+     * @return 数据节点
+     */
+    public DataNode orderNodeOf(long userId) {
+        return orderNodeOfGene(ShardingGene.ofUserId(userId));
+    }
+
+    /**
+     * 根据订单ID中的用户基因计算订单所在的数据节点
+     * @param orderId 订单ID
+     * @return 数据节点
+     */
+    public DataNode orderNodeOfOrderId(long orderId) {
+        return orderNodeOfGene(ShardingGene.ofOrderId(orderId));
+    }
+
+    /**
+     * 计算用户所在的数据节点
+     * @param userId 用户ID
+     * @return 数据节点
+     */
+    public DataNode userNodeOf(long userId) {
+        return userNodeOfGene(ShardingGene.ofUserId(userId));
+    }
+
+    /**
+     * 计算分片基因（槽位）对应的订单数据节点
+     * @param gene 分片基因
+     * @return 数据节点
+     */
+    public DataNode orderNodeOfGene(int gene) {
+        return new DataNode(slotMapping.nodeOf(gene), "t_order_" + ShardingGene.hash(gene) % orderTableCount);
+    }
+
+    /**
+     * 计算分片基因（槽位）对应的用户数据节点
+     * @param gene 分片基因
+     * @return 数据节点
+     */
+    public DataNode userNodeOfGene(int gene) {
+        return new DataNode(slotMapping.nodeOf(gene), "t_user");
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.shardingjdbc.sharding;
+
+import java.util.Collection;
+import java.util.Properties;
+
+/**
+ * 订单表分库算法
+ * 按用户分片基因路由（支持=、IN、BETWEEN），基因即槽位，与用户表共用同一份槽位映射表，
+ * 保证按用户ID、订单ID、订单号的读写只落到一个库
+ */
+public class OrderDatabaseShardingAlgorithm extends AbstractOrderGeneShardingAlgorithm {
+
+    private SlotMapping slotMapping;
+
+    @Override
+    public void init(Properties props) {
+        super.init(props);
+        this.slotMapping = SlotMapping.load(props);
+    }
+
+    @Override
+    protected String targetOf(Collection<String> availableTargetNames, int gene) {
+        return slotMapping.route(availableTargetNames, gene);
+    }
+
+    @Override
+    public String getType() {
+        return "ORDER_DB_GENE";
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.shardingjdbc.sharding;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 订单号编解码工具类
+ * 订单号格式：ORDER + 8位日期 + 19位补零的订单ID，订单ID中携带分库基因和分表位，
+ * 因此仅凭订单号即可解析出分片坐标
+ */
+public final class OrderNoCodec {
+
+    private static final String PREFIX = "ORDER";
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final int DATE_LENGTH = 8;
+
+    private static final int ORDER_ID_LENGTH = 19;
+
+    private static final int LENGTH = PREFIX.length() + DATE_LENGTH + ORDER_ID_LENGTH;
+
+    private OrderNoCodec() {
+    }
+
+    /**
+     * 生成订单号
+     * @param orderId 订单ID
+     * @param date 下单日期
+     * @return 订单号
+     */
+    public static String encode(long orderId, LocalDate date) {
+        return PREFIX + date.format(DATE_FORMATTER) + String.format("%019d", orderId);
+    }
+
+    /**
+     * 从订单号中解析订单ID
+     * @param orderNo 订单号
+     * @return 订单ID，订单号不符合可路由格式时返回null
+     */
+    public static Long decodeOrderId(String orderNo) {
+        if (orderNo == null || orderNo.length() != LENGTH || !orderNo.startsWith(PREFIX)) {
+            return null;
+        }
+        for (int i = PREFIX.length(); i < LENGTH; i++) {
+            if (!Character.isDigit(orderNo.charAt(i))) {
+                return null;
+            }
+        }
+        try {
+            return Long.parseLong(orderNo.substring(LENGTH - ORDER_ID_LENGTH));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
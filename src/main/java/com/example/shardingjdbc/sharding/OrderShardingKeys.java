@@ -0,0 +1,77 @@
+package com.example.shardingjdbc.sharding;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * 订单分片键解析工具类
+ * 从user_id、order_id或可路由的order_no中解析出用户分片基因
+ */
+public final class OrderShardingKeys {
+
+    public static final String USER_ID_COLUMN = "user_id";
+
+    public static final String ORDER_ID_COLUMN = "order_id";
+
+    public static final String ORDER_NO_COLUMN = "order_no";
+
+    private OrderShardingKeys() {
+    }
+
+    /**
+     * 解析分片条件中的用户分片基因
+     * 优先取user_id的基因，缺少user_id时取order_id（或订单号中解析出的order_id）中的基因
+     * @param columnValues 列名与分片值映射
+     * @return 基因集合，无法解析时返回null
+     */
+    public static Collection<Integer> resolveGenes(Map<String, Collection<Comparable<?>>> columnValues) {
+        Collection<Comparable<?>> userIds = ShardingTargets.findColumn(columnValues, USER_ID_COLUMN);
+        if (userIds != null && !userIds.isEmpty()) {
+            Collection<Integer> result = new LinkedHashSet<>();
+            for (Comparable<?> each : userIds) {
+                result.add(ShardingGene.ofUserId(ShardingTargets.toLong(each)));
+            }
+            return result;
+        }
+        Collection<Long> orderIds = resolveOrderIds(columnValues);
+        if (orderIds == null) {
+            return null;
+        }
+        Collection<Integer> result = new LinkedHashSet<>();
+        for (Long each : orderIds) {
+            result.add(ShardingGene.ofOrderId(each));
+        }
+        return result;
+    }
+
+    /**
+     * 解析分片条件中的订单ID
+     * @param columnValues 列名与分片值映射
+     * @return 订单ID集合，无法解析时返回null
+     */
+    public static Collection<Long> resolveOrderIds(Map<String, Collection<Comparable<?>>> columnValues) {
+        Collection<Comparable<?>> orderIds = ShardingTargets.findColumn(columnValues, ORDER_ID_COLUMN);
+        if (orderIds != null && !orderIds.isEmpty()) {
+            Collection<Long> result = new ArrayList<>(orderIds.size());
+            for (Comparable<?> each : orderIds) {
+                result.add(ShardingTargets.toLong(each));
+            }
+            return result;
+        }
+        Collection<Comparable<?>> orderNos = ShardingTargets.findColumn(columnValues, ORDER_NO_COLUMN);
+        if (orderNos != null && !orderNos.isEmpty()) {
+            Collection<Long> result = new ArrayList<>(orderNos.size());
+            for (Comparable<?> each : orderNos) {
+                Long orderId = OrderNoCodec.decodeOrderId(each.toString());
+                if (orderId == null) {
+                    return null;
+                }
+                result.add(orderId);
+            }
+            return result;
+        }
+        return null;
+    }
+}
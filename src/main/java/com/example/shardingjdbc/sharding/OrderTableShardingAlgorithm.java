@@ -0,0 +1,21 @@
+package com.example.shardingjdbc.sharding;
+
+import java.util.Collection;
+
+/**
+ * 订单表分表算法
+ * 按用户分片基因的散列值取模分表，同一用户的订单落在同一张物理表中，
+ * 按用户查询订单只需扫描一张表；散列使分表结果与按基因低位的分库结果相互独立
+ */
+public class OrderTableShardingAlgorithm extends AbstractOrderGeneShardingAlgorithm {
+
+    @Override
+    protected String targetOf(Collection<String> availableTargetNames, int gene) {
+        return ShardingTargets.byMod(availableTargetNames, ShardingGene.hash(gene));
+    }
+
+    @Override
+    public String getType() {
+        return "ORDER_TABLE_GENE";
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.shardingjdbc.sharding;
+
+/**
+ * 分片基因工具类
+ * 取user_id的低10位作为基因，嵌入order_id的低位，使仅凭order_id即可定位用户所在分库
+ */
+public final class ShardingGene {
+
+    /**
+     * 基因位数，最多支持1024个分片
+     */
+    public static final int GENE_BITS = 10;
+
+    /**
+     * 基因掩码
+     */
+    public static final long GENE_MASK = ~(-1L << GENE_BITS);
+
+    private ShardingGene() {
+    }
+
+    /**
+     * 计算用户ID的分片基因
+     * @param userId 用户ID
+     * @return 分片基因
+     */
+    public static int ofUserId(long userId) {
+        return (int) (userId & GENE_MASK);
+    }
+
+    /**
+     * 从订单ID中提取分片基因
+     * @param orderId 订单ID
+     * @return 分片基因
+     */
+    public static int ofOrderId(long orderId) {
+        return (int) (orderId & GENE_MASK);
+    }
+
+    /**
+     * 去掉基因位后的订单ID高位部分
+     * @param orderId 订单ID
+     * @return 订单ID高位部分
+     */
+    public static long stripGene(long orderId) {
+        return orderId >>> GENE_BITS;
+    }
+
+    /**
+     * 计算基因的散列值，用于在库内选择分表
+     * 分库按基因低位映射槽位，分表对基因做斐波那契散列后取模，使分表结果与分库结果相互独立
+     * @param gene 分片基因
+     * @return 散列值
+     */
+    public static int hash(int gene) {
+        return (gene * 0x9E3779B1) >>> 16;
+    }
+
+    /**
+     * 将用户分片基因拼接到ID高位部分之后
+     * @param high 高位部分
+     * @param userId 用户ID
+     * @return 携带基因的ID
+     */
+    public static long compose(long high, long userId) {
+        return (high << GENE_BITS) | ofUserId(userId);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.shardingjdbc.sharding;
+
+import com.google.common.collect.BoundType;
+import com.google.common.collect.Range;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+/**
+ * 分片目标选择工具类
+ * 按目标名称的数字后缀（如ds1、t_order_1）选取目标
+ */
+public final class ShardingTargets {
+
+    private ShardingTargets() {
+    }
+
+    /**
+     * 按序号选取目标
+     * @param availableTargetNames 可用目标名称
+     * @param index 目标序号
+     * @return 目标名称
+     */
+    public static String byIndex(Collection<String> availableTargetNames, long index) {
+        for (String each : availableTargetNames) {
+            if (suffixOf(each) == index) {
+                return each;
+            }
+        }
+        throw new IllegalStateException("找不到分片目标，序号：" + index + "，可用目标：" + availableTargetNames);
+    }
+
+    /**
+     * 按取模结果选取目标
+     * @param availableTargetNames 可用目标名称
+     * @param value 分片值
+     * @return 目标名称
+     */
+    public static String byMod(Collection<String> availableTargetNames, long value) {
+        return byIndex(availableTargetNames, Math.floorMod(value, availableTargetNames.size()));
+    }
+
+    /**
+     * 按用户ID或订单ID区间选取目标
+     * 两者的分片基因都在低10位，连续的ID依次取遍各基因，跨度达到槽位数量时必然覆盖全部目标
+     * @param availableTargetNames 可用目标名称
+     * @param range 用户ID或订单ID区间
+     * @param targetOfKey 计算单个ID对应的目标
+     * @return 目标名称集合
+     */
+    public static Collection<String> byKeyRange(Collection<String> availableTargetNames, Range<Comparable<?>> range,
+                                                LongFunction<String> targetOfKey) {
+        if (!range.hasLowerBound() || !range.hasUpperBound()) {
+            return availableTargetNames;
+        }
+        return byRange(availableTargetNames, lowerOf(range), upperOf(range), targetOfKey);
+    }
+
+    /**
+     * 将分片值转换为long
+     * @param value 分片值
+     * @return long值
+     */
+    public static long toLong(Comparable<?> value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return Long.parseLong(value.toString());
+    }
+
+    /**
+     * 忽略大小写获取列对应的分片值
+     * @param columnValues 列名与分片值映射
+     * @param column 列名
+     * @param <V> 分片值类型
+     * @return 分片值，不存在时返回null
+     */
+    public static <V> V findColumn(Map<String, V> columnValues, String column) {
+        for (Map.Entry<String, V> entry : columnValues.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(column)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 区间跨度小于槽位数量时逐个计算，已覆盖全部目标时提前结束；跨度更大时直接返回全部目标，避免大区间逐值枚举
+     */
+    private static Collection<String> byRange(Collection<String> availableTargetNames, long lower, long upper,
+                                              LongFunction<String> targetOf) {
+        if (upper < lower || upper - lower >= SlotMapping.SLOT_COUNT - 1) {
+            return availableTargetNames;
+        }
+        Collection<String> result = new LinkedHashSet<>();
+        for (long each = lower; each <= upper && result.size() < availableTargetNames.size(); each++) {
+            result.add(targetOf.apply(each));
+        }
+        return result.size() == availableTargetNames.size() ? availableTargetNames : result;
+    }
+
+    private static long lowerOf(Range<Comparable<?>> range) {
+        long result = toLong(range.lowerEndpoint());
+        return range.lowerBoundType() == BoundType.OPEN ? result + 1 : result;
+    }
+
+    private static long upperOf(Range<Comparable<?>> range) {
+        long result = toLong(range.upperEndpoint());
+        return range.upperBoundType() == BoundType.OPEN ? result - 1 : result;
+    }
+
+    private static long suffixOf(String targetName) {
+        int index = targetName.length();
+        while (index > 0 && Character.isDigit(targetName.charAt(index - 1))) {
+            index--;
+        }
+        return index == targetName.length() ? -1L : Long.parseLong(targetName.substring(index));
+    }
+}
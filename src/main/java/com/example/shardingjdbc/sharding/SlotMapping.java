@@ -0,0 +1,113 @@
+package com.example.shardingjdbc.sharding;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 槽位映射表
+ * 用户分片基因即槽位（共1024个），槽位到数据源的映射保存在数组中，路由为常数时间的数组查找；
+ * 未在映射文件中指定的槽位按 槽位 % 默认数据源数量 分配，扩容时只需在映射文件中迁移部分槽位
+ */
+public final class SlotMapping {
+
+    /**
+     * 槽位数量，与分片基因位数一致
+     */
+    public static final int SLOT_COUNT = 1 << ShardingGene.GENE_BITS;
+
+    /**
+     * 默认数据源，逗号分隔
+     */
+    public static final String DEFAULT_NODES_KEY = "default-nodes";
+
+    /**
+     * 映射文件在classpath中的路径，文件每行格式为 槽位=数据源 或 起始槽位-结束槽位=数据源
+     */
+    public static final String MAPPING_FILE_KEY = "slot-mapping-file";
+
+    private final String[] nodes = new String[SLOT_COUNT];
+
+    SlotMapping(List<String> defaultNodes, Properties overrides) {
+        if (defaultNodes.isEmpty()) {
+            throw new IllegalArgumentException("槽位映射缺少默认数据源");
+        }
+        for (int slot = 0; slot < SLOT_COUNT; slot++) {
+            nodes[slot] = defaultNodes.get(slot % defaultNodes.size());
+        }
+        for (String each : overrides.stringPropertyNames()) {
+            String node = overrides.getProperty(each).trim();
+            String[] bounds = each.trim().split("-");
+            int start = parseSlot(bounds[0]);
+            int end = bounds.length > 1 ? parseSlot(bounds[1]) : start;
+            for (int slot = start; slot <= end; slot++) {
+                nodes[slot] = node;
+            }
+        }
+    }
+
+    /**
+     * 按分片算法属性加载槽位映射
+     * @param props 分片算法属性
+     * @return 槽位映射
+     */
+    public static SlotMapping load(Properties props) {
+        List<String> defaultNodes = new ArrayList<>();
+        for (String each : props.getProperty(DEFAULT_NODES_KEY, "").split(",")) {
+            if (!each.trim().isEmpty()) {
+                defaultNodes.add(each.trim());
+            }
+        }
+        Properties overrides = new Properties();
+        String mappingFile = props.getProperty(MAPPING_FILE_KEY);
+        if (mappingFile != null) {
+            InputStream inputStream = SlotMapping.class.getClassLoader().getResourceAsStream(mappingFile);
+            if (inputStream == null) {
+                throw new IllegalArgumentException("找不到槽位映射文件：" + mappingFile);
+            }
+            try (Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+                overrides.load(reader);
+            } catch (IOException e) {
+                throw new IllegalStateException("读取槽位映射文件失败：" + mappingFile, e);
+            }
+        }
+        return new SlotMapping(defaultNodes, overrides);
+    }
+
+    /**
+     * 查询槽位映射的数据源
+     * @param slot 槽位
+     * @return 数据源名称
+     */
+    public String nodeOf(int slot) {
+        return nodes[slot];
+    }
+
+    /**
+     * 选取槽位对应的目标
+     * @param availableTargetNames 可用目标名称
+     * @param slot 槽位
+     * @return 目标名称
+     */
+    public String route(Collection<String> availableTargetNames, int slot) {
+        String result = nodeOf(slot);
+        if (!availableTargetNames.contains(result)) {
+            throw new IllegalStateException("槽位" + slot + "映射的数据源" + result + "不在可用目标中：" + availableTargetNames);
+        }
+        return result;
+    }
+
+    private static int parseSlot(String value) {
+        int result = Integer.parseInt(value.trim());
+        if (result < 0 || result >= SLOT_COUNT) {
+            throw new IllegalArgumentException("槽位必须在0到" + (SLOT_COUNT - 1) + "之间：" + value);
+        }
+        return result;
+    }
+}
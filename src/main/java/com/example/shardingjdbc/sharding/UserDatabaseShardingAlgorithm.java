@@ -0,0 +1,44 @@
+package com.example.shardingjdbc.sharding;
+
+import lombok.Getter;
+import org.apache.shardingsphere.sharding.api.sharding.standard.PreciseShardingValue;
+import org.apache.shardingsphere.sharding.api.sharding.standard.RangeShardingValue;
+import org.apache.shardingsphere.sharding.api.sharding.standard.StandardShardingAlgorithm;
+
+import java.util.Collection;
+import java.util.Properties;
+
+/**
+ * 用户表分库算法
+ * 以user_id的分片基因为槽位，通过槽位映射表定位数据库，扩容时只迁移被重新分配的槽位；
+ * IN条件由ShardingSphere逐值调用精确分片，BETWEEN条件在区间跨度小于槽位数量时逐值计算
+ */
+public class UserDatabaseShardingAlgorithm implements StandardShardingAlgorithm<Comparable<?>> {
+
+    @Getter
+    private Properties props;
+
+    private SlotMapping slotMapping;
+
+    @Override
+    public void init(Properties props) {
+        this.props = props;
+        this.slotMapping = SlotMapping.load(props);
+    }
+
+    @Override
+    public String doSharding(Collection<String> availableTargetNames, PreciseShardingValue<Comparable<?>> shardingValue) {
+        return slotMapping.route(availableTargetNames, ShardingGene.ofUserId(ShardingTargets.toLong(shardingValue.getValue())));
+    }
+
+    @Override
+    public Collection<String> doSharding(Collection<String> availableTargetNames, RangeShardingValue<Comparable<?>> shardingValue) {
+        return ShardingTargets.byKeyRange(availableTargetNames, shardingValue.getValueRange(),
+                userId -> slotMapping.route(availableTargetNames, ShardingGene.ofUserId(userId)));
+    }
+
+    @Override
+    public String getType() {
+        return "USER_DB_SLOT";
+    }
+}
@@ -9,7 +9,7 @@ USE sharding_db_0;
 
 -- 创建用户表
 CREATE TABLE IF NOT EXISTS t_user (
-    user_id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '用户ID',
+    user_id BIGINT NOT NULL PRIMARY KEY COMMENT '用户ID（号段模式分配）',
     username VARCHAR(50) NOT NULL UNIQUE COMMENT '用户名',
     password VARCHAR(100) NOT NULL COMMENT '密码',
     email VARCHAR(100) COMMENT '邮箱',
@@ -21,9 +21,43 @@ CREATE TABLE IF NOT EXISTS t_user (
     INDEX idx_create_time (create_time)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户表';
 
+-- 创建ID号段表（仅存在于sharding_db_0，作为单表由ds0承载）
+CREATE TABLE IF NOT EXISTS t_id_segment (
+    biz_tag VARCHAR(64) NOT NULL PRIMARY KEY COMMENT '业务标识',
+    max_id BIGINT NOT NULL COMMENT '已分配的最大ID',
+    step INT NOT NULL COMMENT '号段步长',
+    description VARCHAR(200) COMMENT '描述',
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='ID号段表';
+
+INSERT IGNORE INTO t_id_segment (biz_tag, max_id, step, description) VALUES
+('user_id', 1000, 1000, '用户ID号段');
+
+-- 创建用户名全局索引表（按username哈希分库，用于按用户名定位用户并保证用户名全局唯一）
+CREATE TABLE IF NOT EXISTS t_username_index (
+    username VARCHAR(50) NOT NULL PRIMARY KEY COMMENT '用户名',
+    user_id BIGINT NOT NULL COMMENT '用户ID'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户名全局索引表';
+
+-- 创建槽位计数表（按槽位分库，与槽位内的数据位于同一分库，随业务写入在同一事务内更新）
+CREATE TABLE IF NOT EXISTS t_shard_counter (
+    table_name VARCHAR(64) NOT NULL COMMENT '逻辑表名',
+    slot INT NOT NULL COMMENT '槽位（user_id低10位）',
+    row_count BIGINT NOT NULL DEFAULT 0 COMMENT '行数',
+    PRIMARY KEY (table_name, slot)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='槽位计数表';
+
+-- 创建用户订单计数表（按user_id分库，与用户的订单位于同一分库）
+CREATE TABLE IF NOT EXISTS t_user_order_counter (
+    user_id BIGINT NOT NULL PRIMARY KEY COMMENT '用户ID',
+    slot INT NOT NULL COMMENT '槽位（user_id低10位）',
+    order_count BIGINT NOT NULL DEFAULT 0 COMMENT '订单数',
+    INDEX idx_slot (slot)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户订单计数表';
+
 -- 创建订单表
 CREATE TABLE IF NOT EXISTS t_order_0 (
-    order_id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '订单ID',
+    order_id BIGINT NOT NULL PRIMARY KEY COMMENT '订单ID（低10位为用户分片基因）',
     user_id BIGINT NOT NULL COMMENT '用户ID',
     order_no VARCHAR(50) NOT NULL UNIQUE COMMENT '订单号',
     product_name VARCHAR(100) NOT NULL COMMENT '商品名称',
@@ -33,6 +67,7 @@ CREATE TABLE IF NOT EXISTS t_order_0 (
     create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     remark VARCHAR(500) COMMENT '备注',
+    version INT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号，每次更新加1',
     INDEX idx_user_id (user_id),
     INDEX idx_order_no (order_no),
     INDEX idx_create_time (create_time),
@@ -40,7 +75,7 @@ CREATE TABLE IF NOT EXISTS t_order_0 (
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='订单表0';
 
 CREATE TABLE IF NOT EXISTS t_order_1 (
-    order_id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '订单ID',
+    order_id BIGINT NOT NULL PRIMARY KEY COMMENT '订单ID（低10位为用户分片基因）',
     user_id BIGINT NOT NULL COMMENT '用户ID',
     order_no VARCHAR(50) NOT NULL UNIQUE COMMENT '订单号',
     product_name VARCHAR(100) NOT NULL COMMENT '商品名称',
@@ -50,6 +85,7 @@ CREATE TABLE IF NOT EXISTS t_order_1 (
     create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     remark VARCHAR(500) COMMENT '备注',
+    version INT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号，每次更新加1',
     INDEX idx_user_id (user_id),
     INDEX idx_order_no (order_no),
     INDEX idx_create_time (create_time),
@@ -61,7 +97,7 @@ USE sharding_db_1;
 
 -- 创建用户表
 CREATE TABLE IF NOT EXISTS t_user (
-    user_id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '用户ID',
+    user_id BIGINT NOT NULL PRIMARY KEY COMMENT '用户ID（号段模式分配）',
     username VARCHAR(50) NOT NULL UNIQUE COMMENT '用户名',
     password VARCHAR(100) NOT NULL COMMENT '密码',
     email VARCHAR(100) COMMENT '邮箱',
@@ -73,9 +109,31 @@ CREATE TABLE IF NOT EXISTS t_user (
     INDEX idx_create_time (create_time)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户表';
 
+-- 创建用户名全局索引表（按username哈希分库，用于按用户名定位用户并保证用户名全局唯一）
+CREATE TABLE IF NOT EXISTS t_username_index (
+    username VARCHAR(50) NOT NULL PRIMARY KEY COMMENT '用户名',
+    user_id BIGINT NOT NULL COMMENT '用户ID'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户名全局索引表';
+
+-- 创建槽位计数表（按槽位分库，与槽位内的数据位于同一分库，随业务写入在同一事务内更新）
+CREATE TABLE IF NOT EXISTS t_shard_counter (
+    table_name VARCHAR(64) NOT NULL COMMENT '逻辑表名',
+    slot INT NOT NULL COMMENT '槽位（user_id低10位）',
+    row_count BIGINT NOT NULL DEFAULT 0 COMMENT '行数',
+    PRIMARY KEY (table_name, slot)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='槽位计数表';
+
+-- 创建用户订单计数表（按user_id分库，与用户的订单位于同一分库）
+CREATE TABLE IF NOT EXISTS t_user_order_counter (
+    user_id BIGINT NOT NULL PRIMARY KEY COMMENT '用户ID',
+    slot INT NOT NULL COMMENT '槽位（user_id低10位）',
+    order_count BIGINT NOT NULL DEFAULT 0 COMMENT '订单数',
+    INDEX idx_slot (slot)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户订单计数表';
+
 -- 创建订单表
 CREATE TABLE IF NOT EXISTS t_order_0 (
-    order_id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '订单ID',
+    order_id BIGINT NOT NULL PRIMARY KEY COMMENT '订单ID（低10位为用户分片基因）',
     user_id BIGINT NOT NULL COMMENT '用户ID',
     order_no VARCHAR(50) NOT NULL UNIQUE COMMENT '订单号',
     product_name VARCHAR(100) NOT NULL COMMENT '商品名称',
@@ -85,6 +143,7 @@ CREATE TABLE IF NOT EXISTS t_order_0 (
     create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     remark VARCHAR(500) COMMENT '备注',
+    version INT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号，每次更新加1',
     INDEX idx_user_id (user_id),
     INDEX idx_order_no (order_no),
     INDEX idx_create_time (create_time),
@@ -92,7 +151,7 @@ CREATE TABLE IF NOT EXISTS t_order_0 (
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='订单表0';
 
 CREATE TABLE IF NOT EXISTS t_order_1 (
-    order_id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '订单ID',
+    order_id BIGINT NOT NULL PRIMARY KEY COMMENT '订单ID（低10位为用户分片基因）',
     user_id BIGINT NOT NULL COMMENT '用户ID',
     order_no VARCHAR(50) NOT NULL UNIQUE COMMENT '订单号',
     product_name VARCHAR(100) NOT NULL COMMENT '商品名称',
@@ -102,6 +161,7 @@ CREATE TABLE IF NOT EXISTS t_order_1 (
     create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     remark VARCHAR(500) COMMENT '备注',
+    version INT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号，每次更新加1',
     INDEX idx_user_id (user_id),
     INDEX idx_order_no (order_no),
     INDEX idx_create_time (create_time),
@@ -112,31 +172,64 @@ CREATE TABLE IF NOT EXISTS t_order_1 (
 USE sharding_db_0;
 
 -- 插入用户数据（user_id为偶数，会分片到ds0）
-INSERT INTO t_user (username, password, email, phone, status) VALUES 
-('user2', 'password123', 'user2@example.com', '13800000002', 1),
-('user4', 'password123', 'user4@example.com', '13800000004', 1),
-('user6', 'password123', 'user6@example.com', '13800000006', 1);
+INSERT INTO t_user (user_id, username, password, email, phone, status) VALUES 
+(2, 'user2', 'password123', 'user2@example.com', '13800000002', 1),
+(4, 'user4', 'password123', 'user4@example.com', '13800000004', 1),
+(6, 'user6', 'password123', 'user6@example.com', '13800000006', 1);
+
+-- 插入用户名索引（按username哈希分库，与用户本身所在分片无关）
+INSERT INTO t_username_index (username, user_id) VALUES 
+('user1', 1),
+('user3', 3),
+('user5', 5);
 
 -- 插入订单数据
-INSERT INTO t_order_0 (user_id, order_no, product_name, quantity, amount, status, remark) VALUES 
-(2, 'ORDER20231201001', 'iPhone 15', 1, 5999.00, 1, '测试订单1'),
-(4, 'ORDER20231201002', 'MacBook Pro', 1, 12999.00, 0, '测试订单2');
+-- 订单ID = (序号 << 10) | 用户分片基因，同一用户的订单按基因散列落到同一张表（用户2、6 → t_order_0，用户4 → t_order_1）
+INSERT INTO t_order_0 (order_id, user_id, order_no, product_name, quantity, amount, status, remark) VALUES 
+(2050, 2, 'ORDER20231201001', 'iPhone 15', 1, 5999.00, 1, '测试订单1'),
+(1030, 6, 'ORDER20231201003', 'iPad Air', 2, 8998.00, 1, '测试订单3');
 
-INSERT INTO t_order_1 (user_id, order_no, product_name, quantity, amount, status, remark) VALUES 
-(6, 'ORDER20231201003', 'iPad Air', 2, 8998.00, 1, '测试订单3');
+INSERT INTO t_order_1 (order_id, user_id, order_no, product_name, quantity, amount, status, remark) VALUES 
+(2052, 4, 'ORDER20231201002', 'MacBook Pro', 1, 12999.00, 0, '测试订单2');
 
-USE sharding_db_1;
+-- 插入计数数据（与上面的用户和订单数据一致）
+INSERT INTO t_shard_counter (table_name, slot, row_count) VALUES 
+('t_user', 2, 1), ('t_user', 4, 1), ('t_user', 6, 1),
+('t_order', 2, 1), ('t_order', 4, 1), ('t_order', 6, 1);
 
--- 插入用户数据（user_id为奇数，会分片到ds1）
-INSERT INTO t_user (username, password, email, phone, status) VALUES 
-('user1', 'password123', 'user1@example.com', '13800000001', 1),
-('user3', 'password123', 'user3@example.com', '13800000003', 1),
-('user5', 'password123', 'user5@example.com', '13800000005', 1);
+INSERT INTO t_user_order_counter (user_id, slot, order_count) VALUES 
+(2, 2, 1),
+(4, 4, 1),
+(6, 6, 1);
 
--- 插入订单数据
-INSERT INTO t_order_0 (user_id, order_no, product_name, quantity, amount, status, remark) VALUES 
-(1, 'ORDER20231201004', 'Samsung Galaxy', 1, 4999.00, 1, '测试订单4'),
-(3, 'ORDER20231201005', 'Dell Laptop', 1, 7999.00, 0, '测试订单5');
+USE sharding_db_1;
 
-INSERT INTO t_order_1 (user_id, order_no, product_name, quantity, amount, status, remark) VALUES 
-(5, 'ORDER20231201006', 'Surface Pro', 1, 8999.00, 1, '测试订单6');
+-- 插入用户数据（user_id为奇数，会分片到ds1）
+INSERT INTO t_user (user_id, username, password, email, phone, status) VALUES 
+(1, 'user1', 'password123', 'user1@example.com', '13800000001', 1),
+(3, 'user3', 'password123', 'user3@example.com', '13800000003', 1),
+(5, 'user5', 'password123', 'user5@example.com', '13800000005', 1);
+
+-- 插入用户名索引
+INSERT INTO t_username_index (username, user_id) VALUES 
+('user2', 2),
+('user4', 4),
+('user6', 6);
+
+-- 插入订单数据（用户3 → t_order_0，用户1、5 → t_order_1）
+INSERT INTO t_order_0 (order_id, user_id, order_no, product_name, quantity, amount, status, remark) VALUES 
+(2051, 3, 'ORDER20231201005', 'Dell Laptop', 1, 7999.00, 0, '测试订单5');
+
+INSERT INTO t_order_1 (order_id, user_id, order_no, product_name, quantity, amount, status, remark) VALUES 
+(2049, 1, 'ORDER20231201004', 'Samsung Galaxy', 1, 4999.00, 1, '测试订单4'),
+(1029, 5, 'ORDER20231201006', 'Surface Pro', 1, 8999.00, 1, '测试订单6');
+
+-- 插入计数数据
+INSERT INTO t_shard_counter (table_name, slot, row_count) VALUES 
+('t_user', 1, 1), ('t_user', 3, 1), ('t_user', 5, 1),
+('t_order', 1, 1), ('t_order', 3, 1), ('t_order', 5, 1);
+
+INSERT INTO t_user_order_counter (user_id, slot, order_count) VALUES 
+(1, 1, 1),
+(3, 3, 1),
+(5, 5, 1);
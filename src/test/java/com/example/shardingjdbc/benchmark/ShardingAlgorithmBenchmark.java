@@ -0,0 +1,139 @@
+package com.example.shardingjdbc.benchmark;
+
+import com.example.shardingjdbc.sharding.SlotMapping;
+import com.example.shardingjdbc.sharding.UserDatabaseShardingAlgorithm;
+import com.google.common.collect.Range;
+import org.apache.shardingsphere.infra.datanode.DataNodeInfo;
+import org.apache.shardingsphere.sharding.algorithm.sharding.inline.InlineShardingAlgorithm;
+import org.apache.shardingsphere.sharding.api.sharding.standard.PreciseShardingValue;
+import org.apache.shardingsphere.sharding.api.sharding.standard.RangeShardingValue;
+import org.apache.shardingsphere.sharding.api.sharding.standard.StandardShardingAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户表分库算法基准测试：编译型算法 vs INLINE表达式
+ * 分别测量=、IN、BETWEEN条件下每条语句的路由耗时：IN条件由ShardingSphere对每个值调用一次精确分片，
+ * INLINE算法的区间条件只能路由到全部分片（需开启allow-range-query-with-inline-sharding）
+ * 运行方式（@Fork需要子进程能加载测试类，不能用exec:java）：
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test -Dexec.args="-cp %classpath com.example.shardingjdbc.benchmark.ShardingAlgorithmBenchmark"
+ * 结果写入target/jmh-sharding-algorithm.json，记录到README的分片算法实现一节
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShardingAlgorithmBenchmark {
+
+    private static final String LOGIC_TABLE = "t_user";
+
+    private static final String COLUMN = "user_id";
+
+    private static final DataNodeInfo DATA_NODE_INFO = new DataNodeInfo("ds", 1, '0');
+
+    private final List<String> targets = Arrays.asList("ds0", "ds1");
+
+    private InlineShardingAlgorithm inlineAlgorithm;
+
+    private UserDatabaseShardingAlgorithm compiledAlgorithm;
+
+    private long userId;
+
+    /**
+     * IN条件的值个数、BETWEEN条件的区间跨度
+     */
+    @State(Scope.Thread)
+    public static class Condition {
+
+        @Param({"1", "8", "64"})
+        private int size;
+    }
+
+    @Setup
+    public void setUp() {
+        Properties props = new Properties();
+        props.setProperty("algorithm-expression", "ds$->{user_id % 2}");
+        props.setProperty("allow-range-query-with-inline-sharding", Boolean.TRUE.toString());
+        inlineAlgorithm = new InlineShardingAlgorithm();
+        inlineAlgorithm.init(props);
+        Properties slotProps = new Properties();
+        slotProps.setProperty(SlotMapping.DEFAULT_NODES_KEY, "ds0,ds1");
+        compiledAlgorithm = new UserDatabaseShardingAlgorithm();
+        compiledAlgorithm.init(slotProps);
+    }
+
+    @Benchmark
+    public String inlinePrecise() {
+        return inlineAlgorithm.doSharding(targets, precise(userId++));
+    }
+
+    @Benchmark
+    public String compiledPrecise() {
+        return compiledAlgorithm.doSharding(targets, precise(userId++));
+    }
+
+    @Benchmark
+    public void inlineIn(Condition condition, Blackhole blackhole) {
+        in(inlineAlgorithm, condition.size, blackhole);
+    }
+
+    @Benchmark
+    public void compiledIn(Condition condition, Blackhole blackhole) {
+        in(compiledAlgorithm, condition.size, blackhole);
+    }
+
+    @Benchmark
+    public Collection<String> inlineBetween(Condition condition) {
+        return inlineAlgorithm.doSharding(targets, between(condition.size));
+    }
+
+    @Benchmark
+    public Collection<String> compiledBetween(Condition condition) {
+        return compiledAlgorithm.doSharding(targets, between(condition.size));
+    }
+
+    private void in(StandardShardingAlgorithm<Comparable<?>> algorithm, int size, Blackhole blackhole) {
+        for (int i = 0; i < size; i++) {
+            blackhole.consume(algorithm.doSharding(targets, precise(userId++)));
+        }
+    }
+
+    private PreciseShardingValue<Comparable<?>> precise(long value) {
+        return new PreciseShardingValue<>(LOGIC_TABLE, COLUMN, DATA_NODE_INFO, value);
+    }
+
+    private RangeShardingValue<Comparable<?>> between(int span) {
+        long lower = userId++;
+        return new RangeShardingValue<>(LOGIC_TABLE, COLUMN, DATA_NODE_INFO, Range.closed(lower, lower + span - 1));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ShardingAlgorithmBenchmark.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-sharding-algorithm.json")
+                .build()).run();
+    }
+}
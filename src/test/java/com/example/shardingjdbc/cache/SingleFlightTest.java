@@ -0,0 +1,103 @@
+package com.example.shardingjdbc.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 并发查询合并单元测试
+ */
+class SingleFlightTest {
+
+    private final SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+
+    @Test
+    void testExecute_ConcurrentCallersShareOneLoad() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> singleFlight.execute(1L, () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "order-1";
+        }));
+        waitUntilLoading(loads);
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> singleFlight.execute(1L, () -> {
+            loads.incrementAndGet();
+            return "order-1-again";
+        }));
+        waitUntilShared();
+        release.countDown();
+
+        // Then
+        assertEquals("order-1", first.get(5, TimeUnit.SECONDS));
+        assertEquals("order-1", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testExecute_WaitersReceiveSameFailure() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> singleFlight.execute(1L, () -> {
+            loads.incrementAndGet();
+            await(release);
+            throw new IllegalStateException("数据源不可用");
+        }));
+        waitUntilLoading(loads);
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> singleFlight.execute(1L, () -> "unused"));
+        waitUntilShared();
+        release.countDown();
+
+        // Then
+        ExecutionException firstFailure = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        ExecutionException secondFailure = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertEquals("数据源不可用", firstFailure.getCause().getMessage());
+        assertEquals("数据源不可用", secondFailure.getCause().getMessage());
+    }
+
+    @Test
+    void testExecute_SequentialCallsLoadAgain() {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        singleFlight.execute(1L, () -> "v" + loads.incrementAndGet());
+        String result = singleFlight.execute(1L, () -> "v" + loads.incrementAndGet());
+
+        // Then
+        assertEquals("v2", result);
+        assertEquals(0, singleFlight.getSharedCount());
+    }
+
+    private void waitUntilLoading(AtomicInteger loads) throws InterruptedException {
+        while (loads.get() == 0) {
+            Thread.sleep(1);
+        }
+    }
+
+    private void waitUntilShared() throws InterruptedException {
+        while (singleFlight.getSharedCount() == 0) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
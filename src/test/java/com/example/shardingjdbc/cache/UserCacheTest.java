@@ -0,0 +1,75 @@
+package com.example.shardingjdbc.cache;
+
+import com.example.shardingjdbc.entity.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 用户缓存单元测试
+ */
+class UserCacheTest {
+
+    @Test
+    void testGetUser_RecordsHitsMissesAndEvictions() {
+        // Given
+        UserCache cache = new UserCache(true, 1, 60);
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        cache.getUser(1L, () -> newUser(1L, loads));
+        cache.getUser(1L, () -> newUser(1L, loads));
+        cache.getUser(2L, () -> newUser(2L, loads));
+
+        // Then
+        assertEquals(2, loads.get());
+        Map<?, ?> stats = (Map<?, ?>) cache.stats().get("usersById");
+        assertEquals(1L, stats.get("hitCount"));
+        assertEquals(2L, stats.get("missCount"));
+        assertEquals(1L, stats.get("evictionCount"));
+    }
+
+    @Test
+    void testEvictUser_ReloadsNegativeEntry() {
+        // Given
+        UserCache cache = new UserCache(true, 100, 60);
+        AtomicInteger loads = new AtomicInteger();
+        cache.getUser(1L, () -> {
+            loads.incrementAndGet();
+            return null;
+        });
+
+        // When
+        assertNull(cache.getUser(1L, () -> newUser(1L, loads)));
+        cache.evictUser(1L);
+        User result = cache.getUser(1L, () -> newUser(1L, loads));
+
+        // Then
+        assertEquals(1L, result.getUserId());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testGetUser_DisabledAlwaysLoads() {
+        // Given
+        UserCache cache = new UserCache(false, 100, 60);
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        cache.getUser(1L, () -> newUser(1L, loads));
+        cache.getUser(1L, () -> newUser(1L, loads));
+
+        // Then
+        assertEquals(2, loads.get());
+    }
+
+    private User newUser(Long userId, AtomicInteger loads) {
+        loads.incrementAndGet();
+        User user = new User();
+        user.setUserId(userId);
+        return user;
+    }
+}
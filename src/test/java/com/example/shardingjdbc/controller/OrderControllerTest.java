@@ -1,6 +1,11 @@
 package com.example.shardingjdbc.controller;
 
+import com.example.shardingjdbc.dto.BatchItemResult;
+import com.example.shardingjdbc.dto.CursorPage;
+import com.example.shardingjdbc.dto.OrderStatusChange;
+import com.example.shardingjdbc.dto.PartialResult;
 import com.example.shardingjdbc.entity.Order;
+import com.example.shardingjdbc.routing.ReplicationPositions;
 import com.example.shardingjdbc.service.OrderService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,12 +15,15 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -33,6 +41,9 @@ class OrderControllerTest {
     @MockBean
     private OrderService orderService;
     
+    @MockBean
+    private ReplicationPositions replicationPositions;
+    
     @Autowired
     private ObjectMapper objectMapper;
     
@@ -87,6 +98,42 @@ class OrderControllerTest {
         verify(orderService, times(1)).createOrder(any(Order.class));
     }
     
+    @Test
+    void testCreateOrders_PartialFailure() throws Exception {
+        // Given
+        List<BatchItemResult<Order>> items = Arrays.asList(
+                BatchItemResult.success(0, testOrder),
+                BatchItemResult.failure(1, "用户ID不能为空"));
+        when(orderService.createOrders(anyList())).thenReturn(items);
+        
+        // When & Then
+        mockMvc.perform(post("/api/orders/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(testOrder, new Order()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.successCount").value(1))
+                .andExpect(jsonPath("$.failureCount").value(1))
+                .andExpect(jsonPath("$.data[0].data.orderId").value(1))
+                .andExpect(jsonPath("$.data[1].message").value("用户ID不能为空"));
+    }
+    
+    @Test
+    void testUpdateOrderStatuses_Success() throws Exception {
+        // Given
+        OrderStatusChange change = new OrderStatusChange(1L, 1025L, 2);
+        when(orderService.updateOrderStatuses(anyList())).thenReturn(Arrays.asList(BatchItemResult.success(0, change)));
+        
+        // When & Then
+        mockMvc.perform(put("/api/orders/batch/status")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(change))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.successCount").value(1))
+                .andExpect(jsonPath("$.data[0].data.orderId").value(1025));
+    }
+    
     @Test
     void testGetOrderById_Success() throws Exception {
         // Given
@@ -168,6 +215,22 @@ class OrderControllerTest {
         verify(orderService, times(1)).getAllOrders();
     }
     
+    @Test
+    void testGetOrdersByIds_Success() throws Exception {
+        // Given
+        when(orderService.getOrdersByIds(Arrays.asList(999L, 1L))).thenReturn(Arrays.asList(null, testOrder));
+        
+        // When & Then
+        mockMvc.perform(get("/api/orders").param("ids", "999,1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data[0]").doesNotExist())
+                .andExpect(jsonPath("$.data[1].orderId").value(1))
+                .andExpect(jsonPath("$.total").value(2));
+        
+        verify(orderService, never()).getAllOrders();
+    }
+    
     @Test
     void testUpdateOrder_Success() throws Exception {
         // Given
@@ -254,6 +317,73 @@ class OrderControllerTest {
         verify(orderService, times(1)).getOrderCount();
     }
     
+    @Test
+    void testGetOrdersByPage_Partial() throws Exception {
+        // Given
+        PartialResult<Order> partialResult = new PartialResult<>(Arrays.asList(testOrder), 11L, Arrays.asList("ds1.t_order_0"));
+        when(orderService.getOrdersByPagePartial(1, 10)).thenReturn(partialResult);
+        
+        // When & Then
+        mockMvc.perform(get("/api/orders/page")
+                .param("pageNum", "1")
+                .param("pageSize", "10")
+                .param("partial", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.complete").value(false))
+                .andExpect(jsonPath("$.missingNodes[0]").value("ds1.t_order_0"))
+                .andExpect(jsonPath("$.missingCounters").isEmpty())
+                .andExpect(jsonPath("$.data[0].orderId").value(1))
+                .andExpect(jsonPath("$.total").value(11))
+                .andExpect(jsonPath("$.totalPages").value(2));
+        
+        verify(orderService, never()).getOrdersByPage(anyInt(), anyInt());
+        verify(orderService, never()).getOrderCount();
+    }
+    
+    @Test
+    void testExportAllOrders_Success() throws Exception {
+        // Given
+        when(orderService.exportAllOrders(any())).thenAnswer(invocation -> {
+            Consumer<Order> consumer = invocation.getArgument(0);
+            consumer.accept(testOrder);
+            consumer.accept(testOrder);
+            return 2L;
+        });
+        
+        // When
+        MvcResult mvcResult = mockMvc.perform(get("/api/orders/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        
+        // Then - 每个订单输出一行JSON
+        String content = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = content.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1L, objectMapper.readValue(lines[0], Order.class).getOrderId());
+    }
+    
+    @Test
+    void testGetOrdersByCursor_Success() throws Exception {
+        // Given
+        CursorPage<Order> page = new CursorPage<>(Arrays.asList(testOrder), "next", true);
+        when(orderService.getOrdersByCursor(null, 10)).thenReturn(page);
+        
+        // When & Then
+        mockMvc.perform(get("/api/orders/cursor")
+                .param("pageSize", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data").isArray())
+                .andExpect(jsonPath("$.nextCursor").value("next"))
+                .andExpect(jsonPath("$.hasMore").value(true));
+        
+        verify(orderService, times(1)).getOrdersByCursor(null, 10);
+    }
+    
     @Test
     void testGetOrdersByUserIdAndPage_Success() throws Exception {
         // Given
@@ -1,6 +1,8 @@
 package com.example.shardingjdbc.controller;
 
+import com.example.shardingjdbc.dto.PartialResult;
 import com.example.shardingjdbc.entity.User;
+import com.example.shardingjdbc.routing.ReplicationPositions;
 import com.example.shardingjdbc.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,6 +15,7 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
@@ -32,6 +35,9 @@ class UserControllerTest {
     @MockBean
     private UserService userService;
     
+    @MockBean
+    private ReplicationPositions replicationPositions;
+    
     @Autowired
     private ObjectMapper objectMapper;
     
@@ -147,6 +153,22 @@ class UserControllerTest {
         verify(userService, times(1)).getAllUsers();
     }
     
+    @Test
+    void testGetUsersByIds_Success() throws Exception {
+        // Given
+        when(userService.getUsersByIds(Arrays.asList(1L, 999L))).thenReturn(Arrays.asList(testUser, null));
+        
+        // When & Then
+        mockMvc.perform(get("/api/users").param("ids", "1,999"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data[0].userId").value(1))
+                .andExpect(jsonPath("$.data[1]").doesNotExist())
+                .andExpect(jsonPath("$.total").value(2));
+        
+        verify(userService, never()).getAllUsers();
+    }
+    
     @Test
     void testUpdateUser_Success() throws Exception {
         // Given
@@ -233,6 +255,25 @@ class UserControllerTest {
         verify(userService, times(1)).getUserCount();
     }
     
+    @Test
+    void testGetUsersByPage_Partial() throws Exception {
+        // Given
+        PartialResult<User> partialResult = new PartialResult<>(Arrays.asList(testUser), 1L, Collections.emptyList());
+        when(userService.getUsersByPagePartial(1, 10)).thenReturn(partialResult);
+        
+        // When & Then
+        mockMvc.perform(get("/api/users/page")
+                .param("partial", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.message").value("查询成功"))
+                .andExpect(jsonPath("$.complete").value(true))
+                .andExpect(jsonPath("$.missingNodes").isEmpty())
+                .andExpect(jsonPath("$.total").value(1));
+        
+        verify(userService, never()).getUsersByPage(anyInt(), anyInt());
+    }
+    
     @Test
     void testGetUsersByPage_WithDefaultParams() throws Exception {
         // Given
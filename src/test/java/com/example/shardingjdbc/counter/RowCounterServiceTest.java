@@ -0,0 +1,63 @@
+package com.example.shardingjdbc.counter;
+
+import com.example.shardingjdbc.mapper.RowCounterMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 行数计数服务单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class RowCounterServiceTest {
+
+    @Mock
+    private RowCounterMapper rowCounterMapper;
+
+    @InjectMocks
+    private RowCounterService rowCounterService;
+
+    @Test
+    void testOnOrderInserted_IncrementsUserThenSlot() {
+        // When
+        rowCounterService.onOrderInserted(1025L);
+
+        // Then
+        InOrder inOrder = inOrder(rowCounterMapper);
+        inOrder.verify(rowCounterMapper).incrementUserOrders(1025L, 1, 1L);
+        inOrder.verify(rowCounterMapper).incrementSlot(RowCounterService.ORDER_TABLE, 1, 1L);
+    }
+
+    @Test
+    void testOnUserDeleted_DecrementsSlot() {
+        // When
+        rowCounterService.onUserDeleted(2050L);
+
+        // Then
+        verify(rowCounterMapper).incrementSlot(RowCounterService.USER_TABLE, 2, -1L);
+    }
+
+    @Test
+    void testCountOrders_SumsSlots() {
+        // Given
+        when(rowCounterMapper.sumSlots(RowCounterService.ORDER_TABLE)).thenReturn(6L);
+
+        // When & Then
+        assertEquals(6L, rowCounterService.countOrders());
+    }
+
+    @Test
+    void testCountOrdersByUserId_NoCounterRow() {
+        // Given
+        when(rowCounterMapper.selectUserOrderCount(99L)).thenReturn(null);
+
+        // When & Then
+        assertEquals(0L, rowCounterService.countOrdersByUserId(99L));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.shardingjdbc.guard;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 请求处理时限单元测试
+ */
+class DeadlineTest {
+
+    @AfterEach
+    void tearDown() {
+        Deadline.unbind();
+    }
+
+    @Test
+    void testCheckNotExpired_ThrowsAfterTimeout() throws Exception {
+        // Given
+        Deadline deadline = new Deadline(20);
+
+        // When
+        deadline.checkNotExpired();
+        TimeUnit.MILLISECONDS.sleep(40);
+
+        // Then
+        assertEquals(0L, deadline.remainingMillis());
+        assertThrows(DeadlineExceededException.class, deadline::checkNotExpired);
+    }
+
+    @Test
+    void testCancel_CancelsRunningAndLaterStatements() throws Exception {
+        // Given
+        Deadline deadline = new Deadline(10000);
+        Statement running = mock(Statement.class);
+        Statement finished = mock(Statement.class);
+        Statement later = mock(Statement.class);
+        deadline.register(running);
+        deadline.register(finished);
+        deadline.unregister(finished);
+
+        // When
+        deadline.cancel();
+        deadline.register(later);
+
+        // Then
+        verify(running).cancel();
+        verify(finished, never()).cancel();
+        verify(later).cancel();
+        assertThrows(DeadlineExceededException.class, deadline::checkNotExpired);
+    }
+
+    @Test
+    void testPropagate_BindsDeadlineOnWorkerThread() throws Exception {
+        // Given
+        Deadline deadline = new Deadline(10000);
+        Deadline.bind(deadline);
+
+        // When
+        Deadline onWorker = CompletableFuture.supplyAsync(Deadline.propagate(Deadline::current)).get(5, TimeUnit.SECONDS);
+        Deadline afterwards = CompletableFuture.supplyAsync(Deadline::current).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertSame(deadline, onWorker);
+        assertNull(afterwards);
+    }
+}
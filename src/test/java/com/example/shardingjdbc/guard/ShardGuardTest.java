@@ -0,0 +1,132 @@
+package com.example.shardingjdbc.guard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 数据源隔离舱和熔断器单元测试
+ */
+class ShardGuardTest {
+
+    @Test
+    void testAcquire_RejectsWhenConcurrencyFull() {
+        // Given
+        ShardGuard guard = new ShardGuard("ds1-primary", properties(2, 3, 10000));
+        guard.acquire();
+        guard.acquire();
+
+        // When & Then
+        ShardUnavailableException e = assertThrows(ShardUnavailableException.class, guard::acquire);
+        assertEquals("ds1-primary", e.getDataSourceName());
+        assertEquals(1L, guard.stats().get("rejectedCount"));
+
+        guard.release(true, 1);
+        assertDoesNotThrow(guard::acquire);
+    }
+
+    @Test
+    void testBreaker_OpensAfterConsecutiveFailures() {
+        // Given
+        ShardGuard guard = new ShardGuard("ds1-primary", properties(10, 3, 10000));
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            guard.acquire();
+            guard.release(false, 1);
+        }
+
+        // Then
+        assertEquals(ShardGuard.State.OPEN, guard.getState());
+        assertThrows(ShardUnavailableException.class, guard::acquire);
+        assertEquals(1L, guard.stats().get("shortCircuitedCount"));
+    }
+
+    @Test
+    void testBreaker_SlowStatementsCountAsFailures() {
+        // Given
+        ShardGuard guard = new ShardGuard("ds1-primary", properties(10, 2, 10000));
+
+        // When
+        guard.acquire();
+        guard.release(true, 5000);
+        guard.acquire();
+        guard.release(true, 5000);
+
+        // Then
+        assertEquals(ShardGuard.State.OPEN, guard.getState());
+    }
+
+    @Test
+    void testBreaker_SuccessResetsFailureCount() {
+        // Given
+        ShardGuard guard = new ShardGuard("ds1-primary", properties(10, 2, 10000));
+
+        // When
+        guard.acquire();
+        guard.release(false, 1);
+        guard.acquire();
+        guard.release(true, 1);
+        guard.acquire();
+        guard.release(false, 1);
+
+        // Then
+        assertEquals(ShardGuard.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void testBreaker_HalfOpenAllowsSingleTrial() {
+        // Given
+        ShardGuard guard = new ShardGuard("ds1-primary", properties(10, 1, 0));
+        guard.acquire();
+        guard.release(false, 1);
+
+        // When
+        guard.acquire();
+
+        // Then
+        assertEquals(ShardGuard.State.HALF_OPEN, guard.getState());
+        assertThrows(ShardUnavailableException.class, guard::acquire);
+        guard.release(true, 1);
+        assertEquals(ShardGuard.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void testExecutionHook_ReclaimsLeaseLeakedByRuntimeException() throws Exception {
+        // Given
+        ShardGuardProperties properties = properties(1, 3, 10000);
+        properties.setLeaseMillis(20);
+        ShardGuards guards = new ShardGuards(properties);
+        ShardGuardExecutionHook leaked = new ShardGuardExecutionHook();
+
+        // When
+        // 与ShardingSphere执行语句相同：只有SQLException会回调finishFailure，其他异常直接抛出
+        assertThrows(IllegalStateException.class, () -> {
+            leaked.start("ds1-primary", "SELECT 1", null, null, true, null);
+            throw new IllegalStateException("结果集映射失败");
+        });
+
+        // Then
+        assertThrows(ShardUnavailableException.class,
+                () -> new ShardGuardExecutionHook().start("ds1-primary", "SELECT 1", null, null, true, null));
+        TimeUnit.MILLISECONDS.sleep(40);
+        ShardGuardExecutionHook next = new ShardGuardExecutionHook();
+        next.start("ds1-primary", "SELECT 1", null, null, true, null);
+        assertEquals(1L, guards.guardOf("ds1-primary").stats().get("expiredLeaseCount"));
+        // 已收回的名额迟到的结束回调不再重复归还
+        leaked.finishSuccess();
+        assertEquals(1, guards.guardOf("ds1-primary").stats().get("activeStatements"));
+        next.finishSuccess();
+        assertEquals(0, guards.guardOf("ds1-primary").stats().get("activeStatements"));
+    }
+
+    private static ShardGuardProperties properties(int maxConcurrent, int failureThreshold, long openMillis) {
+        ShardGuardProperties result = new ShardGuardProperties();
+        result.setMaxConcurrentStatements(maxConcurrent);
+        result.setFailureThreshold(failureThreshold);
+        result.setOpenMillis(openMillis);
+        return result;
+    }
+}
@@ -4,6 +4,7 @@ import com.example.shardingjdbc.entity.Order;
 import com.example.shardingjdbc.entity.User;
 import com.example.shardingjdbc.service.OrderService;
 import com.example.shardingjdbc.service.UserService;
+import com.example.shardingjdbc.sharding.ShardingGene;
 import com.example.shardingjdbc.util.TestDataGenerator;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
@@ -94,13 +95,13 @@ class ShardingDemoTest {
             log.info("✓ 订单查询成功，数据库分片正确");
         }
         
-        // 5. 测试订单表分片 - 按订单ID分片到不同表
+        // 5. 测试订单表分片 - 按用户基因分片到不同表，同一用户的订单在同一张表
         log.info("\n=== 测试订单表分片 ===");
-        List<Order> evenOrders = testData.getEvenOrderIdOrders();
-        List<Order> oddOrders = testData.getOddOrderIdOrders();
+        List<Order> table0Orders = testData.getTable0Orders();
+        List<Order> table1Orders = testData.getTable1Orders();
         
-        log.info("偶数订单ID订单数量: {} (应该分片到t_order_0)", evenOrders.size());
-        log.info("奇数订单ID订单数量: {} (应该分片到t_order_1)", oddOrders.size());
+        log.info("基因散列为偶数的订单数量: {} (应该分片到t_order_0)", table0Orders.size());
+        log.info("基因散列为奇数的订单数量: {} (应该分片到t_order_1)", table1Orders.size());
         
         // 6. 测试跨分片查询
         log.info("\n=== 测试跨分片查询 ===");
@@ -187,7 +188,7 @@ class ShardingDemoTest {
             
             // 为每个用户创建订单
             for (int j = 1; j <= ordersPerUser; j++) {
-                Order order = TestDataGenerator.generateOrder((long) (i * 100 + j), (long) i);
+                Order order = TestDataGenerator.generateOrder(ShardingGene.compose(i * 100 + j, i), (long) i);
                 Order createdOrder = orderService.createOrder(order);
                 assertNotNull(createdOrder);
             }
@@ -4,6 +4,7 @@ import com.example.shardingjdbc.entity.Order;
 import com.example.shardingjdbc.entity.User;
 import com.example.shardingjdbc.service.OrderService;
 import com.example.shardingjdbc.service.UserService;
+import com.example.shardingjdbc.sharding.ShardingGene;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -106,10 +107,11 @@ class ShardingIntegrationTest {
     }
     
     @Test
-    void testOrderTableSharding_EvenOrderId_ShouldGoToOrder0() {
-        // Given - 创建订单ID为偶数的订单
+    void testOrderTableSharding_User3_ShouldGoToOrder0() {
+        // Given - 用户3的基因散列值为偶数，其订单都落到t_order_0
         Order order = createOrder(3L, "MacBook Pro", new BigDecimal("12999.00"));
-        order.setOrderId(2L); // 设置为偶数
+        order.setOrderId(ShardingGene.compose(2L, 3L));
+        assertEquals(0, ShardingGene.hash(ShardingGene.ofOrderId(order.getOrderId())) % 2);
         
         // When
         Order createdOrder = orderService.createOrder(order);
@@ -125,10 +127,11 @@ class ShardingIntegrationTest {
     }
     
     @Test
-    void testOrderTableSharding_OddOrderId_ShouldGoToOrder1() {
-        // Given - 创建订单ID为奇数的订单
+    void testOrderTableSharding_User4_ShouldGoToOrder1() {
+        // Given - 用户4的基因散列值为奇数，其订单都落到t_order_1
         Order order = createOrder(4L, "iPad Air", new BigDecimal("8999.00"));
-        order.setOrderId(3L); // 设置为奇数
+        order.setOrderId(ShardingGene.compose(3L, 4L));
+        assertEquals(1, ShardingGene.hash(ShardingGene.ofOrderId(order.getOrderId())) % 2);
         
         // When
         Order createdOrder = orderService.createOrder(order);
@@ -0,0 +1,48 @@
+package com.example.shardingjdbc.keygen;
+
+import com.example.shardingjdbc.sharding.ShardingGene;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 订单ID生成器单元测试
+ */
+class OrderIdGeneratorTest {
+    
+    private final OrderIdGenerator generator = new OrderIdGenerator(1L);
+    
+    @Test
+    void testNextId_ShouldCarryUserGene() {
+        // When
+        long orderId = generator.nextId(1025L);
+        
+        // Then
+        assertTrue(orderId > 0);
+        assertEquals(ShardingGene.ofUserId(1025L), ShardingGene.ofOrderId(orderId));
+        assertEquals(1025L % 2, orderId % 2);
+    }
+    
+    @Test
+    void testNextId_ShouldBeUniqueAndIncreasing() {
+        // Given
+        Set<Long> ids = new HashSet<>();
+        long last = 0L;
+        
+        // When & Then
+        for (int i = 0; i < 10000; i++) {
+            long orderId = generator.nextId(7L);
+            assertTrue(ids.add(orderId));
+            assertTrue(ShardingGene.stripGene(orderId) > ShardingGene.stripGene(last));
+            last = orderId;
+        }
+    }
+    
+    @Test
+    void testConstructor_InvalidWorkerId() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderIdGenerator(32L));
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.shardingjdbc.keygen;
+
+import com.example.shardingjdbc.entity.IdSegment;
+import com.example.shardingjdbc.mapper.IdSegmentMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 号段ID生成器单元测试
+ */
+class SegmentIdGeneratorTest {
+    
+    private static final int STEP = 10;
+    
+    private final AtomicLong maxId = new AtomicLong(100L);
+    
+    private IdSegmentMapper idSegmentMapper;
+    
+    private SegmentIdGenerator generator;
+    
+    @BeforeEach
+    void setUp() {
+        idSegmentMapper = mock(IdSegmentMapper.class);
+        when(idSegmentMapper.increaseMaxId("user_id")).thenAnswer(invocation -> {
+            maxId.addAndGet(STEP);
+            return 1;
+        });
+        when(idSegmentMapper.selectByBizTag("user_id"))
+                .thenAnswer(invocation -> new IdSegment("user_id", maxId.get(), STEP, null, null));
+        generator = new SegmentIdGenerator(idSegmentMapper, mock(PlatformTransactionManager.class));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        generator.shutdown();
+    }
+    
+    @Test
+    void testNextId_ShouldBeContinuousAcrossSegments() {
+        // When & Then
+        for (long expected = 101L; expected <= 130L; expected++) {
+            assertEquals(expected, generator.nextId("user_id"));
+        }
+    }
+    
+    @Test
+    void testNextId_ShouldPrefetchNextSegment() {
+        // When - 消费超过10%后触发异步预取
+        generator.nextId("user_id");
+        generator.nextId("user_id");
+        
+        // Then
+        verify(idSegmentMapper, timeout(1000).times(2)).increaseMaxId("user_id");
+    }
+    
+    @Test
+    void testNextId_UnknownBizTag() {
+        // Given
+        when(idSegmentMapper.increaseMaxId("unknown")).thenReturn(0);
+        
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> generator.nextId("unknown"));
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.shardingjdbc.resharding;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 扩容阶段切换单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class ReshardingCoordinatorTest {
+    
+    @Mock
+    private DataSource dataSource;
+    
+    @Mock
+    private TargetLayout targetLayout;
+    
+    @Mock
+    private BackfillCopier backfillCopier;
+    
+    @Mock
+    private ChecksumVerifier checksumVerifier;
+    
+    private ReshardingMetrics metrics;
+    
+    private ReshardingCoordinator coordinator;
+    
+    @BeforeEach
+    void setUp() {
+        metrics = new ReshardingMetrics();
+        coordinator = new ReshardingCoordinator(dataSource, new ReshardingProperties(), targetLayout, backfillCopier, checksumVerifier, metrics);
+        lenient().when(targetLayout.isConfigured()).thenReturn(true);
+    }
+    
+    @Test
+    void testSwitchPhase_RejectsSkippingDualWrite() {
+        assertThrows(IllegalStateException.class, () -> coordinator.switchPhase(ReshardingPhase.READ_SWITCH));
+        assertEquals(ReshardingPhase.NONE, coordinator.getPhase());
+    }
+    
+    @Test
+    void testSwitchPhase_RejectsReadSwitchWithoutCleanVerify() {
+        // Given
+        coordinator.switchPhase(ReshardingPhase.DUAL_WRITE);
+        when(backfillCopier.isCompleted()).thenReturn(true);
+        when(checksumVerifier.isCompleted()).thenReturn(false);
+        
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> coordinator.switchPhase(ReshardingPhase.READ_SWITCH));
+        assertEquals(ReshardingPhase.DUAL_WRITE, coordinator.getPhase());
+    }
+    
+    @Test
+    void testSwitchPhase_RejectsReadSwitchAfterDualWriteFailure() {
+        // Given
+        coordinator.switchPhase(ReshardingPhase.DUAL_WRITE);
+        when(backfillCopier.isCompleted()).thenReturn(true);
+        when(checksumVerifier.isCompleted()).thenReturn(true);
+        metrics.resetVerify();
+        metrics.recordDualWrite(false);
+        
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> coordinator.switchPhase(ReshardingPhase.READ_SWITCH));
+        
+        metrics.resetVerify();
+        coordinator.switchPhase(ReshardingPhase.READ_SWITCH);
+        assertEquals(ReshardingPhase.READ_SWITCH, coordinator.getPhase());
+    }
+    
+    @Test
+    void testSwitchPhase_DualWriteClearsAndNoneCancelsJobs() {
+        // When
+        coordinator.switchPhase(ReshardingPhase.DUAL_WRITE);
+        coordinator.switchPhase(ReshardingPhase.NONE);
+        
+        // Then
+        verify(backfillCopier).cancel();
+        verify(checksumVerifier).cancel();
+        verify(backfillCopier, times(1)).clearCompleted();
+        verify(checksumVerifier, times(1)).clearCompleted();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.shardingjdbc.resharding;
+
+import com.example.shardingjdbc.sharding.ShardingGene;
+import org.apache.shardingsphere.infra.datanode.DataNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 新分片布局路由单元测试（连接池延迟初始化，不需要数据库）
+ */
+class TargetLayoutTest {
+    
+    private TargetLayout targetLayout;
+    
+    @BeforeEach
+    void setUp() {
+        ReshardingProperties properties = new ReshardingProperties();
+        for (String each : new String[]{"ds0", "ds1", "ds2", "ds3"}) {
+            ReshardingProperties.TargetDataSource dataSource = new ReshardingProperties.TargetDataSource();
+            dataSource.setJdbcUrl("jdbc:mysql://localhost:3306/" + each);
+            properties.getTarget().getDataSources().put(each, dataSource);
+        }
+        properties.getTarget().setOrderTableCount(4);
+        targetLayout = new TargetLayout(properties);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        targetLayout.close();
+    }
+    
+    @Test
+    void testUserNode() {
+        DataNode node = targetLayout.nodeOf(ReshardingTable.USER, 6L);
+        
+        assertEquals("ds2", node.getDataSourceName());
+        assertEquals("t_user", node.getTableName());
+    }
+    
+    @Test
+    void testOrderNodeFollowsUserGene() {
+        // Given
+        long orderId = ShardingGene.compose(7L, 6L);
+        
+        // When
+        DataNode node = targetLayout.nodeOf(ReshardingTable.ORDER, orderId);
+        
+        // Then
+        assertEquals(targetLayout.nodeOf(ReshardingTable.USER, 6L).getDataSourceName(), node.getDataSourceName());
+        assertEquals("t_order_" + ShardingGene.hash(6) % 4, node.getTableName());
+    }
+    
+    @Test
+    void testNotConfigured() {
+        assertFalse(new TargetLayout(new ReshardingProperties()).isConfigured());
+        assertTrue(targetLayout.isConfigured());
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.shardingjdbc.routing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 一致性上下文单元测试
+ */
+class ConsistencyContextTest {
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+        ConsistencyContext.clear();
+    }
+
+    @Test
+    void testRecordWrite_IgnoredOutsideRequest() {
+        // When
+        ConsistencyContext.recordWrite("ds0");
+
+        // Then
+        ConsistencyContext.open();
+        assertTrue(ConsistencyContext.drainWrites().isEmpty());
+    }
+
+    @Test
+    void testRecordWrite_RecordedAfterCommit() {
+        // Given
+        ConsistencyContext.open();
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        // When
+        ConsistencyContext.recordWrite("ds1");
+
+        // Then
+        assertTrue(ConsistencyContext.drainWrites().isEmpty());
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        assertEquals(Collections.singleton("ds1"), ConsistencyContext.drainWrites());
+        assertTrue(ConsistencyContext.drainWrites().isEmpty());
+    }
+
+    @Test
+    void testRecordWrite_NotRecordedOnRollback() {
+        // Given
+        ConsistencyContext.open();
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        // When
+        ConsistencyContext.recordWrite("ds1");
+        TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+                TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // Then
+        assertTrue(ConsistencyContext.drainWrites().isEmpty());
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.shardingjdbc.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 一致性令牌单元测试
+ */
+class ConsistencyTokenTest {
+
+    @Test
+    void testEncodeAndDecode() {
+        // Given
+        Map<String, String> positions = new LinkedHashMap<>();
+        positions.put("ds1", "3e11fa47-71ca-11e1-9e33-c80aa9429562:1-77");
+        positions.put("ds0", "3e11fa47-71ca-11e1-9e33-c80aa9429562:1-5,4f22fa47-71ca-11e1-9e33-c80aa9429562:1-3");
+
+        // When
+        String token = ConsistencyToken.encode(positions);
+
+        // Then
+        assertFalse(token.contains("="));
+        assertEquals(positions, ConsistencyToken.decode(token));
+    }
+
+    @Test
+    void testDecode_Empty() {
+        assertTrue(ConsistencyToken.decode(ConsistencyToken.encode(new LinkedHashMap<>())).isEmpty());
+    }
+
+    @Test
+    void testDecode_Malformed() {
+        assertThrows(IllegalArgumentException.class, () -> ConsistencyToken.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> ConsistencyToken.decode("ZHMw"));
+    }
+}
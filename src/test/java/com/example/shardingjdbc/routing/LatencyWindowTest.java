@@ -0,0 +1,58 @@
+package com.example.shardingjdbc.routing;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 耗时滑动窗口单元测试
+ */
+class LatencyWindowTest {
+
+    @Test
+    void testPercentile_NotEnoughSamples() {
+        // Given
+        LatencyWindow window = new LatencyWindow(100, 95, 10);
+
+        // When
+        for (int i = 1; i < 10; i++) {
+            window.record(i);
+        }
+
+        // Then
+        assertEquals(-1L, window.percentile());
+    }
+
+    @Test
+    void testPercentile() {
+        // Given
+        LatencyWindow window = new LatencyWindow(128, 95, 64);
+
+        // When
+        for (int i = 1; i <= 128; i++) {
+            window.record(i * 1000L);
+        }
+
+        // Then
+        assertEquals(122000L, window.percentile());
+        assertEquals(128L, window.count());
+    }
+
+    @Test
+    void testPercentile_OldSamplesLeaveWindow() {
+        // Given
+        LatencyWindow window = new LatencyWindow(64, 95, 64);
+        for (int i = 0; i < 64; i++) {
+            window.record(100000L);
+        }
+        assertEquals(100000L, window.percentile());
+
+        // When
+        for (int i = 0; i < 64; i++) {
+            window.record(1000L);
+        }
+
+        // Then
+        assertEquals(1000L, window.percentile());
+    }
+}
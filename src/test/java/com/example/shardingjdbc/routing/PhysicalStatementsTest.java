@@ -0,0 +1,80 @@
+package com.example.shardingjdbc.routing;
+
+import com.example.shardingjdbc.mapper.OrderMapper;
+import com.example.shardingjdbc.mapper.RowCounterMapper;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.sql.ResultSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 映射语句物理表SQL单元测试
+ */
+class PhysicalStatementsTest {
+
+    private PhysicalStatements physicalStatements;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Configuration configuration = new Configuration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        for (String each : new String[]{"mapper/OrderMapper.xml", "mapper/RowCounterMapper.xml"}) {
+            try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(each)) {
+                new XMLMapperBuilder(inputStream, configuration, each, configuration.getSqlFragments()).parse();
+            }
+        }
+        physicalStatements = new PhysicalStatements(new DefaultSqlSessionFactory(configuration));
+    }
+
+    @Test
+    void testBind_ReplacesLogicTableOnly() {
+        // When
+        PhysicalStatements.Bound bound = physicalStatements.bind(OrderMapper.class, "selectByUserId", 2L, "t_order", "t_order_1");
+
+        // Then
+        String sql = bound.getSql().replaceAll("\\s+", " ");
+        assertTrue(sql.contains("SELECT order_id, user_id, order_no"));
+        assertTrue(sql.contains("FROM t_order_1 WHERE user_id = ?"));
+        assertArrayEquals(new Object[]{2L}, bound.getArgs());
+        assertNull(bound.getFetchSize());
+        assertEquals(ResultSet.TYPE_FORWARD_ONLY, bound.getResultSetType());
+    }
+
+    @Test
+    void testBind_NamedParameters() {
+        // Given
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put("offset", 0);
+        parameter.put("limit", 30);
+
+        // When
+        PhysicalStatements.Bound page = physicalStatements.bind(OrderMapper.class, "selectByPage", parameter, "t_order", "t_order_0");
+        PhysicalStatements.Bound counts = physicalStatements.bind(RowCounterMapper.class, "selectSlotCounts",
+                Collections.singletonMap("tableName", "t_order"), "t_shard_counter", "t_shard_counter");
+
+        // Then
+        assertTrue(page.getSql().contains("FROM t_order_0"));
+        assertArrayEquals(new Object[]{0, 30}, page.getArgs());
+        assertTrue(counts.getSql().contains("FROM t_shard_counter WHERE table_name = ?"));
+        assertArrayEquals(new Object[]{"t_order"}, counts.getArgs());
+    }
+
+    @Test
+    void testBind_StatementOptions() {
+        // When
+        PhysicalStatements.Bound bound = physicalStatements.bind(OrderMapper.class, "selectAllForExport", null, "t_order", "t_order_0");
+
+        // Then
+        assertEquals(Integer.MIN_VALUE, bound.getFetchSize());
+        assertEquals(ResultSet.TYPE_FORWARD_ONLY, bound.getResultSetType());
+    }
+}
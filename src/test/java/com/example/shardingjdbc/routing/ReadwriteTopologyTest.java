@@ -0,0 +1,49 @@
+package com.example.shardingjdbc.routing;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 读写分离拓扑单元测试
+ */
+class ReadwriteTopologyTest {
+
+    private static final String PREFIX = "spring.shardingsphere.rules.readwrite-splitting.data-sources.";
+
+    @Test
+    void testTopology_ReadsPrimaryAndReplicasPerShard() {
+        // Given
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty(PREFIX + "ds0.static-strategy.write-data-source-name", "ds0-primary")
+                .withProperty(PREFIX + "ds0.static-strategy.read-data-source-names", "ds0-replica0, ds0-replica1")
+                .withProperty(PREFIX + "ds0.load-balancer-name", "replica-weight");
+
+        // When
+        ReadwriteTopology topology = new ReadwriteTopology(environment);
+
+        // Then
+        assertEquals("ds0-primary", topology.primaryOf("ds0"));
+        assertEquals(Arrays.asList("ds0-replica0", "ds0-replica1"), topology.replicasOf("ds0"));
+        assertEquals("ds0", topology.logicalNameOf("ds0-primary"));
+        assertEquals("ds0", topology.logicalNameOf("ds0-replica1"));
+        assertTrue(topology.isReplica("ds0-replica0"));
+        assertFalse(topology.isReplica("ds0-primary"));
+    }
+
+    @Test
+    void testTopology_WithoutReadwriteSplitting() {
+        // When
+        ReadwriteTopology topology = new ReadwriteTopology(new MockEnvironment());
+
+        // Then
+        assertEquals("ds1", topology.primaryOf("ds1"));
+        assertEquals("ds1", topology.logicalNameOf("ds1"));
+        assertEquals(Collections.emptyList(), topology.replicasOf("ds1"));
+        assertFalse(topology.isReplica("ds1"));
+    }
+}
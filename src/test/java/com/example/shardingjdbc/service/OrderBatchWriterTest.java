@@ -0,0 +1,132 @@
+package com.example.shardingjdbc.service;
+
+import com.example.shardingjdbc.counter.RowCounterService;
+import com.example.shardingjdbc.dto.OrderStatusChange;
+import com.example.shardingjdbc.entity.Order;
+import com.example.shardingjdbc.mapper.OrderMapper;
+import com.example.shardingjdbc.resharding.ReshardingCoordinator;
+import com.example.shardingjdbc.resharding.ReshardingTable;
+import com.example.shardingjdbc.service.impl.OrderBatchWriter;
+import com.example.shardingjdbc.sharding.DataNodeLocator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 订单批量写入器单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderBatchWriterTest {
+
+    @Mock
+    private OrderMapper orderMapper;
+
+    @Mock
+    private RowCounterService rowCounterService;
+
+    @Mock
+    private ReshardingCoordinator reshardingCoordinator;
+
+    @Spy
+    private DataNodeLocator dataNodeLocator = new DataNodeLocator(new MockEnvironment()
+            .withProperty("spring.shardingsphere.rules.sharding.sharding-algorithms.order-db-algorithm.props.default-nodes", "ds0,ds1"), 2);
+
+    @InjectMocks
+    private OrderBatchWriter orderBatchWriter;
+
+    @Test
+    void testInsertAll_OneInsertPerDataNode() {
+        // Given
+        Order first = newOrder(2050L, 2L);
+        Order second = newOrder(2052L, 4L);
+        Order third = newOrder(3074L, 2L);
+
+        // When
+        orderBatchWriter.insertAll(Arrays.asList(first, second, third));
+
+        // Then
+        // 用户2在ds0.t_order_0，用户4在ds0.t_order_1
+        verify(orderMapper, times(1)).insertBatch(Arrays.asList(first, third));
+        verify(orderMapper, times(1)).insertBatch(Arrays.asList(second));
+        Map<Long, Integer> expectedCounts = new HashMap<>();
+        expectedCounts.put(2L, 2);
+        expectedCounts.put(4L, 1);
+        verify(rowCounterService, times(1)).onOrdersInserted(expectedCounts);
+        verify(reshardingCoordinator, times(1)).afterSavedAll(ReshardingTable.ORDER, Arrays.asList(2050L, 2052L, 3074L));
+    }
+
+    @Test
+    void testUpdateStatuses_OneUpdatePerNodeAndStatus() {
+        // Given
+        when(orderMapper.selectStatuses(Arrays.asList(2050L, 3074L))).thenReturn(Arrays.asList(statusOf(2050L, 1, 0)));
+        when(orderMapper.selectStatuses(Arrays.asList(2052L))).thenReturn(Arrays.asList(statusOf(2052L, 1, 3)));
+        when(orderMapper.updateStatusBatch(anyMap(), eq(2), any())).thenReturn(1);
+
+        // When
+        Map<Long, String> result = orderBatchWriter.updateStatuses(Arrays.asList(
+                new OrderStatusChange(2L, 2050L, 2), new OrderStatusChange(4L, 2052L, 2), new OrderStatusChange(2L, 3074L, 2)));
+
+        // Then
+        assertEquals(Collections.singletonMap(3074L, "订单不存在"), result);
+        verify(orderMapper, times(1)).updateStatusBatch(eq(Collections.singletonMap(2050L, 0)), eq(2), any());
+        verify(orderMapper, times(1)).updateStatusBatch(eq(Collections.singletonMap(2052L, 3)), eq(2), any());
+        verify(reshardingCoordinator, times(1)).afterSavedAll(ReshardingTable.ORDER, Arrays.asList(2050L));
+        verify(reshardingCoordinator, times(1)).afterSavedAll(ReshardingTable.ORDER, Arrays.asList(2052L));
+    }
+
+    @Test
+    void testUpdateStatuses_FinalStatusRejectedAndConflictReread() {
+        // Given
+        when(orderMapper.selectStatuses(Arrays.asList(2050L, 3074L, 4098L)))
+                .thenReturn(Arrays.asList(statusOf(2050L, 1, 1), statusOf(3074L, 4, 2), statusOf(4098L, 1, 5)));
+        // 4098在读取后被其他请求取消，只有2050按读到的版本写入
+        when(orderMapper.updateStatusBatch(anyMap(), eq(2), any())).thenReturn(1);
+        when(orderMapper.selectStatuses(Arrays.asList(2050L, 4098L)))
+                .thenReturn(Arrays.asList(statusOf(2050L, 2, 2), statusOf(4098L, 4, 6)));
+
+        // When
+        Map<Long, String> result = orderBatchWriter.updateStatuses(Arrays.asList(
+                new OrderStatusChange(2L, 2050L, 2), new OrderStatusChange(2L, 3074L, 2), new OrderStatusChange(2L, 4098L, 2)));
+
+        // Then
+        Map<Long, String> expected = new HashMap<>();
+        expected.put(3074L, "订单已完成或已取消，不能变更状态");
+        expected.put(4098L, "订单已完成或已取消，不能变更状态");
+        assertEquals(expected, result);
+        Map<Long, Integer> versions = new LinkedHashMap<>();
+        versions.put(2050L, 1);
+        versions.put(4098L, 5);
+        verify(orderMapper, times(1)).updateStatusBatch(eq(versions), eq(2), any());
+        // 4098未写入，只同步2050
+        verify(reshardingCoordinator, times(1)).afterSavedAll(ReshardingTable.ORDER, Arrays.asList(2050L));
+    }
+
+    private Order statusOf(Long orderId, Integer status, Integer version) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setStatus(status);
+        order.setVersion(version);
+        return order;
+    }
+
+    private Order newOrder(Long orderId, Long userId) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setUserId(userId);
+        return order;
+    }
+}
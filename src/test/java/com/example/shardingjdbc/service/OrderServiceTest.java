@@ -1,19 +1,52 @@
 package com.example.shardingjdbc.service;
 
+import com.example.shardingjdbc.counter.RowCounterService;
+import com.example.shardingjdbc.dto.BatchItemResult;
+import com.example.shardingjdbc.dto.CursorPage;
+import com.example.shardingjdbc.dto.OrderCursor;
+import com.example.shardingjdbc.dto.OrderStatusChange;
 import com.example.shardingjdbc.entity.Order;
+import com.example.shardingjdbc.guard.Deadline;
+import com.example.shardingjdbc.keygen.OrderIdGenerator;
 import com.example.shardingjdbc.mapper.OrderMapper;
+import com.example.shardingjdbc.resharding.ReshardingCoordinator;
+import com.example.shardingjdbc.resharding.ReshardingTable;
+import com.example.shardingjdbc.routing.HedgedReader;
+import com.example.shardingjdbc.routing.PhysicalStatements;
+import com.example.shardingjdbc.service.impl.OrderBatchWriter;
 import com.example.shardingjdbc.service.impl.OrderServiceImpl;
+import com.example.shardingjdbc.service.impl.OrderWriteCoalescer;
+import com.example.shardingjdbc.service.impl.StreamingMergeReader;
+import com.example.shardingjdbc.sharding.DataNodeLocator;
+import com.example.shardingjdbc.sharding.OrderNoCodec;
+import com.example.shardingjdbc.sharding.ShardingGene;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.ExecutorServiceAdapter;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -28,6 +61,37 @@ class OrderServiceTest {
     @Mock
     private OrderMapper orderMapper;
     
+    @Spy
+    private OrderIdGenerator orderIdGenerator = new OrderIdGenerator(0L);
+    
+    @Mock
+    private ReshardingCoordinator reshardingCoordinator;
+    
+    @Mock
+    private RowCounterService rowCounterService;
+    
+    @Spy
+    private DataNodeLocator dataNodeLocator = new DataNodeLocator(new MockEnvironment()
+            .withProperty("spring.shardingsphere.rules.sharding.sharding-algorithms.order-db-algorithm.props.default-nodes", "ds0,ds1"), 2);
+    
+    @Spy
+    private ExecutorService shardExecutor = new ExecutorServiceAdapter(new SyncTaskExecutor());
+    
+    @Mock
+    private OrderBatchWriter orderBatchWriter;
+    
+    @Mock
+    private OrderWriteCoalescer orderWriteCoalescer;
+    
+    @Mock
+    private HedgedReader hedgedReader;
+    
+    @Mock
+    private PhysicalStatements physicalStatements;
+    
+    @Mock
+    private StreamingMergeReader streamingMergeReader;
+    
     @InjectMocks
     private OrderServiceImpl orderService;
     
@@ -63,6 +127,47 @@ class OrderServiceTest {
         assertNotNull(result.getOrderNo());
         
         verify(orderMapper, times(1)).insert(any(Order.class));
+        verify(rowCounterService, times(1)).onOrderInserted(1L);
+    }
+    
+    @Test
+    void testCreateOrder_GeneratesOrderIdWithUserGene() {
+        // Given
+        testOrder.setOrderId(null);
+        testOrder.setOrderNo(null);
+        testOrder.setUserId(12345L);
+        when(orderMapper.insert(any(Order.class))).thenReturn(1);
+        
+        // When
+        Order result = orderService.createOrder(testOrder);
+        
+        // Then
+        assertNotNull(result.getOrderId());
+        assertEquals(ShardingGene.ofUserId(12345L), ShardingGene.ofOrderId(result.getOrderId()));
+        assertEquals(12345L % 2, result.getOrderId() % 2);
+        assertEquals(result.getOrderId(), OrderNoCodec.decodeOrderId(result.getOrderNo()));
+        
+        verify(orderIdGenerator, times(1)).nextId(12345L);
+    }
+    
+    @Test
+    void testCreateOrder_RejectsOrderIdOfAnotherUser() {
+        // Given
+        testOrder.setOrderId(2050L);
+        
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> orderService.createOrder(testOrder));
+        verify(orderMapper, never()).insert(any(Order.class));
+    }
+    
+    @Test
+    void testCreateOrder_RejectsOrderNoOfAnotherOrder() {
+        // Given
+        testOrder.setOrderNo(OrderNoCodec.encode(1025L, LocalDate.of(2023, 12, 1)));
+        
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> orderService.createOrder(testOrder));
+        verify(orderMapper, never()).insert(any(Order.class));
     }
     
     @Test
@@ -81,6 +186,136 @@ class OrderServiceTest {
         verify(orderMapper, times(1)).insert(any(Order.class));
     }
     
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCreateOrders_GroupsByDatabase() {
+        // Given
+        List<Order> orders = Arrays.asList(newOrder(2L), newOrder(3L), newOrder(4L), newOrder(2L));
+        
+        // When
+        List<BatchItemResult<Order>> results = orderService.createOrders(orders);
+        
+        // Then
+        assertEquals(4, results.size());
+        assertTrue(results.stream().allMatch(BatchItemResult::isSuccess));
+        // 用户2、4在ds0，用户3在ds1，每个库一次批量写入
+        ArgumentCaptor<List<Order>> captor = ArgumentCaptor.forClass(List.class);
+        verify(orderBatchWriter, times(2)).insertAll(captor.capture());
+        assertEquals(3, captor.getAllValues().get(0).size());
+        assertEquals(1, captor.getAllValues().get(1).size());
+        assertTrue(results.stream().allMatch(each -> each.getData().getOrderId() != null));
+    }
+    
+    @Test
+    void testCreateOrders_TimeoutReportsUnknown() {
+        // Given
+        List<Order> orders = Arrays.asList(newOrder(2L), newOrder(3L));
+        // 分片任务一直没有完成，等待到处理时限
+        doNothing().when(shardExecutor).execute(any(Runnable.class));
+        ReflectionTestUtils.invokeMethod(Deadline.class, "bind", new Deadline(50));
+        
+        // When
+        List<BatchItemResult<Order>> results;
+        try {
+            results = orderService.createOrders(orders);
+        } finally {
+            ReflectionTestUtils.invokeMethod(Deadline.class, "unbind");
+        }
+        
+        // Then
+        assertEquals(2, results.size());
+        for (BatchItemResult<Order> each : results) {
+            assertFalse(each.isSuccess());
+            assertTrue(each.isUnknown());
+            assertNotNull(each.getData().getOrderId());
+            assertTrue(each.getMessage().contains("结果未知"));
+        }
+    }
+    
+    @Test
+    void testCreateOrders_ReportsPerItemFailures() {
+        // Given
+        Order invalid = newOrder(3L);
+        invalid.setUserId(null);
+        Order foreign = newOrder(3L);
+        foreign.setOrderId(2050L);
+        doThrow(new RuntimeException("Duplicate entry")).when(orderBatchWriter).insertAll(anyList());
+        
+        // When
+        List<BatchItemResult<Order>> results = orderService.createOrders(Arrays.asList(newOrder(2L), invalid, foreign));
+        
+        // Then
+        assertFalse(results.get(0).isSuccess());
+        assertTrue(results.get(0).getMessage().contains("Duplicate entry"));
+        assertEquals("用户ID不能为空", results.get(1).getMessage());
+        assertEquals("订单ID与用户ID不匹配", results.get(2).getMessage());
+    }
+    
+    @Test
+    void testCreateOrders_FallsBackToSingleWrites() {
+        // Given
+        Order duplicate = newOrder(4L);
+        duplicate.setOrderNo("DUPLICATE_ORDER_NO");
+        // 整库批量写入失败后逐个写入，只有重复的订单失败
+        doThrow(new RuntimeException("Duplicate entry")).when(orderBatchWriter)
+                .insertAll(argThat(each -> each.size() > 1 || each.contains(duplicate)));
+        
+        // When
+        List<BatchItemResult<Order>> results = orderService.createOrders(Arrays.asList(newOrder(2L), duplicate, newOrder(2L)));
+        
+        // Then
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(1).getMessage().contains("Duplicate entry"));
+        assertTrue(results.get(2).isSuccess());
+        verify(orderBatchWriter, times(4)).insertAll(anyList());
+    }
+    
+    @Test
+    void testUpdateOrderStatuses_PerOrderOutcome() {
+        // Given
+        OrderStatusChange updated = new OrderStatusChange(2L, 2050L, 2);
+        OrderStatusChange missing = new OrderStatusChange(2L, 3074L, 2);
+        OrderStatusChange mismatched = new OrderStatusChange(3L, 2050L, 2);
+        OrderStatusChange cancelled = new OrderStatusChange(2L, 4098L, 2);
+        Map<Long, String> failures = new HashMap<>();
+        failures.put(3074L, "订单不存在");
+        failures.put(4098L, "订单已完成或已取消，不能变更状态");
+        when(orderBatchWriter.updateStatuses(Arrays.asList(updated, missing, cancelled))).thenReturn(failures);
+        
+        // When
+        List<BatchItemResult<OrderStatusChange>> results = orderService.updateOrderStatuses(Arrays.asList(updated, missing, mismatched, cancelled));
+        
+        // Then
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("订单不存在", results.get(1).getMessage());
+        assertEquals("订单ID与用户ID不匹配", results.get(2).getMessage());
+        assertEquals("订单已完成或已取消，不能变更状态", results.get(3).getMessage());
+        verify(orderBatchWriter, times(1)).updateStatuses(anyList());
+    }
+    
+    @Test
+    void testGetOrdersByIds_OneQueryPerDataNodeInRequestOrder() {
+        // Given
+        Order first = newOrder(2L);
+        first.setOrderId(2050L);
+        Order second = newOrder(4L);
+        second.setOrderId(2052L);
+        Order third = newOrder(3L);
+        third.setOrderId(1027L);
+        // 用户2在ds0.t_order_0，用户4在ds0.t_order_1，用户3在ds1.t_order_0
+        when(orderMapper.selectByIds(new LinkedHashSet<>(Arrays.asList(2050L, 3074L)))).thenReturn(Collections.singletonList(first));
+        when(orderMapper.selectByIds(Collections.singleton(2052L))).thenReturn(Collections.singletonList(second));
+        when(orderMapper.selectByIds(Collections.singleton(1027L))).thenReturn(Collections.singletonList(third));
+        
+        // When
+        List<Order> result = orderService.getOrdersByIds(Arrays.asList(1027L, 3074L, 2052L, 2050L, 1027L));
+        
+        // Then
+        assertEquals(Arrays.asList(third, null, second, first, third), result);
+        verify(orderMapper, times(3)).selectByIds(anyCollection());
+    }
+    
     @Test
     void testCreateOrder_Failure() {
         // Given
@@ -110,6 +345,32 @@ class OrderServiceTest {
         verify(orderMapper, times(1)).selectById(1L);
     }
     
+    @Test
+    void testGetOrderById_ReadSwitched() {
+        // Given
+        when(reshardingCoordinator.isReadSwitched()).thenReturn(true);
+        when(reshardingCoordinator.findOrder(1L)).thenReturn(testOrder);
+        
+        // When
+        Order result = orderService.getOrderById(1L);
+        
+        // Then
+        assertEquals(testOrder, result);
+        verify(orderMapper, never()).selectById(anyLong());
+    }
+    
+    @Test
+    void testUpdateOrder_VersionConflict() {
+        // Given
+        testOrder.setVersion(3);
+        when(orderMapper.update(any(Order.class))).thenReturn(0);
+        when(orderMapper.selectById(1L)).thenReturn(testOrder);
+        
+        // When & Then
+        assertThrows(OptimisticLockingFailureException.class, () -> orderService.updateOrder(testOrder));
+        verify(reshardingCoordinator, never()).afterSaved(any(), anyLong());
+    }
+    
     @Test
     void testGetOrderById_NotFound() {
         // Given
@@ -140,6 +401,26 @@ class OrderServiceTest {
         verify(orderMapper, times(1)).selectByUserId(1L);
     }
     
+    @Test
+    void testGetOrdersByUserId_Hedged() {
+        // Given
+        String dataSourceName = dataNodeLocator.orderNodeOf(1L).getDataSourceName();
+        String tableName = dataNodeLocator.orderNodeOf(1L).getTableName();
+        when(hedgedReader.canHedge(dataSourceName)).thenReturn(true);
+        String sql = "SELECT order_id FROM " + tableName + " WHERE user_id = ?";
+        when(physicalStatements.bind(OrderMapper.class, "selectByUserId", 1L, "t_order", tableName))
+                .thenReturn(new PhysicalStatements.Bound(sql, new Object[]{1L}, null, ResultSet.TYPE_FORWARD_ONLY));
+        when(hedgedReader.query(eq("orders-by-user"), eq(dataSourceName), eq(sql), any(), eq(1L)))
+                .thenReturn(Collections.singletonList(testOrder));
+        
+        // When
+        List<Order> result = orderService.getOrdersByUserId(1L);
+        
+        // Then
+        assertEquals(1, result.size());
+        verify(orderMapper, never()).selectByUserId(anyLong());
+    }
+    
     @Test
     void testGetOrderByOrderNo_Success() {
         // Given
@@ -174,38 +455,118 @@ class OrderServiceTest {
     @Test
     void testUpdateOrder_Success() {
         // Given
-        testOrder.setProductName("iPhone 15 Pro");
-        when(orderMapper.update(any(Order.class))).thenReturn(1);
+        testOrder.setVersion(2);
         when(orderMapper.selectById(1L)).thenReturn(testOrder);
+        when(orderMapper.update(any(Order.class))).thenReturn(1);
+        Order patch = new Order();
+        patch.setOrderId(1L);
+        patch.setProductName("iPhone 15 Pro");
         
         // When
-        Order result = orderService.updateOrder(testOrder);
+        Order result = orderService.updateOrder(patch);
         
         // Then
-        assertNotNull(result);
         assertEquals("iPhone 15 Pro", result.getProductName());
+        assertEquals(testOrder.getUserId(), result.getUserId());
+        assertEquals(testOrder.getOrderNo(), result.getOrderNo());
+        assertEquals(3, result.getVersion());
         assertNotNull(result.getUpdateTime());
         
-        verify(orderMapper, times(1)).update(any(Order.class));
+        ArgumentCaptor<Order> captor = ArgumentCaptor.forClass(Order.class);
+        verify(orderMapper, times(1)).update(captor.capture());
+        assertEquals(2, captor.getValue().getVersion());
         verify(orderMapper, times(1)).selectById(1L);
     }
     
     @Test
-    void testUpdateOrder_Failure() {
+    void testUpdateOrder_WithVersionWritesWithoutReading() {
         // Given
-        when(orderMapper.update(any(Order.class))).thenReturn(0);
+        testOrder.setVersion(2);
+        when(orderMapper.update(testOrder)).thenReturn(1);
+        
+        // When
+        Order result = orderService.updateOrder(testOrder);
+        
+        // Then - 只执行一条按版本比较的UPDATE，返回调用方的实体和新版本
+        assertSame(testOrder, result);
+        assertEquals(3, result.getVersion());
+        assertNotNull(result.getUpdateTime());
+        verify(orderMapper, never()).selectById(anyLong());
+        verify(reshardingCoordinator, times(1)).afterSaved(ReshardingTable.ORDER, 1L);
+    }
+    
+    @Test
+    void testUpdateOrder_WithVersionFinalStatusRejected() {
+        // Given
+        Order current = createAnotherOrder();
+        current.setOrderId(1L);
+        current.setStatus(4);
+        current.setVersion(3);
+        testOrder.setVersion(2);
+        testOrder.setStatus(1);
+        when(orderMapper.update(testOrder)).thenReturn(0);
+        when(orderMapper.selectById(1L)).thenReturn(current);
+        
+        // When & Then - 写入失败后才读取，区分终态和版本冲突
+        assertThrows(IllegalStateException.class, () -> orderService.updateOrder(testOrder));
+        verify(orderMapper, times(1)).update(any(Order.class));
+    }
+    
+    @Test
+    void testUpdateOrder_RetriesOnConcurrentUpdate() {
+        // Given
+        testOrder.setVersion(2);
+        Order newer = createAnotherOrder();
+        newer.setOrderId(1L);
+        newer.setVersion(3);
+        when(orderMapper.selectById(1L)).thenReturn(testOrder, newer);
+        when(orderMapper.update(any(Order.class))).thenReturn(0, 1);
+        Order patch = new Order();
+        patch.setOrderId(1L);
+        patch.setRemark("加急");
+        
+        // When
+        Order result = orderService.updateOrder(patch);
+        
+        // Then
+        assertSame(newer, result);
+        assertEquals("加急", result.getRemark());
+        assertEquals(4, result.getVersion());
+        verify(orderMapper, times(2)).update(any(Order.class));
+    }
+    
+    @Test
+    void testUpdateOrder_FinalStatusRejected() {
+        // Given
+        testOrder.setStatus(3);
+        testOrder.setVersion(2);
+        when(orderMapper.selectById(1L)).thenReturn(testOrder);
+        Order patch = new Order();
+        patch.setOrderId(1L);
+        patch.setStatus(1);
+        
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> orderService.updateOrder(patch));
+        verify(orderMapper, never()).update(any(Order.class));
+    }
+    
+    @Test
+    void testUpdateOrder_NotFound() {
+        // Given
+        when(orderMapper.selectById(1L)).thenReturn(null);
         
         // When & Then
         assertThrows(RuntimeException.class, () -> {
             orderService.updateOrder(testOrder);
         });
         
-        verify(orderMapper, times(1)).update(any(Order.class));
+        verify(orderMapper, never()).update(any(Order.class));
     }
     
     @Test
     void testDeleteOrder_Success() {
         // Given
+        when(orderMapper.selectById(1L)).thenReturn(testOrder);
         when(orderMapper.deleteById(1L)).thenReturn(1);
         
         // When
@@ -214,6 +575,8 @@ class OrderServiceTest {
         // Then
         assertTrue(result);
         verify(orderMapper, times(1)).deleteById(1L);
+        verify(rowCounterService, times(1)).onOrderDeleted(1L);
+        verify(reshardingCoordinator, times(1)).afterDeleted(ReshardingTable.ORDER, 1L);
     }
     
     @Test
@@ -227,6 +590,7 @@ class OrderServiceTest {
         // Then
         assertFalse(result);
         verify(orderMapper, times(1)).deleteById(999L);
+        verify(rowCounterService, never()).onOrderDeleted(any());
     }
     
     @Test
@@ -246,17 +610,79 @@ class OrderServiceTest {
         verify(orderMapper, times(1)).selectByPage(0, 10);
     }
     
+    @Test
+    void testExportAllOrders_Success() {
+        // Given
+        when(streamingMergeReader.forEach(eq(ReshardingTable.ORDER), eq(OrderMapper.class), eq("selectAllForExport"),
+                any(), any(), any())).thenAnswer(invocation -> {
+                    Consumer<Order> consumer = invocation.getArgument(5);
+                    consumer.accept(testOrder);
+                    consumer.accept(testOrder);
+                    return 2L;
+                });
+        List<Order> exported = new ArrayList<>();
+        
+        // When
+        long count = orderService.exportAllOrders(exported::add);
+        
+        // Then
+        assertEquals(2L, count);
+        assertEquals(2, exported.size());
+        verify(orderMapper, never()).selectAll();
+    }
+    
+    @Test
+    void testGetOrdersByCursor_FirstPage() {
+        // Given
+        testOrder.setCreateTime(LocalDateTime.of(2024, 1, 1, 12, 0, 0));
+        Order second = new Order();
+        second.setOrderId(2L);
+        second.setCreateTime(testOrder.getCreateTime().minusSeconds(1));
+        when(orderMapper.selectByCursor(null, null, 2)).thenReturn(Arrays.asList(testOrder, second));
+        
+        // When
+        CursorPage<Order> result = orderService.getOrdersByCursor(null, 1);
+        
+        // Then
+        assertEquals(1, result.getData().size());
+        assertTrue(result.isHasMore());
+        OrderCursor cursor = OrderCursor.decode(result.getNextCursor());
+        assertEquals(testOrder.getCreateTime(), cursor.getCreateTime());
+        assertEquals(1L, cursor.getOrderId());
+    }
+    
+    @Test
+    void testGetOrdersByCursor_LastPage() {
+        // Given
+        LocalDateTime createTime = LocalDateTime.of(2024, 1, 1, 12, 0, 0);
+        String cursor = new OrderCursor(createTime, 5L).encode();
+        when(orderMapper.selectByCursor(createTime, 5L, 11)).thenReturn(Arrays.asList(testOrder));
+        
+        // When
+        CursorPage<Order> result = orderService.getOrdersByCursor(cursor, 10);
+        
+        // Then
+        assertEquals(1, result.getData().size());
+        assertFalse(result.isHasMore());
+        assertNull(result.getNextCursor());
+    }
+    
+    @Test
+    void testGetOrdersByCursor_InvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> orderService.getOrdersByCursor("not-a-cursor", 10));
+    }
+    
     @Test
     void testGetOrderCount_Success() {
         // Given
-        when(orderMapper.countAll()).thenReturn(5);
+        when(rowCounterService.countOrders()).thenReturn(5L);
         
         // When
         int result = orderService.getOrderCount();
         
         // Then
         assertEquals(5, result);
-        verify(orderMapper, times(1)).countAll();
+        verify(orderMapper, never()).countAll();
     }
     
     @Test
@@ -279,19 +705,21 @@ class OrderServiceTest {
     @Test
     void testGetOrderCountByUserId_Success() {
         // Given
-        when(orderMapper.countByUserId(1L)).thenReturn(3);
+        when(rowCounterService.countOrdersByUserId(1L)).thenReturn(3L);
         
         // When
         int result = orderService.getOrderCountByUserId(1L);
         
         // Then
         assertEquals(3, result);
-        verify(orderMapper, times(1)).countByUserId(1L);
+        verify(orderMapper, never()).countByUserId(1L);
     }
     
     @Test
     void testUpdateOrderStatus_Success() {
         // Given
+        testOrder.setVersion(0);
+        when(orderMapper.selectById(1L)).thenReturn(testOrder);
         when(orderMapper.update(any(Order.class))).thenReturn(1);
         
         // When
@@ -299,20 +727,64 @@ class OrderServiceTest {
         
         // Then
         assertTrue(result);
-        verify(orderMapper, times(1)).update(any(Order.class));
+        verify(orderMapper, times(1)).update(argThat(order -> order.getStatus() == 1 && order.getVersion() == 0));
     }
     
     @Test
     void testUpdateOrderStatus_Failure() {
         // Given
-        when(orderMapper.update(any(Order.class))).thenReturn(0);
+        when(orderMapper.selectById(1L)).thenReturn(null);
         
         // When
         boolean result = orderService.updateOrderStatus(1L, 1);
         
         // Then
         assertFalse(result);
-        verify(orderMapper, times(1)).update(any(Order.class));
+        verify(orderMapper, never()).update(any(Order.class));
+    }
+    
+    @Test
+    void testUpdateOrderStatus_RetriesAfterVersionConflict() {
+        // Given
+        Order stale = createAnotherOrder();
+        stale.setVersion(0);
+        Order fresh = createAnotherOrder();
+        fresh.setVersion(1);
+        when(orderMapper.selectById(2L)).thenReturn(stale, fresh);
+        when(orderMapper.update(any(Order.class))).thenReturn(0, 1);
+        
+        // When
+        boolean result = orderService.updateOrderStatus(2L, 2);
+        
+        // Then
+        assertTrue(result);
+        verify(orderMapper, times(2)).selectById(2L);
+        verify(orderMapper, times(1)).update(argThat(order -> order.getVersion() == 1));
+        verify(reshardingCoordinator, times(1)).afterSaved(ReshardingTable.ORDER, 2L);
+    }
+    
+    @Test
+    void testUpdateOrderStatus_GivesUpAfterMaxAttempts() {
+        // Given
+        testOrder.setVersion(0);
+        when(orderMapper.selectById(1L)).thenReturn(testOrder);
+        when(orderMapper.update(any(Order.class))).thenReturn(0);
+        
+        // When & Then
+        assertThrows(OptimisticLockingFailureException.class, () -> orderService.updateOrderStatus(1L, 1));
+        verify(orderMapper, times(3)).update(any(Order.class));
+    }
+    
+    @Test
+    void testUpdateOrderStatus_FinalStatusRejected() {
+        // Given
+        testOrder.setStatus(4);
+        testOrder.setVersion(5);
+        when(orderMapper.selectById(1L)).thenReturn(testOrder);
+        
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> orderService.updateOrderStatus(1L, 1));
+        verify(orderMapper, never()).update(any(Order.class));
     }
     
     private Order createAnotherOrder() {
@@ -326,4 +798,13 @@ class OrderServiceTest {
         order.setStatus(1);
         return order;
     }
+    
+    private Order newOrder(Long userId) {
+        Order order = new Order();
+        order.setUserId(userId);
+        order.setProductName("iPhone 15");
+        order.setQuantity(1);
+        order.setAmount(new BigDecimal("5999.00"));
+        return order;
+    }
 }
@@ -0,0 +1,77 @@
+package com.example.shardingjdbc.service;
+
+import com.example.shardingjdbc.entity.Order;
+import com.example.shardingjdbc.service.impl.OrderBatchWriter;
+import com.example.shardingjdbc.service.impl.OrderWriteCoalescer;
+import com.example.shardingjdbc.sharding.DataNodeLocator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 订单写入合并器单元测试
+ */
+class OrderWriteCoalescerTest {
+
+    private OrderBatchWriter orderBatchWriter;
+
+    private OrderWriteCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        orderBatchWriter = mock(OrderBatchWriter.class);
+        DataNodeLocator dataNodeLocator = new DataNodeLocator(new MockEnvironment()
+                .withProperty("spring.shardingsphere.rules.sharding.sharding-algorithms.order-db-algorithm.props.default-nodes", "ds0,ds1"), 2);
+        // 时间窗口足够长，保证并发提交的订单落在同一批
+        coalescer = new OrderWriteCoalescer(orderBatchWriter, dataNodeLocator, true, 200_000L, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        coalescer.shutdown();
+    }
+
+    @Test
+    void testWrite_ConcurrentOrdersShareOneBatch() throws Exception {
+        // When
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> coalescer.write(newOrder(2050L, 2L)));
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> coalescer.write(newOrder(2052L, 4L)));
+        CompletableFuture.allOf(first, second).get();
+
+        // Then
+        verify(orderBatchWriter, times(1)).insertAll(argThat(orders -> orders.size() == 2));
+    }
+
+    @Test
+    void testWrite_BatchFailureRetriesEachOrder() throws Exception {
+        // Given
+        Order good = newOrder(2050L, 2L);
+        Order bad = newOrder(2052L, 4L);
+        doThrow(new IllegalStateException("Duplicate entry")).when(orderBatchWriter).insertAll(argThat(orders -> orders.contains(bad)));
+
+        // When
+        CompletableFuture<Void> goodResult = CompletableFuture.runAsync(() -> coalescer.write(good));
+        CompletableFuture<Void> badResult = CompletableFuture.runAsync(() -> coalescer.write(bad));
+
+        // Then
+        goodResult.get();
+        ExecutionException exception = assertThrows(ExecutionException.class, badResult::get);
+        assertTrue(exception.getCause().getMessage().contains("Duplicate entry"));
+        verify(orderBatchWriter, times(3)).insertAll(anyList());
+    }
+
+    private Order newOrder(Long orderId, Long userId) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setUserId(userId);
+        return order;
+    }
+}
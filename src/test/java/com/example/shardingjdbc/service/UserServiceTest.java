@@ -1,18 +1,34 @@
 package com.example.shardingjdbc.service;
 
+import com.example.shardingjdbc.cache.UserCache;
+import com.example.shardingjdbc.counter.RowCounterService;
 import com.example.shardingjdbc.entity.User;
+import com.example.shardingjdbc.keygen.SegmentIdGenerator;
 import com.example.shardingjdbc.mapper.UserMapper;
+import com.example.shardingjdbc.mapper.UsernameIndexMapper;
+import com.example.shardingjdbc.resharding.ReshardingCoordinator;
+import com.example.shardingjdbc.resharding.ReshardingTable;
 import com.example.shardingjdbc.service.impl.UserServiceImpl;
+import com.example.shardingjdbc.sharding.DataNodeLocator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.ExecutorServiceAdapter;
+import org.springframework.mock.env.MockEnvironment;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -27,6 +43,28 @@ class UserServiceTest {
     @Mock
     private UserMapper userMapper;
     
+    @Mock
+    private UsernameIndexMapper usernameIndexMapper;
+    
+    @Mock
+    private SegmentIdGenerator segmentIdGenerator;
+    
+    @Mock
+    private ReshardingCoordinator reshardingCoordinator;
+    
+    @Mock
+    private RowCounterService rowCounterService;
+    
+    @Spy
+    private UserCache userCache = new UserCache(true, 100, 60);
+    
+    @Spy
+    private DataNodeLocator dataNodeLocator = new DataNodeLocator(new MockEnvironment()
+            .withProperty("spring.shardingsphere.rules.sharding.sharding-algorithms.order-db-algorithm.props.default-nodes", "ds0,ds1"), 2);
+    
+    @Spy
+    private ExecutorService shardExecutor = new ExecutorServiceAdapter(new SyncTaskExecutor());
+    
     @InjectMocks
     private UserServiceImpl userService;
     
@@ -59,6 +97,38 @@ class UserServiceTest {
         assertNotNull(result.getCreateTime());
         assertNotNull(result.getUpdateTime());
         
+        verify(usernameIndexMapper, times(1)).insert("testuser", 1L);
+        verify(userMapper, times(1)).insert(any(User.class));
+        verify(reshardingCoordinator, times(1)).afterSaved(ReshardingTable.USER, 1L);
+        verify(rowCounterService, times(1)).onUserInserted(1L);
+    }
+    
+    @Test
+    void testCreateUser_DuplicateUsername() {
+        // Given
+        when(usernameIndexMapper.insert("testuser", 1L)).thenThrow(new DuplicateKeyException("duplicate"));
+        
+        // When & Then
+        assertThrows(RuntimeException.class, () -> {
+            userService.createUser(testUser);
+        });
+        
+        verify(userMapper, never()).insert(any(User.class));
+    }
+    
+    @Test
+    void testCreateUser_AllocatesUserIdFromSegment() {
+        // Given
+        testUser.setUserId(null);
+        when(segmentIdGenerator.nextId("user_id")).thenReturn(1001L);
+        when(userMapper.insert(any(User.class))).thenReturn(1);
+        
+        // When
+        User result = userService.createUser(testUser);
+        
+        // Then
+        assertEquals(1001L, result.getUserId());
+        verify(segmentIdGenerator, times(1)).nextId("user_id");
         verify(userMapper, times(1)).insert(any(User.class));
     }
     
@@ -104,10 +174,77 @@ class UserServiceTest {
         verify(userMapper, times(1)).selectById(999L);
     }
     
+    @Test
+    void testGetUsersByIds_OneQueryPerDataNodeInRequestOrder() {
+        // Given
+        User another = createAnotherUser();
+        // 用户1、3在ds1，用户2在ds0
+        when(userMapper.selectByIds(new LinkedHashSet<>(Arrays.asList(3L, 1L)))).thenReturn(Collections.singletonList(testUser));
+        when(userMapper.selectByIds(Collections.singleton(2L))).thenReturn(Collections.singletonList(another));
+        
+        // When
+        List<User> result = userService.getUsersByIds(Arrays.asList(3L, 2L, 1L));
+        
+        // Then
+        assertEquals(Arrays.asList(null, another, testUser), result);
+        verify(userMapper, times(2)).selectByIds(anyCollection());
+    }
+    
+    @Test
+    void testGetUsersByIds_TooMany() {
+        // Given
+        List<Long> userIds = Collections.nCopies(201, 1L);
+        
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> userService.getUsersByIds(userIds));
+        verify(userMapper, never()).selectByIds(anyCollection());
+    }
+    
+    @Test
+    void testGetUserById_CachesHitsAndMisses() {
+        // Given
+        when(userMapper.selectById(1L)).thenReturn(testUser);
+        when(userMapper.selectById(999L)).thenReturn(null);
+        
+        // When
+        userService.getUserById(1L);
+        User result = userService.getUserById(1L);
+        userService.getUserById(999L);
+        User missing = userService.getUserById(999L);
+        
+        // Then
+        assertEquals("testuser", result.getUsername());
+        assertNull(missing);
+        verify(userMapper, times(1)).selectById(1L);
+        verify(userMapper, times(1)).selectById(999L);
+    }
+    
+    @Test
+    void testUpdateUser_EvictsCachedUser() {
+        // Given
+        User updated = createAnotherUser();
+        updated.setUserId(1L);
+        when(userMapper.selectById(1L)).thenReturn(testUser, updated);
+        when(userMapper.update(any(User.class))).thenReturn(1);
+        userService.getUserById(1L);
+        
+        // When
+        User patch = new User();
+        patch.setUserId(1L);
+        patch.setEmail("another@example.com");
+        userService.updateUser(patch);
+        User result = userService.getUserById(1L);
+        
+        // Then
+        assertEquals("another@example.com", result.getEmail());
+        verify(userMapper, times(2)).selectById(1L);
+    }
+    
     @Test
     void testGetUserByUsername_Success() {
         // Given
-        when(userMapper.selectByUsername("testuser")).thenReturn(testUser);
+        when(usernameIndexMapper.selectUserIdByUsername("testuser")).thenReturn(1L);
+        when(userMapper.selectById(1L)).thenReturn(testUser);
         
         // When
         User result = userService.getUserByUsername("testuser");
@@ -116,7 +253,22 @@ class UserServiceTest {
         assertNotNull(result);
         assertEquals("testuser", result.getUsername());
         
-        verify(userMapper, times(1)).selectByUsername("testuser");
+        verify(usernameIndexMapper, times(1)).selectUserIdByUsername("testuser");
+        verify(userMapper, times(1)).selectById(1L);
+        verify(userMapper, never()).selectByUsername(anyString());
+    }
+    
+    @Test
+    void testGetUserByUsername_NotFound() {
+        // Given
+        when(usernameIndexMapper.selectUserIdByUsername("nobody")).thenReturn(null);
+        
+        // When
+        User result = userService.getUserByUsername("nobody");
+        
+        // Then
+        assertNull(result);
+        verify(userMapper, never()).selectById(anyLong());
     }
     
     @Test
@@ -152,25 +304,91 @@ class UserServiceTest {
         assertNotNull(result.getUpdateTime());
         
         verify(userMapper, times(1)).update(any(User.class));
-        verify(userMapper, times(1)).selectById(1L);
+        verify(userMapper, never()).updateIfUsername(any(User.class), anyString());
+        verify(usernameIndexMapper, never()).insert(anyString(), anyLong());
+    }
+    
+    @Test
+    void testUpdateUser_WithoutUsernameWritesWithoutReading() {
+        // Given
+        User patch = new User();
+        patch.setUserId(1L);
+        patch.setEmail("updated@example.com");
+        when(userMapper.update(any(User.class))).thenReturn(1);
+        
+        // When
+        User result = userService.updateUser(patch);
+        
+        // Then
+        assertSame(patch, result);
+        assertEquals("updated@example.com", result.getEmail());
+        assertNotNull(result.getUpdateTime());
+        verify(userMapper, never()).selectById(anyLong());
+        verify(usernameIndexMapper, never()).insert(anyString(), anyLong());
+    }
+    
+    @Test
+    void testUpdateUser_UsernameChanged() {
+        // Given
+        User existing = createAnotherUser();
+        existing.setUserId(1L);
+        when(userMapper.selectById(1L)).thenReturn(existing);
+        when(userMapper.updateIfUsername(any(User.class), eq("anotheruser"))).thenReturn(1);
+        
+        // When
+        User result = userService.updateUser(testUser);
+        
+        // Then
+        assertEquals("testuser", result.getUsername());
+        assertSame(existing, result);
+        verify(userMapper, never()).update(any(User.class));
+        verify(usernameIndexMapper, times(1)).insert("testuser", 1L);
+        verify(usernameIndexMapper, times(1)).deleteByUsername("anotheruser");
+    }
+    
+    @Test
+    void testUpdateUser_UsernameChangedConcurrently() {
+        // Given
+        User existing = createAnotherUser();
+        existing.setUserId(1L);
+        when(userMapper.selectById(1L)).thenReturn(existing);
+        when(userMapper.updateIfUsername(any(User.class), eq("anotheruser"))).thenReturn(0);
+        
+        // When & Then
+        assertThrows(OptimisticLockingFailureException.class, () -> userService.updateUser(testUser));
+        verify(reshardingCoordinator, never()).afterSaved(any(), anyLong());
     }
     
     @Test
     void testUpdateUser_Failure() {
         // Given
+        User patch = new User();
+        patch.setUserId(1L);
+        patch.setEmail("updated@example.com");
         when(userMapper.update(any(User.class))).thenReturn(0);
         
         // When & Then
         assertThrows(RuntimeException.class, () -> {
-            userService.updateUser(testUser);
+            userService.updateUser(patch);
         });
         
         verify(userMapper, times(1)).update(any(User.class));
     }
     
+    @Test
+    void testUpdateUser_NotFound() {
+        // Given
+        when(userMapper.selectById(1L)).thenReturn(null);
+        
+        // When & Then
+        assertThrows(RuntimeException.class, () -> userService.updateUser(testUser));
+        verify(userMapper, never()).update(any(User.class));
+    }
+    
     @Test
     void testDeleteUser_Success() {
         // Given
+        when(userMapper.selectById(1L)).thenReturn(testUser);
         when(userMapper.deleteById(1L)).thenReturn(1);
         
         // When
@@ -179,6 +397,8 @@ class UserServiceTest {
         // Then
         assertTrue(result);
         verify(userMapper, times(1)).deleteById(1L);
+        verify(usernameIndexMapper, times(1)).deleteByUsername("testuser");
+        verify(rowCounterService, times(1)).onUserDeleted(1L);
     }
     
     @Test
@@ -192,6 +412,7 @@ class UserServiceTest {
         // Then
         assertFalse(result);
         verify(userMapper, times(1)).deleteById(999L);
+        verify(usernameIndexMapper, never()).deleteByUsername(anyString());
     }
     
     @Test
@@ -213,14 +434,14 @@ class UserServiceTest {
     @Test
     void testGetUserCount_Success() {
         // Given
-        when(userMapper.countAll()).thenReturn(5);
+        when(rowCounterService.countUsers()).thenReturn(5L);
         
         // When
         int result = userService.getUserCount();
         
         // Then
         assertEquals(5, result);
-        verify(userMapper, times(1)).countAll();
+        verify(userMapper, never()).countAll();
     }
     
     private User createAnotherUser() {
@@ -0,0 +1,36 @@
+package com.example.shardingjdbc.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 订单号编解码单元测试
+ */
+class OrderNoCodecTest {
+    
+    @Test
+    void testEncodeAndDecode() {
+        // Given
+        long orderId = ShardingGene.compose(123456789L, 7L);
+        
+        // When
+        String orderNo = OrderNoCodec.encode(orderId, LocalDate.of(2024, 1, 1));
+        
+        // Then
+        assertTrue(orderNo.startsWith("ORDER20240101"));
+        assertEquals(32, orderNo.length());
+        assertEquals(orderId, OrderNoCodec.decodeOrderId(orderNo));
+        assertEquals(7, ShardingGene.ofOrderId(OrderNoCodec.decodeOrderId(orderNo)));
+    }
+    
+    @Test
+    void testDecode_NotRoutable() {
+        assertNull(OrderNoCodec.decodeOrderId(null));
+        assertNull(OrderNoCodec.decodeOrderId("ORDER20231201001"));
+        assertNull(OrderNoCodec.decodeOrderId("CUSTOM_ORDER_001"));
+        assertNull(OrderNoCodec.decodeOrderId("ORDER2024010100000000000000000X1"));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.shardingjdbc.sharding;
+
+import com.google.common.collect.Range;
+import org.apache.shardingsphere.sharding.api.sharding.complex.ComplexKeysShardingValue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 订单表分表算法单元测试
+ */
+class OrderTableShardingAlgorithmTest {
+    
+    private final List<String> targets = Arrays.asList("t_order_0", "t_order_1");
+    
+    private OrderTableShardingAlgorithm algorithm;
+    
+    @BeforeEach
+    void setUp() {
+        algorithm = new OrderTableShardingAlgorithm();
+        algorithm.init(new Properties());
+    }
+    
+    @Test
+    void testUserOrdersInOneTable() {
+        // Given
+        Collection<String> byUser = algorithm.doSharding(targets, precise(OrderShardingKeys.USER_ID_COLUMN, 4L));
+        
+        // When & Then - 同一用户的不同订单，按订单ID或订单号路由都落到同一张表
+        for (long each = 1L; each <= 10L; each++) {
+            long orderId = ShardingGene.compose(each, 4L);
+            assertEquals(byUser, algorithm.doSharding(targets, precise(OrderShardingKeys.ORDER_ID_COLUMN, orderId)));
+            String orderNo = OrderNoCodec.encode(orderId, LocalDate.of(2024, 1, 1));
+            assertEquals(byUser, algorithm.doSharding(targets, precise(OrderShardingKeys.ORDER_NO_COLUMN, orderNo)));
+        }
+        assertEquals(1, byUser.size());
+    }
+    
+    @Test
+    void testUserIdRange() {
+        Collection<String> result = algorithm.doSharding(targets, range(OrderShardingKeys.USER_ID_COLUMN, Range.closed(4L, 4L)));
+        
+        assertEquals(algorithm.doSharding(targets, precise(OrderShardingKeys.USER_ID_COLUMN, 4L)), result);
+    }
+    
+    @Test
+    void testOrderIdRange() {
+        // Given
+        long orderId = ShardingGene.compose(7L, 4L);
+        
+        // When & Then - 同一订单ID的区间按基因路由，与按用户路由一致；跨度覆盖全部基因时路由到全部表
+        assertEquals(algorithm.doSharding(targets, precise(OrderShardingKeys.USER_ID_COLUMN, 4L)),
+                algorithm.doSharding(targets, range(OrderShardingKeys.ORDER_ID_COLUMN, Range.closed(orderId, orderId))));
+        assertEquals(targets, algorithm.doSharding(targets,
+                range(OrderShardingKeys.ORDER_ID_COLUMN, Range.closed(orderId, orderId + SlotMapping.SLOT_COUNT))));
+        assertEquals(targets, algorithm.doSharding(targets, range(OrderShardingKeys.ORDER_ID_COLUMN, Range.atLeast(orderId))));
+    }
+    
+    @Test
+    void testNoShardingKey() {
+        ComplexKeysShardingValue<Comparable<?>> shardingValue =
+                new ComplexKeysShardingValue<>("t_order", Collections.emptyMap(), Collections.emptyMap());
+        
+        assertEquals(targets, algorithm.doSharding(targets, shardingValue));
+    }
+    
+    private ComplexKeysShardingValue<Comparable<?>> precise(String column, Comparable<?> value) {
+        Map<String, Collection<Comparable<?>>> values = new HashMap<>();
+        values.put(column, Collections.singletonList(value));
+        return new ComplexKeysShardingValue<>("t_order", values, Collections.emptyMap());
+    }
+    
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private ComplexKeysShardingValue<Comparable<?>> range(String column, Range<Long> range) {
+        Map<String, Range<Comparable<?>>> ranges = new HashMap<>();
+        ranges.put(column, (Range) range);
+        return new ComplexKeysShardingValue<>("t_order", Collections.emptyMap(), ranges);
+    }
+}
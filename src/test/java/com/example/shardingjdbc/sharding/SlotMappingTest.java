@@ -0,0 +1,78 @@
+package com.example.shardingjdbc.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 槽位映射表单元测试
+ */
+class SlotMappingTest {
+    
+    private final List<String> targets = Arrays.asList("ds0", "ds1", "ds2");
+    
+    @Test
+    void testDefaultMapping() {
+        // Given
+        SlotMapping slotMapping = new SlotMapping(Arrays.asList("ds0", "ds1"), new Properties());
+        
+        // Then
+        assertEquals("ds0", slotMapping.route(targets, 0));
+        assertEquals("ds1", slotMapping.route(targets, 1));
+        assertEquals("ds1", slotMapping.route(targets, 1023));
+    }
+    
+    @Test
+    void testOverridesOnlyMoveListedSlots() {
+        // Given
+        Properties overrides = new Properties();
+        overrides.setProperty("0-127", "ds2");
+        overrides.setProperty("513", "ds2");
+        
+        // When
+        SlotMapping slotMapping = new SlotMapping(Arrays.asList("ds0", "ds1"), overrides);
+        
+        // Then
+        assertEquals("ds2", slotMapping.route(targets, 0));
+        assertEquals("ds2", slotMapping.route(targets, 127));
+        assertEquals("ds0", slotMapping.route(targets, 128));
+        assertEquals("ds2", slotMapping.route(targets, 513));
+        assertEquals("ds1", slotMapping.route(targets, 515));
+    }
+    
+    @Test
+    void testLoadFromClasspath() {
+        // Given
+        Properties props = new Properties();
+        props.setProperty(SlotMapping.DEFAULT_NODES_KEY, "ds0, ds1");
+        props.setProperty(SlotMapping.MAPPING_FILE_KEY, "sharding/slot-mapping.properties");
+        
+        // When
+        SlotMapping slotMapping = SlotMapping.load(props);
+        
+        // Then
+        assertEquals("ds0", slotMapping.route(targets, 2));
+        assertEquals("ds1", slotMapping.route(targets, 3));
+    }
+    
+    @Test
+    void testRouteToUnavailableTarget() {
+        Properties overrides = new Properties();
+        overrides.setProperty("5", "ds9");
+        SlotMapping slotMapping = new SlotMapping(Arrays.asList("ds0", "ds1"), overrides);
+        
+        assertThrows(IllegalStateException.class, () -> slotMapping.route(targets, 5));
+    }
+    
+    @Test
+    void testInvalidSlot() {
+        Properties overrides = new Properties();
+        overrides.setProperty("1024", "ds0");
+        
+        assertThrows(IllegalArgumentException.class, () -> new SlotMapping(Arrays.asList("ds0", "ds1"), overrides));
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.shardingjdbc.sharding;
+
+import com.google.common.collect.Range;
+import org.apache.shardingsphere.infra.datanode.DataNodeInfo;
+import org.apache.shardingsphere.sharding.api.sharding.standard.PreciseShardingValue;
+import org.apache.shardingsphere.sharding.api.sharding.standard.RangeShardingValue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 用户表分库算法单元测试
+ */
+class UserDatabaseShardingAlgorithmTest {
+    
+    private static final DataNodeInfo DATA_NODE_INFO = new DataNodeInfo("ds", 1, '0');
+    
+    private final List<String> targets = Arrays.asList("ds0", "ds1");
+    
+    private UserDatabaseShardingAlgorithm algorithm;
+    
+    @BeforeEach
+    void setUp() {
+        Properties props = new Properties();
+        props.setProperty(SlotMapping.DEFAULT_NODES_KEY, "ds0,ds1");
+        algorithm = new UserDatabaseShardingAlgorithm();
+        algorithm.init(props);
+    }
+    
+    @Test
+    void testPreciseSharding() {
+        assertEquals("ds0", algorithm.doSharding(targets, precise(4L)));
+        assertEquals("ds1", algorithm.doSharding(targets, precise(7L)));
+        assertEquals("ds1", algorithm.doSharding(targets, precise(1025L)));
+    }
+    
+    @Test
+    void testRangeSharding_SingleValue() {
+        Collection<String> result = algorithm.doSharding(targets, range(Range.closed(3L, 3L)));
+        
+        assertEquals(Collections.singletonList("ds1"), Arrays.asList(result.toArray()));
+    }
+    
+    @Test
+    void testRangeSharding_OpenBounds() {
+        Collection<String> result = algorithm.doSharding(targets, range(Range.open(1L, 3L)));
+        
+        assertEquals(Collections.singletonList("ds0"), Arrays.asList(result.toArray()));
+    }
+    
+    @Test
+    void testRangeSharding_CoversAllTargets() {
+        assertEquals(targets, algorithm.doSharding(targets, range(Range.closed(1L, 10L))));
+        assertEquals(targets, algorithm.doSharding(targets, range(Range.atLeast(1L))));
+    }
+    
+    private PreciseShardingValue<Comparable<?>> precise(long userId) {
+        return new PreciseShardingValue<>("t_user", "user_id", DATA_NODE_INFO, userId);
+    }
+    
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private RangeShardingValue<Comparable<?>> range(Range<Long> range) {
+        return new RangeShardingValue<>("t_user", "user_id", DATA_NODE_INFO, (Range) range);
+    }
+}
@@ -2,6 +2,7 @@ package com.example.shardingjdbc.util;
 
 import com.example.shardingjdbc.entity.Order;
 import com.example.shardingjdbc.entity.User;
+import com.example.shardingjdbc.sharding.ShardingGene;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -105,7 +106,7 @@ public class TestDataGenerator {
             // 为每个用户生成1-3个订单
             int orderCount = random.nextInt(3) + 1;
             for (int j = 0; j < orderCount; j++) {
-                Long orderId = (long) (i * 10 + j * 2 + 2); // 偶数订单ID
+                Long orderId = ShardingGene.compose(i * 10 + j * 2 + 2, userId);
                 Order order = generateOrder(orderId, userId);
                 dataSet.addOrder(order);
             }
@@ -120,7 +121,7 @@ public class TestDataGenerator {
             // 为每个用户生成1-3个订单
             int orderCount = random.nextInt(3) + 1;
             for (int j = 0; j < orderCount; j++) {
-                Long orderId = (long) (i * 10 + j * 2 + 1); // 奇数订单ID
+                Long orderId = ShardingGene.compose(i * 10 + j * 2 + 1, userId);
                 Order order = generateOrder(orderId, userId);
                 dataSet.addOrder(order);
             }
@@ -220,15 +221,15 @@ public class TestDataGenerator {
                     .collect(java.util.stream.Collectors.toList());
         }
         
-        public List<Order> getEvenOrderIdOrders() {
+        public List<Order> getTable0Orders() {
             return orders.stream()
-                    .filter(order -> order.getOrderId() % 2 == 0)
+                    .filter(order -> ShardingGene.hash(ShardingGene.ofOrderId(order.getOrderId())) % 2 == 0)
                     .collect(java.util.stream.Collectors.toList());
         }
         
-        public List<Order> getOddOrderIdOrders() {
+        public List<Order> getTable1Orders() {
             return orders.stream()
-                    .filter(order -> order.getOrderId() % 2 == 1)
+                    .filter(order -> ShardingGene.hash(ShardingGene.ofOrderId(order.getOrderId())) % 2 == 1)
                     .collect(java.util.stream.Collectors.toList());
         }
     }